@@ -0,0 +1,76 @@
+package de.turnertech.problemdetails.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.turnertech.problemdetails.Problem;
+
+/**
+ * Throughput of reading problems from JSON and XML. Run with "-prof gc" to see the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsingBenchmark {
+
+    private XMLInputFactory xmlInputFactory;
+
+    private byte[] json;
+
+    private byte[] xml;
+
+    @Setup
+    public void setup() throws IOException, XMLStreamException {
+        xmlInputFactory = XMLInputFactory.newFactory();
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        problem.getExtensions().put("balance", 30).put("currency", "EUR");
+        json = problem.toJson().getBytes(StandardCharsets.UTF_8);
+        xml = problem.toXml().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Problem fromJsonStream() throws IOException {
+        return Problem.fromJson(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public Problem fromJsonByteBuffer() throws IOException {
+        return Problem.fromJson(ByteBuffer.wrap(json));
+    }
+
+    @Benchmark
+    public Problem fromXml() throws XMLStreamException {
+        XMLStreamReader xmlStreamReader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(xml));
+        try {
+            return Problem.fromXml(xmlStreamReader);
+        } finally {
+            xmlStreamReader.close();
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package de.turnertech.problemdetails.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.turnertech.problemdetails.MemberWriter;
+import de.turnertech.problemdetails.Problem;
+
+/**
+ * Throughput of writing problems as JSON and XML. Run with "-prof gc" to see the allocation rate per operation.
+ * The stream benchmarks write into a reused buffer, so that only the allocations of the library are measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1024);
+
+    private XMLOutputFactory xmlOutputFactory;
+
+    private Problem problem;
+
+    private Problem typedExtensions;
+
+    private Problem streamExtensions;
+
+    /**
+     * Problem using the typed extension members, written through the encoder buffers.
+     */
+    static final class TypedExtensionProblem extends Problem {
+
+        private final String solution = "Moar Hugs";
+
+        private final long balance = 30;
+
+        @Override
+        protected void writeExtensions(MemberWriter memberWriter) throws IOException {
+            memberWriter.writeMember("solution", solution);
+            memberWriter.writeMember("balance", balance);
+        }
+
+    }
+
+    /**
+     * Problem extending the output the 1.0 way, with a flush and direct writes to the stream.
+     */
+    static final class StreamExtensionProblem extends Problem {
+
+        private final String solution = "Moar Hugs";
+
+        @Override
+        protected boolean extendJson(OutputStream outputStream, Charset charset) {
+            PrintWriter printWriter = new PrintWriter(outputStream);
+            printWriter.write(",\"solution\":\"");
+            printWriter.write(solution);
+            printWriter.write("\"");
+            printWriter.flush();
+            return true;
+        }
+
+        @Override
+        protected void extendXml(XMLStreamWriter xmlStreamWriter, Charset charset) throws XMLStreamException {
+            xmlStreamWriter.writeStartElement("bp", "solution", "http://my.namespace");
+            xmlStreamWriter.writeCharacters(solution);
+            xmlStreamWriter.writeEndElement();
+        }
+
+    }
+
+    @Setup
+    public void setup() {
+        xmlOutputFactory = XMLOutputFactory.newFactory();
+        problem = populate(new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc")));
+        typedExtensions = populate(new TypedExtensionProblem());
+        streamExtensions = populate(new StreamExtensionProblem());
+    }
+
+    private static Problem populate(Problem problem) {
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        return problem;
+    }
+
+    @Benchmark
+    public String toJsonString() throws IOException {
+        return problem.toJson();
+    }
+
+    @Benchmark
+    public int toJsonStream() throws IOException {
+        outputStream.reset();
+        problem.toJson(outputStream);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int toJsonStreamLatin1() throws IOException {
+        outputStream.reset();
+        problem.toJson(outputStream, StandardCharsets.ISO_8859_1);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public String toXmlString() throws XMLStreamException {
+        return problem.toXml();
+    }
+
+    @Benchmark
+    public int toXmlStream() throws XMLStreamException {
+        outputStream.reset();
+        problem.toXml(outputStream, StandardCharsets.UTF_8, true);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int toXmlStreamWriter() throws XMLStreamException {
+        outputStream.reset();
+        XMLStreamWriter xmlStreamWriter = xmlOutputFactory.createXMLStreamWriter(outputStream, "UTF-8");
+        problem.toXml(xmlStreamWriter, StandardCharsets.UTF_8, true);
+        xmlStreamWriter.close();
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int toJsonTypedExtensions() throws IOException {
+        outputStream.reset();
+        typedExtensions.toJson(outputStream);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int toJsonStreamExtensions() throws IOException {
+        outputStream.reset();
+        streamExtensions.toJson(outputStream);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int toXmlTypedExtensions() throws XMLStreamException {
+        outputStream.reset();
+        typedExtensions.toXml(outputStream, StandardCharsets.UTF_8, true);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int toXmlStreamExtensions() throws XMLStreamException {
+        outputStream.reset();
+        streamExtensions.toXml(outputStream, StandardCharsets.UTF_8, true);
+        return outputStream.size();
+    }
+
+}
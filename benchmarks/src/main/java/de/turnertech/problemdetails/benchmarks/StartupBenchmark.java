@@ -0,0 +1,46 @@
+package de.turnertech.problemdetails.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.turnertech.problemdetails.Problem;
+
+/**
+ * Cost of the first problem written by a fresh JVM, as seen by short lived processes such as serverless functions.
+ * Each fork measures a single call, so class loading and static initialisation are part of the result.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+public class StartupBenchmark {
+
+    @Benchmark
+    public String firstToJson() throws IOException {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(404);
+        problem.setTitle(Problem.findStatusPhrase(404));
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        return problem.toJson();
+    }
+
+    @Benchmark
+    public String firstToJsonGerman() throws IOException {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"));
+        problem.setStatus(403);
+        problem.setTitle(Problem.findStatusPhrase(403, Locale.GERMAN));
+        return problem.toJson();
+    }
+
+}
@@ -0,0 +1,59 @@
+package de.turnertech.problemdetails.benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.turnertech.problemdetails.Problem;
+
+/**
+ * Throughput of status phrase lookups, for each bundled language and one without a bundle.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StatusPhraseBenchmark {
+
+    private static final int[] STATUS_CODES = { 200, 400, 403, 404, 418, 500, 503, 299 };
+
+    @Param({ "en", "de", "fr", "ja" })
+    public String language;
+
+    private Locale locale;
+
+    @Setup
+    public void setup() {
+        locale = Locale.forLanguageTag(language);
+    }
+
+    @Benchmark
+    public void findStatusPhrase(Blackhole blackhole) {
+        for(int statusCode : STATUS_CODES) {
+            blackhole.consume(Problem.findStatusPhrase(statusCode, locale));
+        }
+    }
+
+    @Benchmark
+    public void findStatusPhraseCountry(Blackhole blackhole) {
+        Locale country = Locale.GERMANY;
+        for(int statusCode : STATUS_CODES) {
+            blackhole.consume(Problem.findStatusPhrase(statusCode, country));
+        }
+    }
+
+}
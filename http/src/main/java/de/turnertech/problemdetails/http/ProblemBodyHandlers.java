@@ -0,0 +1,100 @@
+package de.turnertech.problemdetails.http;
+
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import de.turnertech.problemdetails.Problem;
+
+/**
+ * <p>Body handlers for the JDK {@link java.net.http.HttpClient}, which read problem responses.</p>
+ *
+ * <pre>
+ * HttpResponse&lt;Problem&gt; response = client.send(request, ProblemBodyHandlers.ofProblem());
+ * if(response.body() != null) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Responses with the Content-Type {@value Problem#MEDIA_TYPE_JSON}, {@value Problem#MEDIA_TYPE_XML} or
+ * {@value Problem#MEDIA_TYPE_CBOR} are read into a problem. The body of any other response is discarded, and its
+ * body is null, as is the body of an empty response such as the answer to a HEAD request. Members of the wrong type
+ * are ignored, as by {@link Problem#fromJson(java.io.InputStream)}. A body which is not a problem at all completes
+ * the response with an {@link java.io.IOException}.</p>
+ *
+ * <p>A body is held in memory until it is complete, so its size is limited, by default to
+ * {@value #DEFAULT_MAX_BODY_SIZE} bytes. A larger body is not read any further, and completes the response with an
+ * {@link java.io.IOException}.</p>
+ */
+public final class ProblemBodyHandlers {
+
+    /**
+     * The maximum size in bytes of a problem body, unless another is given.
+     */
+    public static final long DEFAULT_MAX_BODY_SIZE = 1 << 20;
+
+    private ProblemBodyHandlers() {
+        // Static access only
+    }
+
+    /**
+     * Gets a handler which reads problem responses into a {@link Problem}, of up to
+     * {@value #DEFAULT_MAX_BODY_SIZE} bytes.
+     * @return the handler.
+     */
+    public static BodyHandler<Problem> ofProblem() {
+        return ofProblem(Problem::new);
+    }
+
+    /**
+     * Gets a handler which reads problem responses into a problem created by the supplied factory, e.g. a subclass
+     * which reads its own extension members. Bodies of up to {@value #DEFAULT_MAX_BODY_SIZE} bytes are read.
+     * @param <T> the type of Problem to read.
+     * @param factory creates the problem to populate.
+     * @return the handler.
+     * @throws NullPointerException if factory is null.
+     */
+    public static <T extends Problem> BodyHandler<T> ofProblem(Supplier<T> factory) {
+        return ofProblem(factory, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * Gets a handler which reads problem responses of up to a maximum size into a problem created by the supplied
+     * factory.
+     * @param <T> the type of Problem to read.
+     * @param factory creates the problem to populate.
+     * @param maxBodySize the maximum size of a body in bytes.
+     * @return the handler.
+     * @throws NullPointerException if factory is null.
+     * @throws IllegalArgumentException if maxBodySize is negative.
+     */
+    public static <T extends Problem> BodyHandler<T> ofProblem(Supplier<T> factory, long maxBodySize) {
+        Objects.requireNonNull(factory);
+        if(maxBodySize < 0) {
+            throw new IllegalArgumentException("maxBodySize must not be negative");
+        }
+        return responseInfo -> {
+            String mediaType = responseInfo.headers().firstValue("Content-Type").map(ProblemBodyHandlers::mediaType).orElse("");
+            switch(mediaType) {
+                case Problem.MEDIA_TYPE_JSON:
+                case Problem.MEDIA_TYPE_XML:
+                case Problem.MEDIA_TYPE_CBOR:
+                    return new ProblemSubscriber<>(mediaType, factory, maxBodySize);
+                default:
+                    return BodySubscribers.replacing(null);
+            }
+        };
+    }
+
+    /**
+     * Gets the media type of a Content-Type header, in lower case and without parameters.
+     */
+    private static String mediaType(String contentType) {
+        int parameters = contentType.indexOf(';');
+        String mediaType = parameters < 0 ? contentType : contentType.substring(0, parameters);
+        return mediaType.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
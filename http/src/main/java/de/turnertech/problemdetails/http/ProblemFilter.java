@@ -0,0 +1,107 @@
+package de.turnertech.problemdetails.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemException;
+import de.turnertech.problemdetails.ProblemMapper;
+import de.turnertech.problemdetails.ProblemWriter;
+
+/**
+ * <p>A filter for the JDK {@link com.sun.net.httpserver.HttpServer}, which answers runtime exceptions thrown by a
+ * handler with a problem. A {@link ProblemException} is answered with its own problem, other exceptions with the
+ * problem mapped by a {@link ProblemMapper}.</p>
+ *
+ * <pre>
+ * HttpContext context = server.createContext("/accounts", handler);
+ * context.getFilters().add(new ProblemFilter(mapper));
+ * </pre>
+ *
+ * <p>Handlers may also answer with a problem directly, using {@link #send(HttpExchange, Problem)}. The problem is
+ * written straight into the response body, in the representation and language negotiated from the request, and
+ * with an exact Content-Length. Filters are immutable and may be shared.</p>
+ */
+public final class ProblemFilter extends Filter {
+
+    private final ProblemMapper mapper;
+
+    /**
+     * Constructs a filter which maps exceptions other than {@link ProblemException} to 500 Internal Server Error.
+     */
+    public ProblemFilter() {
+        this(new ProblemMapper());
+    }
+
+    /**
+     * Constructs a filter which maps exceptions with the supplied mapper.
+     * @param mapper maps exceptions to problems.
+     * @throws NullPointerException if mapper is null.
+     */
+    public ProblemFilter(ProblemMapper mapper) {
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    /**
+     * Calls the next filter or handler, and sends a problem if it throws a runtime exception. If the response
+     * headers were already sent, the exception is rethrown instead.
+     * @param exchange the exchange.
+     * @param chain the rest of the chain.
+     * @throws IOException if the chain throws, or the problem cannot be sent.
+     */
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        try {
+            chain.doFilter(exchange);
+        } catch (RuntimeException e) {
+            if(exchange.getResponseCode() != -1) {
+                throw e;
+            }
+            send(exchange, mapper.toProblem(e));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String description() {
+        return "Answers exceptions with problem details (RFC 9457)";
+    }
+
+    /**
+     * <p>Sends a problem as the response to an exchange, and closes the exchange. The representation and language
+     * are negotiated from the Accept and Accept-Language request headers with {@link ProblemWriter}. The status of
+     * the response is the status of the problem, or 500 if it has none.</p>
+     * <p>The length of the problem is computed before the headers are sent, and the problem is then encoded directly
+     * into the response body, without an intermediate String or byte array. Responses to HEAD requests have no
+     * body.</p>
+     * @param exchange the exchange, whose response headers must not have been sent.
+     * @param problem the problem to send.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void send(HttpExchange exchange, Problem problem) throws IOException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        ProblemWriter writer = ProblemWriter.negotiate(requestHeaders.getFirst("Accept"), requestHeaders.getFirst("Accept-Language"));
+        Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("Content-Type", writer.getMediaType());
+        responseHeaders.set("Content-Language", writer.getLocale().toLanguageTag());
+        responseHeaders.set("Vary", "Accept, Accept-Language");
+        int status = problem.getStatusAsInt() == Problem.NO_STATUS ? 500 : problem.getStatusAsInt();
+        if("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, writer.length(problem));
+        try(OutputStream body = exchange.getResponseBody()) {
+            writer.write(problem, body);
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package de.turnertech.problemdetails.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.turnertech.problemdetails.Problem;
+
+/**
+ * Reads a problem from the byte flow of a response body. The buffers are kept as the client delivers them, and
+ * never joined into one array. A body which arrives in a single buffer, as small problems do, is decoded from that
+ * buffer directly, larger bodies are decoded from a stream over the buffers. A body larger than the maximum size
+ * cancels the subscription, and completes the response with an {@link IOException}.
+ */
+final class ProblemSubscriber<T extends Problem> implements BodySubscriber<T> {
+
+    /** Configured once, after which creating readers is thread safe. */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private final CompletableFuture<T> body = new CompletableFuture<>();
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+
+    private final String mediaType;
+
+    private final Supplier<T> factory;
+
+    private final long maxBodySize;
+
+    private Flow.Subscription subscription;
+
+    private long received;
+
+    ProblemSubscriber(String mediaType, Supplier<T> factory, long maxBodySize) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+        this.maxBodySize = maxBodySize;
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return xmlInputFactory;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if(body.isDone()) {
+            // Items may still arrive after cancelling
+            return;
+        }
+        for(ByteBuffer item : items) {
+            received += item.remaining();
+        }
+        if(received > maxBodySize) {
+            subscription.cancel();
+            buffers.clear();
+            body.completeExceptionally(new IOException("Problem body exceeds " + maxBodySize + " bytes"));
+            return;
+        }
+        buffers.addAll(items);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        buffers.clear();
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if(body.isDone()) {
+            return;
+        }
+        try {
+            body.complete(read());
+        } catch (IOException | RuntimeException e) {
+            body.completeExceptionally(e);
+        } finally {
+            buffers.clear();
+        }
+    }
+
+    private T read() throws IOException {
+        if(buffers.stream().noneMatch(ByteBuffer::hasRemaining)) {
+            // E.g. the response to a HEAD request
+            return null;
+        }
+        switch(mediaType) {
+            case Problem.MEDIA_TYPE_XML:
+                return readXml(new BuffersInputStream(buffers.iterator()));
+            case Problem.MEDIA_TYPE_CBOR:
+                return buffers.size() == 1 ? Problem.fromCbor(buffers.get(0), factory) : Problem.fromCbor(new BuffersInputStream(buffers.iterator()), factory);
+            default:
+                return buffers.size() == 1 ? Problem.fromJson(buffers.get(0), factory) : Problem.fromJson(new BuffersInputStream(buffers.iterator()), factory);
+        }
+    }
+
+    private T readXml(InputStream inputStream) throws IOException {
+        try {
+            XMLStreamReader xmlStreamReader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                return Problem.fromXml(xmlStreamReader, factory);
+            } finally {
+                xmlStreamReader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * A stream over a sequence of buffers.
+     */
+    private static final class BuffersInputStream extends InputStream {
+
+        private final Iterator<ByteBuffer> buffers;
+
+        private ByteBuffer current = ByteBuffer.allocate(0);
+
+        private BuffersInputStream(Iterator<ByteBuffer> buffers) {
+            this.buffers = buffers;
+        }
+
+        /**
+         * Advances to the next buffer with remaining bytes.
+         * @return false at the end of the sequence.
+         */
+        private boolean advance() {
+            while(!current.hasRemaining()) {
+                if(!buffers.hasNext()) {
+                    return false;
+                }
+                current = buffers.next();
+            }
+            return true;
+        }
+
+        @Override
+        public int read() {
+            return advance() ? current.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(len == 0) {
+                return 0;
+            }
+            if(!advance()) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return current.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,12 @@
+/**
+ * Integration of problem details with the JDK HTTP server and client.
+ */
+module de.turnertech.problemdetails.http {
+
+    exports de.turnertech.problemdetails.http;
+
+    requires transitive de.turnertech.problemdetails;
+    requires transitive jdk.httpserver;
+    requires transitive java.net.http;
+
+}
@@ -0,0 +1,160 @@
+package test.de.turnertech.problemdetails.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemException;
+import de.turnertech.problemdetails.ProblemMapper;
+import de.turnertech.problemdetails.ProblemTemplate;
+import de.turnertech.problemdetails.http.ProblemBodyHandlers;
+import de.turnertech.problemdetails.http.ProblemFilter;
+
+class ProblemHttpTests {
+
+    private static final URI OUT_OF_CREDIT = URI.create("https://example.com/probs/out-of-credit");
+
+    private static final String LARGE_DETAIL = "Détail 😀 <&> ".repeat(20000);
+
+    private static HttpServer server;
+
+    private static HttpClient client;
+
+    private static Problem outOfCredit() {
+        Problem problem = new Problem(OUT_OF_CREDIT, URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        return problem;
+    }
+
+    @BeforeAll
+    static void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ProblemFilter filter = new ProblemFilter(new ProblemMapper().register(IllegalStateException.class, ProblemTemplate.of(URI.create("https://example.com/probs/conflict"), "Conflict", 409)));
+        server.createContext("/throw", exchange -> {
+            throw new ProblemException(outOfCredit());
+        }).getFilters().add(filter);
+        server.createContext("/fail", exchange -> {
+            throw new IllegalStateException("boom");
+        }).getFilters().add(filter);
+        server.createContext("/large", exchange -> {
+            Problem problem = new Problem();
+            problem.setStatus(400);
+            problem.setDetail(LARGE_DETAIL);
+            ProblemFilter.send(exchange, problem);
+        });
+        server.createContext("/ok", exchange -> {
+            byte[] body = "hello".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.createContext("/broken", exchange -> {
+            byte[] body = "{\"type\":".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", Problem.MEDIA_TYPE_JSON);
+            exchange.sendResponseHeaders(400, body.length);
+            try(OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.stop(0);
+    }
+
+    private static HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path));
+    }
+
+    @Test
+    void sends_problem_with_exact_length() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request("/throw").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(403, response.statusCode());
+        assertEquals(Problem.MEDIA_TYPE_JSON, response.headers().firstValue("Content-Type").orElse(null));
+        assertEquals("en", response.headers().firstValue("Content-Language").orElse(null));
+        assertEquals(response.body().length, response.headers().firstValueAsLong("Content-Length").orElse(-1));
+        assertEquals(outOfCredit().toJson(), new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reads_each_format() throws IOException, InterruptedException {
+        for(String accept : new String[] { Problem.MEDIA_TYPE_JSON, Problem.MEDIA_TYPE_XML, Problem.MEDIA_TYPE_CBOR }) {
+            HttpResponse<Problem> response = client.send(request("/throw").header("Accept", accept).build(), ProblemBodyHandlers.ofProblem());
+            assertEquals(accept, response.headers().firstValue("Content-Type").orElse(null));
+            assertEquals(outOfCredit(), response.body(), accept);
+        }
+    }
+
+    @Test
+    void maps_exceptions() throws IOException, InterruptedException {
+        HttpResponse<Problem> response = client.send(request("/fail").header("Accept-Language", "de").build(), ProblemBodyHandlers.ofProblem());
+        assertEquals(409, response.statusCode());
+        assertEquals(409, response.body().getStatusAsInt());
+        assertEquals("https://example.com/probs/conflict", response.body().getType().toString());
+        assertEquals("de", response.headers().firstValue("Content-Language").orElse(null));
+    }
+
+    @Test
+    void reads_body_spanning_many_buffers() throws IOException, InterruptedException {
+        for(String accept : new String[] { Problem.MEDIA_TYPE_JSON, Problem.MEDIA_TYPE_XML, Problem.MEDIA_TYPE_CBOR }) {
+            HttpResponse<Problem> response = client.send(request("/large").header("Accept", accept).build(), ProblemBodyHandlers.ofProblem());
+            assertEquals(400, response.statusCode());
+            assertEquals(LARGE_DETAIL, response.body().getDetail(), accept);
+        }
+    }
+
+    @Test
+    void head_has_no_body() throws IOException, InterruptedException {
+        HttpResponse<Problem> response = client.send(request("/throw").method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), ProblemBodyHandlers.ofProblem());
+        assertEquals(403, response.statusCode());
+        assertEquals(Problem.MEDIA_TYPE_JSON, response.headers().firstValue("Content-Type").orElse(null));
+        assertNull(response.body());
+    }
+
+    @Test
+    void other_responses_are_discarded() throws IOException, InterruptedException {
+        HttpResponse<Problem> response = client.send(request("/ok").build(), ProblemBodyHandlers.ofProblem());
+        assertEquals(200, response.statusCode());
+        assertNull(response.body());
+    }
+
+    @Test
+    void oversized_body_fails() throws IOException, InterruptedException {
+        IOException e = assertThrows(IOException.class, () -> client.send(request("/large").build(), ProblemBodyHandlers.ofProblem(Problem::new, 64 * 1024)));
+        assertTrue(e.getMessage().contains("65536"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ProblemBodyHandlers.ofProblem(Problem::new, -1));
+        // The connection is still usable afterwards
+        assertEquals(403, client.send(request("/throw").build(), ProblemBodyHandlers.ofProblem()).statusCode());
+    }
+
+    @Test
+    void invalid_problem_fails() {
+        assertThrows(IOException.class, () -> client.send(request("/broken").build(), ProblemBodyHandlers.ofProblem()));
+    }
+
+}
@@ -0,0 +1,461 @@
+package de.turnertech.problemdetails.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * <p>Generates a class {@code <Problem>Members} for each {@code Problem} subclass with fields annotated with
+ * {@code de.turnertech.problemdetails.ExtensionMember}. The generated class has three static methods, to which the
+ * subclass delegates:</p>
+ *
+ * <ul>
+ * <li>{@code write(problem, memberWriter)} writes the fields with pre-encoded {@code MemberName}s, in declaration
+ * order, to JSON, XML and CBOR alike.</li>
+ * <li>{@code readJson(problem, name, value)} sets a field from a decoded JSON or CBOR member, and returns false for
+ * names it does not know.</li>
+ * <li>{@code readXml(problem, xmlStreamReader)} sets a field from an element in the problem namespace, and returns
+ * false for elements it does not know.</li>
+ * </ul>
+ *
+ * <p>The generated code accesses the fields directly, so it uses no reflection and needs no configuration for
+ * native images. Values of the wrong type are ignored, as the library does for the RFC 9457 members.</p>
+ */
+@SupportedAnnotationTypes(ExtensionMemberProcessor.ANNOTATION)
+public final class ExtensionMemberProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "de.turnertech.problemdetails.ExtensionMember";
+
+    private static final String PROBLEM = "de.turnertech.problemdetails.Problem";
+
+    /**
+     * Constructs the processor. Called by the compiler.
+     */
+    public ExtensionMemberProcessor() {
+        // Configured by init
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        TypeElement problem = processingEnv.getElementUtils().getTypeElement(PROBLEM);
+        if(annotation == null || problem == null) {
+            return false;
+        }
+        Map<TypeElement, List<Member>> owners = new LinkedHashMap<>();
+        for(Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            TypeElement owner = (TypeElement) element.getEnclosingElement();
+            Member member = member((VariableElement) element, annotation, problem, owner);
+            if(member != null) {
+                owners.computeIfAbsent(owner, key -> new ArrayList<>()).add(member);
+            }
+        }
+        for(Map.Entry<TypeElement, List<Member>> owner : owners.entrySet()) {
+            if(checkNames(owner.getValue())) {
+                generate(owner.getKey(), owner.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An annotated field.
+     */
+    private static final class Member {
+
+        private final VariableElement field;
+
+        private final String name;
+
+        private final Kind kind;
+
+        /** The primitive type of the field, or of its wrapper. */
+        private final String primitive;
+
+        private final boolean boxed;
+
+        private Member(VariableElement field, String name, Kind kind, String primitive, boolean boxed) {
+            this.field = field;
+            this.name = name;
+            this.kind = kind;
+            this.primitive = primitive;
+            this.boxed = boxed;
+        }
+
+        private String constant() {
+            StringBuilder constant = new StringBuilder();
+            for(int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if(Character.isUpperCase(c) && i > 0 && Character.isLowerCase(name.charAt(i - 1))) {
+                    constant.append('_');
+                }
+                constant.append(c == '-' || c == '.' ? '_' : Character.toUpperCase(c));
+            }
+            return constant.toString();
+        }
+
+    }
+
+    private enum Kind {
+        STRING, URI, BOOLEAN, INTEGRAL, FLOATING
+    }
+
+    private Member member(VariableElement field, TypeElement annotation, TypeElement problem, TypeElement owner) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if(modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+            error(field, "@ExtensionMember fields must not be private, static or final");
+            return null;
+        }
+        if(!processingEnv.getTypeUtils().isSubtype(owner.asType(), problem.asType())) {
+            error(field, "@ExtensionMember fields must be declared in a subclass of " + PROBLEM);
+            return null;
+        }
+        if(owner.getModifiers().contains(Modifier.PRIVATE) || (owner.getNestingKind() == NestingKind.MEMBER && !owner.getModifiers().contains(Modifier.STATIC))) {
+            error(field, "@ExtensionMember fields must be declared in a top level or static nested class which is not private");
+            return null;
+        }
+        String name = annotationValue(field, annotation);
+        if(name.isEmpty()) {
+            name = field.getSimpleName().toString();
+        }
+        if(!isValidName(name)) {
+            error(field, "\"" + name + "\" is not a valid extension member name");
+            return null;
+        }
+        TypeMirror type = field.asType();
+        if(type.getKind().isPrimitive()) {
+            return member(field, name, type.toString(), false);
+        }
+        switch(type.toString()) {
+            case "java.lang.String":
+                return new Member(field, name, Kind.STRING, null, false);
+            case "java.net.URI":
+                return new Member(field, name, Kind.URI, null, false);
+            case "java.lang.Boolean":
+                return member(field, name, "boolean", true);
+            case "java.lang.Byte":
+                return member(field, name, "byte", true);
+            case "java.lang.Short":
+                return member(field, name, "short", true);
+            case "java.lang.Integer":
+                return member(field, name, "int", true);
+            case "java.lang.Long":
+                return member(field, name, "long", true);
+            case "java.lang.Float":
+                return member(field, name, "float", true);
+            case "java.lang.Double":
+                return member(field, name, "double", true);
+            default:
+                break;
+        }
+        error(field, "@ExtensionMember fields must be String, URI, boolean, an integral or floating point primitive, or its wrapper");
+        return null;
+    }
+
+    private Member member(VariableElement field, String name, String primitive, boolean boxed) {
+        switch(primitive) {
+            case "boolean":
+                return new Member(field, name, Kind.BOOLEAN, primitive, boxed);
+            case "float":
+            case "double":
+                return new Member(field, name, Kind.FLOATING, primitive, boxed);
+            case "char":
+                error(field, "@ExtensionMember fields must not be char");
+                return null;
+            default:
+                return new Member(field, name, Kind.INTEGRAL, primitive, boxed);
+        }
+    }
+
+    private static String annotationValue(VariableElement field, TypeElement annotation) {
+        for(AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if(mirror.getAnnotationType().asElement().equals(annotation)) {
+                for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                    if(value.getKey().getSimpleName().contentEquals("value")) {
+                        return (String) value.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return "";
+    }
+
+    private boolean checkNames(List<Member> members) {
+        Set<String> names = new HashSet<>();
+        Set<String> constants = new HashSet<>();
+        boolean valid = true;
+        for(Member member : members) {
+            if(!names.add(member.name) || !constants.add(member.constant())) {
+                error(member.field, "extension member \"" + member.name + "\" is declared twice");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * The rules of ExtensionMembers, so that invalid names fail at compile time instead of when the generated class
+     * is initialised.
+     */
+    static boolean isValidName(String name) {
+        switch(name) {
+            case "":
+            case "type":
+            case "title":
+            case "status":
+            case "detail":
+            case "instance":
+                return false;
+            default:
+                break;
+        }
+        if(!isNameStart(name.charAt(0))) {
+            return false;
+        }
+        for(int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if(!(isNameStart(c) || c == '-' || c == '.' || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return !name.regionMatches(true, 0, "xml", 0, 3);
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private void generate(TypeElement owner, List<Member> members) {
+        String packageName = packageOf(owner).getQualifiedName().toString();
+        String ownerName = ownerName(owner);
+        String className = ownerName.replace('.', '_') + "Members";
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try(PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, owner).openWriter())) {
+            if(!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import java.io.IOException;");
+            out.println();
+            out.println("import javax.xml.stream.XMLStreamException;");
+            out.println("import javax.xml.stream.XMLStreamReader;");
+            out.println();
+            out.println("import de.turnertech.problemdetails.MemberName;");
+            out.println("import de.turnertech.problemdetails.MemberWriter;");
+            out.println("import de.turnertech.problemdetails.Problem;");
+            out.println();
+            out.println("/**");
+            out.println(" * Writes and reads the extension members of {@link " + ownerName + "}. Generated by");
+            out.println(" * " + getClass().getName() + ", do not edit.");
+            out.println(" */");
+            out.println("final class " + className + " {");
+            out.println();
+            for(Member member : members) {
+                out.println("    static final MemberName " + member.constant() + " = MemberName.of(\"" + member.name + "\");");
+                out.println();
+            }
+            out.println("    private " + className + "() {");
+            out.println("        // Static access only");
+            out.println("    }");
+            out.println();
+            writeWrite(out, ownerName, members);
+            out.println();
+            writeReadJson(out, ownerName, members);
+            out.println();
+            writeReadXml(out, ownerName, members);
+            out.println();
+            out.println("}");
+        } catch (IOException e) {
+            error(owner, "could not generate " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeWrite(PrintWriter out, String ownerName, List<Member> members) {
+        out.println("    static void write(" + ownerName + " problem, MemberWriter memberWriter) throws IOException {");
+        for(Member member : members) {
+            String field = "problem." + member.field.getSimpleName();
+            String value;
+            switch(member.kind) {
+                case URI:
+                    value = field + ".toString()";
+                    break;
+                case BOOLEAN:
+                    value = member.boxed ? field + ".booleanValue()" : field;
+                    break;
+                case INTEGRAL:
+                    value = member.boxed ? field + ".longValue()" : "(long) " + field;
+                    break;
+                case FLOATING:
+                    value = member.boxed ? field + ".doubleValue()" : "(double) " + field;
+                    break;
+                default:
+                    value = field;
+                    break;
+            }
+            String write = "memberWriter.writeMember(" + member.constant() + ", " + value + ");";
+            if(member.kind == Kind.STRING || member.kind == Kind.URI || member.boxed) {
+                out.println("        if(" + field + " != null) {");
+                out.println("            " + write);
+                out.println("        }");
+            } else {
+                out.println("        " + write);
+            }
+        }
+        out.println("    }");
+    }
+
+    private static void writeReadJson(PrintWriter out, String ownerName, List<Member> members) {
+        out.println("    static boolean readJson(" + ownerName + " problem, String name, Object value) {");
+        out.println("        switch(name) {");
+        for(Member member : members) {
+            String field = "problem." + member.field.getSimpleName();
+            out.println("            case \"" + member.name + "\":");
+            switch(member.kind) {
+                case STRING:
+                    out.println("                if(value instanceof String) {");
+                    out.println("                    " + field + " = (String) value;");
+                    out.println("                }");
+                    break;
+                case URI:
+                    out.println("                if(value instanceof String) {");
+                    out.println("                    " + field + " = toUri((String) value);");
+                    out.println("                }");
+                    break;
+                case BOOLEAN:
+                    out.println("                if(value instanceof Boolean) {");
+                    out.println("                    " + field + " = (Boolean) value;");
+                    out.println("                }");
+                    break;
+                case INTEGRAL:
+                    // Only whole numbers which fit into the field
+                    out.println("                if(value instanceof Long && (" + member.primitive + ") (long) (Long) value == (Long) value) {");
+                    out.println("                    " + field + " = (" + member.primitive + ") (long) (Long) value;");
+                    out.println("                }");
+                    break;
+                default:
+                    out.println("                if(value instanceof Number) {");
+                    out.println("                    " + field + " = (" + member.primitive + ") ((Number) value).doubleValue();");
+                    out.println("                }");
+                    break;
+            }
+            out.println("                return true;");
+        }
+        out.println("            default:");
+        out.println("                return false;");
+        out.println("        }");
+        out.println("    }");
+    }
+
+    private static void writeReadXml(PrintWriter out, String ownerName, List<Member> members) {
+        out.println("    static boolean readXml(" + ownerName + " problem, XMLStreamReader xmlStreamReader) throws XMLStreamException {");
+        out.println("        if(!Problem.NAMESPACE.equals(xmlStreamReader.getNamespaceURI())) {");
+        out.println("            return false;");
+        out.println("        }");
+        out.println("        switch(xmlStreamReader.getLocalName()) {");
+        for(Member member : members) {
+            String field = "problem." + member.field.getSimpleName();
+            out.println("            case \"" + member.name + "\":");
+            switch(member.kind) {
+                case STRING:
+                    out.println("                " + field + " = xmlStreamReader.getElementText();");
+                    break;
+                case URI:
+                    out.println("                " + field + " = toUri(xmlStreamReader.getElementText().trim());");
+                    break;
+                case BOOLEAN:
+                    out.println("                switch(xmlStreamReader.getElementText().trim()) {");
+                    out.println("                    case \"true\":");
+                    out.println("                    case \"1\":");
+                    out.println("                        " + field + " = true;");
+                    out.println("                        break;");
+                    out.println("                    case \"false\":");
+                    out.println("                    case \"0\":");
+                    out.println("                        " + field + " = false;");
+                    out.println("                        break;");
+                    out.println("                    default:");
+                    out.println("                        // Not an xs:boolean");
+                    out.println("                        break;");
+                    out.println("                }");
+                    break;
+                default:
+                    String parse = (member.primitive.equals("int") ? "Integer" : capitalise(member.primitive)) + ".parse" + capitalise(member.primitive);
+                    out.println("                try {");
+                    out.println("                    " + field + " = " + parse + "(xmlStreamReader.getElementText().trim());");
+                    out.println("                } catch (NumberFormatException e) {");
+                    out.println("                    // Ignored, as a member of the wrong type (RFC 9457 - 3.1.)");
+                    out.println("                }");
+                    break;
+            }
+            out.println("                return true;");
+        }
+        out.println("            default:");
+        out.println("                return false;");
+        out.println("        }");
+        out.println("    }");
+        if(members.stream().anyMatch(member -> member.kind == Kind.URI)) {
+            out.println();
+            out.println("    private static java.net.URI toUri(String value) {");
+            out.println("        try {");
+            out.println("            return new java.net.URI(value);");
+            out.println("        } catch (java.net.URISyntaxException e) {");
+            out.println("            return null;");
+            out.println("        }");
+            out.println("    }");
+        }
+    }
+
+    private static String capitalise(String primitive) {
+        return primitive.substring(0, 1).toUpperCase(Locale.ROOT) + primitive.substring(1);
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while(element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    /**
+     * Gets the name of a class relative to its package, e.g. Outer.Inner.
+     */
+    private static String ownerName(TypeElement owner) {
+        String name = owner.getSimpleName().toString();
+        for(Element enclosing = owner.getEnclosingElement(); enclosing.getKind() != ElementKind.PACKAGE; enclosing = enclosing.getEnclosingElement()) {
+            name = enclosing.getSimpleName() + "." + name;
+        }
+        return name;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
@@ -0,0 +1,183 @@
+package test.de.turnertech.problemdetails.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import javax.xml.stream.XMLInputFactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.processor.ExtensionMemberProcessor;
+
+class ExtensionMemberProcessorTests {
+
+    private static final String OUT_OF_CREDIT = String.join("\n",
+        "package example;",
+        "import java.io.IOException;",
+        "import java.net.URI;",
+        "import javax.xml.stream.XMLStreamException;",
+        "import javax.xml.stream.XMLStreamReader;",
+        "import de.turnertech.problemdetails.ExtensionMember;",
+        "import de.turnertech.problemdetails.MemberWriter;",
+        "import de.turnertech.problemdetails.Problem;",
+        "public class OutOfCredit extends Problem {",
+        "    @ExtensionMember long balance;",
+        "    @ExtensionMember(\"retry-after\") Integer retryAfter;",
+        "    @ExtensionMember URI account;",
+        "    @ExtensionMember String note;",
+        "    @ExtensionMember boolean blocked;",
+        "    @ExtensionMember double ratio;",
+        "    @Override",
+        "    protected void writeExtensions(MemberWriter memberWriter) throws IOException {",
+        "        super.writeExtensions(memberWriter);",
+        "        OutOfCreditMembers.write(this, memberWriter);",
+        "    }",
+        "    @Override",
+        "    protected void readJsonExtension(String name, Object value) {",
+        "        if(!OutOfCreditMembers.readJson(this, name, value)) {",
+        "            super.readJsonExtension(name, value);",
+        "        }",
+        "    }",
+        "    @Override",
+        "    protected void readXmlExtension(XMLStreamReader xmlStreamReader) throws XMLStreamException {",
+        "        if(!OutOfCreditMembers.readXml(this, xmlStreamReader)) {",
+        "            super.readXmlExtension(xmlStreamReader);",
+        "        }",
+        "    }",
+        "}");
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String code;
+
+        private Source(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+
+    }
+
+    private static boolean compile(Path output, DiagnosticCollector<JavaFileObject> diagnostics, String className, String code) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            String classPath = new File(Problem.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+            List<String> options = Arrays.asList("-classpath", classPath, "-d", output.toString(), "-s", output.toString());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, Arrays.asList(new Source(className, code)));
+            task.setProcessors(Arrays.asList(new ExtensionMemberProcessor()));
+            return task.call();
+        }
+    }
+
+    @Test
+    void generates_members(@TempDir Path output) throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(compile(output, diagnostics, "example.OutOfCredit", OUT_OF_CREDIT), diagnostics.getDiagnostics().toString());
+
+        try(URLClassLoader classLoader = new URLClassLoader(new URL[] { output.toUri().toURL() }, Problem.class.getClassLoader())) {
+            Class<?> type = classLoader.loadClass("example.OutOfCredit");
+            Supplier<Problem> factory = () -> {
+                try {
+                    return (Problem) type.getConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            Problem problem = factory.get();
+            set(problem, "balance", 30L);
+            set(problem, "retryAfter", 60);
+            set(problem, "account", URI.create("/account/12345"));
+            set(problem, "blocked", true);
+            set(problem, "ratio", 0.5);
+
+            assertEquals("{\"type\":\"about:blank\",\"balance\":30,\"retry-after\":60,\"account\":\"/account/12345\",\"blocked\":true,\"ratio\":0.5}", problem.toJson());
+
+            ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            problem.toXml(xml, StandardCharsets.UTF_8, false);
+            assertTrue(xml.toString(StandardCharsets.UTF_8).contains("<balance>30</balance><retry-after>60</retry-after><account>/account/12345</account><blocked>true</blocked><ratio>0.5</ratio>"));
+
+            Problem json = Problem.fromJson(new ByteArrayInputStream(problem.toJson().getBytes(StandardCharsets.UTF_8)), factory);
+            assertFields(json);
+            assertTrue(json.getExtensions().isEmpty());
+
+            Problem fromXml = Problem.fromXml(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml.toString(StandardCharsets.UTF_8))), factory);
+            assertFields(fromXml);
+            assertTrue(fromXml.getExtensions().isEmpty());
+
+            Problem cbor = Problem.fromCbor(new ByteArrayInputStream(problem.toCbor()), factory);
+            assertFields(cbor);
+
+            Problem wrongTypes = Problem.fromJson(new ByteArrayInputStream("{\"balance\":\"30\",\"retry-after\":3000000000,\"other\":1}".getBytes(StandardCharsets.UTF_8)), factory);
+            assertEquals(0L, get(wrongTypes, "balance"));
+            assertEquals(null, get(wrongTypes, "retryAfter"));
+            assertEquals(1L, wrongTypes.getExtensions().get("other"));
+        }
+    }
+
+    private static void assertFields(Problem problem) throws ReflectiveOperationException {
+        assertEquals(30L, get(problem, "balance"));
+        assertEquals(60, get(problem, "retryAfter"));
+        assertEquals(URI.create("/account/12345"), get(problem, "account"));
+        assertEquals(null, get(problem, "note"));
+        assertEquals(true, get(problem, "blocked"));
+        assertEquals(0.5, get(problem, "ratio"));
+    }
+
+    private static void set(Problem problem, String name, Object value) throws ReflectiveOperationException {
+        Field field = problem.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(problem, value);
+    }
+
+    private static Object get(Problem problem, String name) throws ReflectiveOperationException {
+        Field field = problem.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(problem);
+    }
+
+    @Test
+    void rejects_invalid_fields(@TempDir Path output) throws Exception {
+        String code = String.join("\n",
+            "package example;",
+            "import de.turnertech.problemdetails.ExtensionMember;",
+            "import de.turnertech.problemdetails.Problem;",
+            "public class Invalid extends Problem {",
+            "    @ExtensionMember private long hidden;",
+            "    @ExtensionMember(\"status\") long status;",
+            "    @ExtensionMember Object other;",
+            "}");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(compile(output, diagnostics, "example.Invalid", code));
+        long errors = diagnostics.getDiagnostics().stream().filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR).count();
+        assertEquals(3, errors, diagnostics.getDiagnostics().toString());
+    }
+
+}
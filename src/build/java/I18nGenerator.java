@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * <p>Compiles the i18n bundles into the Java class de.turnertech.problemdetails.I18n, so that the library needs no
+ * resource bundle lookup at run time. Run by the exec-maven-plugin in the generate-sources phase, as a single source
+ * file program:</p>
+ *
+ * <pre>
+ * java src/build/java/I18nGenerator.java &lt;bundle directory&gt; &lt;source directory&gt;
+ * </pre>
+ *
+ * <p>Messages are taken from the base bundle {@code i18n.properties}. Status phrases are taken from the language
+ * bundles {@code i18n_<language>.properties}, and each language becomes a nested class holding a table indexed by
+ * {@code status - 100}, so that a table is only initialised when its language is first requested.</p>
+ */
+public final class I18nGenerator {
+
+    private static final String PACKAGE = "de.turnertech.problemdetails";
+
+    private static final String BUNDLE = "i18n";
+
+    private static final int FIRST_STATUS = 100;
+
+    private static final int LAST_STATUS = 599;
+
+    private I18nGenerator() {
+        // Program
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2) {
+            throw new IllegalArgumentException("usage: I18nGenerator <bundle directory> <source directory>");
+        }
+        Path bundles = Paths.get(args[0]);
+        Map<String, String> messages = load(bundles.resolve(BUNDLE + ".properties"));
+        Map<String, Map<String, String>> phrases = new TreeMap<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(bundles, BUNDLE + "_*.properties")) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+                String language = name.substring(BUNDLE.length() + 1, name.length() - ".properties".length());
+                Map<String, String> bundle = load(file);
+                Map<String, String> table = new TreeMap<>();
+                for(Map.Entry<String, String> entry : bundle.entrySet()) {
+                    if(isStatus(entry.getKey())) {
+                        table.put(entry.getKey(), entry.getValue());
+                    } else if(!entry.getValue().equals(messages.get(entry.getKey()))) {
+                        // Messages are not localised, so a language may only repeat the base bundle.
+                        throw new IllegalStateException(file + ": " + entry.getKey() + " differs from the base bundle");
+                    }
+                }
+                phrases.put(language, table);
+            }
+        }
+        Path source = Paths.get(args[1]).resolve(PACKAGE.replace('.', '/')).resolve("I18n.java");
+        Files.createDirectories(source.getParent());
+        try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(source, StandardCharsets.UTF_8))) {
+            write(out, messages, phrases);
+        }
+    }
+
+    private static Map<String, String> load(Path file) throws IOException {
+        Properties properties = new Properties();
+        // As PropertyResourceBundle since Java 9
+        try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> map = new TreeMap<>();
+        for(String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        return map;
+    }
+
+    private static boolean isStatus(String key) {
+        if(!key.matches("[0-9]{3}")) {
+            return false;
+        }
+        int status = Integer.parseInt(key);
+        if(status < FIRST_STATUS || status > LAST_STATUS) {
+            throw new IllegalStateException("status " + key + " is out of range");
+        }
+        return true;
+    }
+
+    private static void write(PrintWriter out, Map<String, String> messages, Map<String, Map<String, String>> phrases) {
+        out.println("package " + PACKAGE + ";");
+        out.println();
+        out.println("import java.util.MissingResourceException;");
+        out.println();
+        out.println("/**");
+        out.println(" * The i18n bundles as constants. Generated from " + BUNDLE + "*.properties by I18nGenerator, do not edit.");
+        out.println(" */");
+        out.println("final class I18n {");
+        out.println();
+        out.println("    private I18n() {");
+        out.println("        // Static access only");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Gets a message pattern.");
+        out.println("     * @param key the message key.");
+        out.println("     * @return the pattern.");
+        out.println("     * @throws MissingResourceException if there is no such message.");
+        out.println("     */");
+        out.println("    static String message(String key) {");
+        out.println("        switch(key) {");
+        for(Map.Entry<String, String> message : messages.entrySet()) {
+            out.println("            case " + literal(message.getKey()) + ":");
+            out.println("                return " + literal(message.getValue()) + ";");
+        }
+        out.println("            default:");
+        out.println("                throw new MissingResourceException(key, \"" + PACKAGE + "." + BUNDLE + "\", key);");
+        out.println("        }");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Gets the status phrases of a language.");
+        out.println("     * @param language the ISO 639 language code.");
+        out.println("     * @return the phrases indexed by {@code status - " + FIRST_STATUS + "}, or null if the language has none.");
+        out.println("     */");
+        out.println("    static String[] phrases(String language) {");
+        out.println("        switch(language) {");
+        for(String language : phrases.keySet()) {
+            out.println("            case " + literal(language) + ":");
+            out.println("                return " + className(language) + ".PHRASES;");
+        }
+        out.println("            default:");
+        out.println("                return null;");
+        out.println("        }");
+        out.println("    }");
+        for(Map.Entry<String, Map<String, String>> language : phrases.entrySet()) {
+            out.println();
+            out.println("    private static final class " + className(language.getKey()) + " {");
+            out.println();
+            out.println("        static final String[] PHRASES = new String[" + (LAST_STATUS - FIRST_STATUS + 1) + "];");
+            out.println();
+            out.println("        static {");
+            for(Map.Entry<String, String> phrase : language.getValue().entrySet()) {
+                int index = Integer.parseInt(phrase.getKey()) - FIRST_STATUS;
+                out.println("            PHRASES[" + index + "] = " + literal(phrase.getValue()) + ";");
+            }
+            out.println("        }");
+            out.println();
+            out.println("    }");
+        }
+        out.println();
+        out.println("}");
+    }
+
+    private static String className(String language) {
+        return Character.toUpperCase(language.charAt(0)) + language.substring(1);
+    }
+
+    /**
+     * Quotes a string as an ASCII Java literal, so that the generated source does not depend on its encoding.
+     */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if(c >= 0x20 && c < 0x7F) {
+                literal.append(c);
+            } else {
+                literal.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+}
@@ -0,0 +1,425 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass CBOR (RFC 8949) decoder used by {@link Problem#fromCbor(InputStream)}. The RFC 9457 members are
+ * decoded from the integer keys written by {@link CborEncoder}. As in JSON, other members are materialised and
+ * handed to {@link Problem#readCborExtension(String, Object)}, and members of the wrong type are ignored. Tags are
+ * skipped. Input is read in chunks through a pooled buffer.
+ */
+final class CborDecoder {
+
+    private static final Pool<CborDecoder> POOL = new Pool<>(CborDecoder::new);
+
+    private static final int MAX_DEPTH = 512;
+
+    /** Marks an indefinite length in {@link #readArgument(int)}. */
+    private static final long INDEFINITE = -1;
+
+    private final byte[] ownBuffer = new byte[TextEncoder.BUFFER_SIZE];
+
+    private byte[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    /** Number of bytes consumed before the current buffer, for error messages */
+    private long consumed;
+
+    private InputStream inputStream;
+
+    private ByteBuffer byteBuffer;
+
+    private CborDecoder() {
+        // Use decode
+    }
+
+    /**
+     * Decodes a single problem map from the supplied stream. The stream is not closed, but may have been read
+     * beyond the end of the map.
+     * @param inputStream the stream to read.
+     * @param problem the problem to populate.
+     * @throws IOException if the stream throws or does not contain a CBOR map.
+     */
+    static void decode(InputStream inputStream, Problem problem) throws IOException {
+        CborDecoder decoder = POOL.acquire();
+        try {
+            decoder.inputStream = inputStream;
+            decoder.buffer = decoder.ownBuffer;
+            decoder.decodeDocument(problem);
+        } finally {
+            decoder.release();
+        }
+    }
+
+    /**
+     * Decodes a single problem map from the remaining bytes of the supplied buffer. On success the position of the
+     * buffer is directly after the map.
+     * @param byteBuffer the buffer to read.
+     * @param problem the problem to populate.
+     * @throws IOException if the buffer does not contain a CBOR map.
+     */
+    static void decode(ByteBuffer byteBuffer, Problem problem) throws IOException {
+        CborDecoder decoder = POOL.acquire();
+        try {
+            if(byteBuffer.hasArray()) {
+                decoder.buffer = byteBuffer.array();
+                decoder.position = byteBuffer.arrayOffset() + byteBuffer.position();
+                decoder.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+                decoder.consumed = -decoder.position;
+                decoder.decodeDocument(problem);
+                byteBuffer.position(decoder.position - byteBuffer.arrayOffset());
+            } else {
+                decoder.byteBuffer = byteBuffer;
+                decoder.buffer = decoder.ownBuffer;
+                decoder.decodeDocument(problem);
+                byteBuffer.position(byteBuffer.position() - (decoder.limit - decoder.position));
+            }
+        } finally {
+            decoder.release();
+        }
+    }
+
+    private void release() {
+        inputStream = null;
+        byteBuffer = null;
+        buffer = null;
+        position = 0;
+        limit = 0;
+        consumed = 0;
+        POOL.release(this);
+    }
+
+    private void decodeDocument(Problem problem) throws IOException {
+        int initial = nextTagged();
+        if(initial >>> 5 != CborEncoder.MAJOR_MAP) {
+            throw syntaxError();
+        }
+        long size = readLength(initial);
+        for(long i = 0; size == INDEFINITE || i < size; i++) {
+            int key = nextTagged();
+            if(size == INDEFINITE && key == CborEncoder.BREAK) {
+                return;
+            }
+            int major = key >>> 5;
+            if(major == CborEncoder.MAJOR_UNSIGNED) {
+                decodeMember(problem, readArgument(key));
+            } else if(major == CborEncoder.MAJOR_TEXT) {
+                String name = readText(key);
+                problem.readCborExtension(name, readValue(nextTagged(), 0));
+            } else {
+                // Keys of other types cannot be represented in a problem
+                readValue(key, 0);
+                readValue(nextTagged(), 0);
+            }
+        }
+    }
+
+    /**
+     * Decodes the value of a standard member. Values of the wrong type are ignored, as required by RFC 9457 - 3.1.
+     */
+    private void decodeMember(Problem problem, long key) throws IOException {
+        int initial = nextTagged();
+        int major = initial >>> 5;
+        if(key == CborEncoder.KEY_STATUS && major == CborEncoder.MAJOR_UNSIGNED) {
+            long status = readArgument(initial);
+            if(status >= 100 && status <= 599) {
+                problem.setStatus((int) status);
+            }
+        } else if(major == CborEncoder.MAJOR_TEXT && key >= CborEncoder.KEY_TYPE && key <= CborEncoder.KEY_INSTANCE) {
+            String value = readText(initial);
+            if(key == CborEncoder.KEY_TYPE) {
+                URI type = toUri(value);
+                if(type != null) {
+                    problem.setType(type);
+                }
+            } else if(key == CborEncoder.KEY_TITLE) {
+                problem.setTitle(value);
+            } else if(key == CborEncoder.KEY_DETAIL) {
+                problem.setDetail(value);
+            } else if(key == CborEncoder.KEY_INSTANCE) {
+                problem.setInstance(toUri(value));
+            }
+        } else {
+            readValue(initial, 0);
+        }
+    }
+
+    private Object readValue(int initial, int depth) throws IOException {
+        if(depth > MAX_DEPTH) {
+            throw syntaxError();
+        }
+        switch(initial >>> 5) {
+            case CborEncoder.MAJOR_UNSIGNED: {
+                long value = readArgument(initial);
+                // Values above Long.MAX_VALUE wrap, and are passed as a Double instead
+                return value >= 0 ? (Object) value : (Object) unsignedToDouble(value);
+            }
+            case CborEncoder.MAJOR_NEGATIVE: {
+                long value = readArgument(initial);
+                return value >= 0 ? (Object) (-1 - value) : (Object) (-1 - unsignedToDouble(value));
+            }
+            case CborEncoder.MAJOR_BYTES:
+                return readBytes(initial);
+            case CborEncoder.MAJOR_TEXT:
+                return readText(initial);
+            case CborEncoder.MAJOR_ARRAY: {
+                long size = readLength(initial);
+                List<Object> list = new ArrayList<>();
+                for(long i = 0; size == INDEFINITE || i < size; i++) {
+                    int item = nextTagged();
+                    if(size == INDEFINITE && item == CborEncoder.BREAK) {
+                        break;
+                    }
+                    list.add(readValue(item, depth + 1));
+                }
+                return list;
+            }
+            case CborEncoder.MAJOR_MAP: {
+                long size = readLength(initial);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for(long i = 0; size == INDEFINITE || i < size; i++) {
+                    int key = nextTagged();
+                    if(size == INDEFINITE && key == CborEncoder.BREAK) {
+                        break;
+                    }
+                    Object name = readValue(key, depth + 1);
+                    Object value = readValue(nextTagged(), depth + 1);
+                    if(name instanceof String) {
+                        map.put((String) name, value);
+                    }
+                }
+                return map;
+            }
+            default:
+                return readSimple(initial);
+        }
+    }
+
+    private Object readSimple(int initial) throws IOException {
+        switch(initial) {
+            case CborEncoder.FALSE:
+                return Boolean.FALSE;
+            case CborEncoder.TRUE:
+                return Boolean.TRUE;
+            case CborEncoder.HALF:
+                return (double) halfToFloat((int) readBigEndian(2));
+            case CborEncoder.FLOAT:
+                return (double) Float.intBitsToFloat((int) readBigEndian(4));
+            case CborEncoder.DOUBLE:
+                return Double.longBitsToDouble(readBigEndian(8));
+            case CborEncoder.BREAK:
+                throw syntaxError();
+            default:
+                // null, undefined and unassigned simple values
+                readArgument(initial);
+                return null;
+        }
+    }
+
+    private String readText(int initial) throws IOException {
+        long length = readLength(initial);
+        if(length == INDEFINITE) {
+            StringBuilder text = new StringBuilder();
+            int chunk;
+            while((chunk = next()) != CborEncoder.BREAK) {
+                // Chunks must be definite length strings of the same type (RFC 8949 - 3.2.3.)
+                if(chunk >>> 5 != CborEncoder.MAJOR_TEXT || (chunk & 0x1F) == 31) {
+                    throw syntaxError();
+                }
+                text.append(readText(chunk));
+            }
+            return text.toString();
+        }
+        if(length <= limit - position) {
+            // The common case, decoded straight from the buffer
+            String text = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return text;
+        }
+        return new String(readFully(length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(int initial) throws IOException {
+        long length = readLength(initial);
+        if(length == INDEFINITE) {
+            byte[] bytes = new byte[0];
+            int chunk;
+            while((chunk = next()) != CborEncoder.BREAK) {
+                if(chunk >>> 5 != CborEncoder.MAJOR_BYTES || (chunk & 0x1F) == 31) {
+                    throw syntaxError();
+                }
+                byte[] more = readBytes(chunk);
+                bytes = Arrays.copyOf(bytes, bytes.length + more.length);
+                System.arraycopy(more, 0, bytes, bytes.length - more.length, more.length);
+            }
+            return bytes;
+        }
+        return readFully(length);
+    }
+
+    /**
+     * Reads a definite number of bytes, growing the result as input arrives, so that a bogus length cannot
+     * allocate more memory than the input actually holds.
+     */
+    private byte[] readFully(long length) throws IOException {
+        if(length > Integer.MAX_VALUE - 8) {
+            throw syntaxError();
+        }
+        byte[] bytes = new byte[(int) Math.min(length, TextEncoder.BUFFER_SIZE)];
+        int read = 0;
+        while(read < length) {
+            if(position == limit && !fill()) {
+                throw syntaxError();
+            }
+            if(read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, (long) bytes.length * 2));
+            }
+            int count = Math.min(limit - position, bytes.length - read);
+            System.arraycopy(buffer, position, bytes, read, count);
+            position += count;
+            read += count;
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads the argument of a data item.
+     * @param initial the initial byte.
+     * @return the argument, {@link #INDEFINITE} for an indefinite length. Arguments above Long.MAX_VALUE are
+     * negative.
+     */
+    private long readArgument(int initial) throws IOException {
+        int info = initial & 0x1F;
+        if(info < 24) {
+            return info;
+        }
+        switch(info) {
+            case 24:
+                return readBigEndian(1);
+            case 25:
+                return readBigEndian(2);
+            case 26:
+                return readBigEndian(4);
+            case 27: {
+                long argument = readBigEndian(8);
+                if(argument == INDEFINITE) {
+                    // Not to be confused with an indefinite length, which is never this large anyway
+                    throw syntaxError();
+                }
+                return argument;
+            }
+            case 31:
+                int major = initial >>> 5;
+                if(major >= CborEncoder.MAJOR_BYTES && major <= CborEncoder.MAJOR_MAP) {
+                    return INDEFINITE;
+                }
+                throw syntaxError();
+            default:
+                throw syntaxError();
+        }
+    }
+
+    /**
+     * Reads the length of a string, array or map, which must fit in an int.
+     * @param initial the initial byte.
+     * @return the length, or {@link #INDEFINITE}.
+     */
+    private long readLength(int initial) throws IOException {
+        long length = readArgument(initial);
+        // Arguments above Long.MAX_VALUE are negative
+        if(length != INDEFINITE && (length < 0 || length > Integer.MAX_VALUE - 8)) {
+            throw syntaxError();
+        }
+        return length;
+    }
+
+    private long readBigEndian(int length) throws IOException {
+        long value = 0;
+        for(int i = 0; i < length; i++) {
+            value = (value << 8) | next();
+        }
+        return value;
+    }
+
+    /**
+     * Reads the next initial byte, skipping any tags in front of it.
+     */
+    private int nextTagged() throws IOException {
+        int initial = next();
+        while(initial >>> 5 == CborEncoder.MAJOR_TAG) {
+            readArgument(initial);
+            initial = next();
+        }
+        return initial;
+    }
+
+    private int next() throws IOException {
+        if(position == limit && !fill()) {
+            throw syntaxError();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if(inputStream == null && byteBuffer == null) {
+            return false;
+        }
+        consumed += limit;
+        position = 0;
+        limit = 0;
+        if(inputStream != null) {
+            int read = inputStream.read(buffer, 0, buffer.length);
+            if(read > 0) {
+                limit = read;
+            }
+        } else if(byteBuffer.hasRemaining()) {
+            limit = Math.min(byteBuffer.remaining(), buffer.length);
+            byteBuffer.get(buffer, 0, limit);
+        }
+        return limit > 0;
+    }
+
+    private static double unsignedToDouble(long value) {
+        return (double) (value >>> 1) * 2.0 + (value & 1);
+    }
+
+    private static float halfToFloat(int half) {
+        int exponent = (half >> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        float value;
+        if(exponent == 0) {
+            value = mantissa * 0x1p-24f;
+        } else if(exponent == 31) {
+            value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+        } else {
+            value = (mantissa + 1024) * (float) Math.pow(2, exponent - 25);
+        }
+        return (half & 0x8000) == 0 ? value : -value;
+    }
+
+    private static URI toUri(String value) {
+        try {
+            return new URI(value);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private IOException syntaxError() {
+        return new IOException(Problem.message("error.cbor.syntax", consumed + position));
+    }
+
+}
@@ -0,0 +1,441 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Streaming CBOR (RFC 8949) encoder used by {@link Problem#toCbor(java.io.OutputStream)}. A problem is written
+ * as a map of indefinite length, so that extension members need not be counted up front. The RFC 9457 members use
+ * the small integer keys below, extension members use their names as text keys.</p>
+ *
+ * <pre>
+ * 1 type     tag 32 (URI) text
+ * 2 title    text
+ * 3 status   unsigned integer
+ * 4 detail   text
+ * 5 instance tag 32 (URI) text
+ * </pre>
+ *
+ * <p>Text is encoded as UTF-8 directly into a pooled buffer. Its length is computed in a first pass over the chars,
+ * so no intermediate byte array is created.</p>
+ */
+final class CborEncoder extends TextEncoder implements MemberWriter {
+
+    private static final Pool<CborEncoder> POOL = new Pool<>(CborEncoder::new);
+
+    static final int KEY_TYPE = 1;
+
+    static final int KEY_TITLE = 2;
+
+    static final int KEY_STATUS = 3;
+
+    static final int KEY_DETAIL = 4;
+
+    static final int KEY_INSTANCE = 5;
+
+    static final int MAJOR_UNSIGNED = 0;
+
+    static final int MAJOR_NEGATIVE = 1;
+
+    static final int MAJOR_BYTES = 2;
+
+    static final int MAJOR_TEXT = 3;
+
+    static final int MAJOR_ARRAY = 4;
+
+    static final int MAJOR_MAP = 5;
+
+    static final int MAJOR_TAG = 6;
+
+    static final int MAJOR_SIMPLE = 7;
+
+    /** Tag for URIs (RFC 8949 - 3.4.5.3.) */
+    static final int TAG_URI = 32;
+
+    static final int FALSE = 0xF4;
+
+    static final int TRUE = 0xF5;
+
+    static final int NULL = 0xF6;
+
+    static final int UNDEFINED = 0xF7;
+
+    static final int HALF = 0xF9;
+
+    static final int FLOAT = 0xFA;
+
+    static final int DOUBLE = 0xFB;
+
+    static final int INDEFINITE_TEXT = 0x7F;
+
+    static final int INDEFINITE_ARRAY = 0x9F;
+
+    static final int INDEFINITE_MAP = 0xBF;
+
+    static final int BREAK = 0xFF;
+
+    private CborEncoder() {
+        // Use acquire
+    }
+
+    /**
+     * Gets an encoder from the pool without a target, which only counts the encoded bytes until a target is set.
+     * The encoder must be closed after use, so that it may be reused.
+     * @return an open encoder.
+     */
+    static CborEncoder acquire() {
+        CborEncoder encoder = POOL.acquire();
+        encoder.pooled = true;
+        encoder.open(StandardCharsets.UTF_8);
+        return encoder;
+    }
+
+    /**
+     * Opens the problem map and writes the members which are usually constant for a problem type.
+     * @param type the problem type, may not be null.
+     * @param title the problem title, may be null.
+     * @param status the problem status, may be {@link Problem#NO_STATUS}.
+     * @throws IOException if the target throws.
+     */
+    void writeHead(URI type, String title, int status) throws IOException {
+        writeHead(type.toString(), title, status);
+    }
+
+    /**
+     * Opens the problem map and writes the members which are usually constant for a problem type.
+     * @param type the problem type as text, may not be null.
+     * @param title the problem title, may be null.
+     * @param status the problem status, may be {@link Problem#NO_STATUS}.
+     * @throws IOException if the target throws.
+     */
+    void writeHead(CharSequence type, String title, int status) throws IOException {
+        writeByte(INDEFINITE_MAP);
+        writeByte(KEY_TYPE);
+        writeUri(type);
+        if(title != null) {
+            writeByte(KEY_TITLE);
+            writeText(title);
+        }
+        if(status != Problem.NO_STATUS) {
+            writeByte(KEY_STATUS);
+            writeHeader(MAJOR_UNSIGNED, status);
+        }
+    }
+
+    /**
+     * Writes the members which usually vary for each occurrence of a problem. The map is not closed.
+     * @param detail the problem detail, may be null.
+     * @param instance the problem instance, may be null.
+     * @throws IOException if the target throws.
+     */
+    void writeOccurrence(String detail, URI instance) throws IOException {
+        writeOccurrence(detail, instance == null ? null : instance.toString());
+    }
+
+    /**
+     * Writes the members which usually vary for each occurrence of a problem. The map is not closed.
+     * @param detail the problem detail, may be null.
+     * @param instance the problem instance as text, may be null.
+     * @throws IOException if the target throws.
+     */
+    void writeOccurrence(String detail, CharSequence instance) throws IOException {
+        if(detail != null) {
+            writeByte(KEY_DETAIL);
+            writeText(detail);
+        }
+        if(instance != null) {
+            writeByte(KEY_INSTANCE);
+            writeUri(instance);
+        }
+    }
+
+    /**
+     * Writes the detail member from lazy text, as a text string of indefinite length with one chunk per append.
+     * @param detail the problem detail.
+     * @throws IOException if the target or the text throws.
+     */
+    void writeDetail(LazyText detail) throws IOException {
+        writeByte(KEY_DETAIL);
+        writeLazyText(detail);
+    }
+
+    /**
+     * Closes the problem map.
+     * @throws IOException if the target throws.
+     */
+    void writeEnd() throws IOException {
+        writeByte(BREAK);
+    }
+
+    @Override
+    public void writeMember(String name, CharSequence value) throws IOException {
+        writeName(name);
+        writeText(value);
+    }
+
+    @Override
+    public void writeLazyMember(String name, LazyText value) throws IOException {
+        writeName(name);
+        writeLazyText(value);
+    }
+
+    @Override
+    public void writeMember(String name, long value) throws IOException {
+        writeName(name);
+        writeInteger(value);
+    }
+
+    private void writeInteger(long value) throws IOException {
+        if(value >= 0) {
+            writeHeader(MAJOR_UNSIGNED, value);
+        } else {
+            writeHeader(MAJOR_NEGATIVE, -1 - value);
+        }
+    }
+
+    @Override
+    public void writeMember(MemberName name, CharSequence value) throws IOException {
+        writeName(name);
+        writeText(value);
+    }
+
+    @Override
+    public void writeMember(MemberName name, long value) throws IOException {
+        writeName(name);
+        writeInteger(value);
+    }
+
+    @Override
+    public void writeMember(MemberName name, double value) throws IOException {
+        writeName(name);
+        writeDouble(value);
+    }
+
+    @Override
+    public void writeMember(MemberName name, boolean value) throws IOException {
+        writeName(name);
+        writeByte(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeNullMember(MemberName name) throws IOException {
+        writeName(name);
+        writeByte(NULL);
+    }
+
+    @Override
+    public void writeMember(String name, double value) throws IOException {
+        writeName(name);
+        writeDouble(value);
+    }
+
+    private void writeDouble(double value) throws IOException {
+        float single = (float) value;
+        if(single == value || Double.isNaN(value)) {
+            reserve(5);
+            buffer[position++] = (byte) FLOAT;
+            writeBigEndian(Float.floatToIntBits(single), 4);
+        } else {
+            reserve(9);
+            buffer[position++] = (byte) DOUBLE;
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    @Override
+    public void writeMember(String name, boolean value) throws IOException {
+        writeName(name);
+        writeByte(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeNullMember(String name) throws IOException {
+        writeName(name);
+        writeByte(NULL);
+    }
+
+    @Override
+    public void writeStartObject(String name) throws IOException {
+        writeName(name);
+        writeByte(INDEFINITE_MAP);
+        startNested(false);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        writeByte(BREAK);
+        endNested();
+    }
+
+    @Override
+    public void writeStartArray(String name) throws IOException {
+        writeName(name);
+        writeByte(INDEFINITE_ARRAY);
+        startNested(true);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        writeByte(BREAK);
+        endNested();
+    }
+
+    /**
+     * Writes a member name as a text key, unless the member is an array item.
+     */
+    private void writeName(String name) throws IOException {
+        if(!inArray()) {
+            writeText(name);
+        }
+    }
+
+    private void writeName(MemberName name) throws IOException {
+        if(!inArray()) {
+            writeEncoded(name.cbor);
+        }
+    }
+
+    /**
+     * Encodes an ASCII name as a definite length text string, e.g. to pre-encode a map key.
+     * @param name the name, up to 65535 ASCII characters.
+     * @return the header and the bytes of the name.
+     */
+    static byte[] encodeKey(String name) {
+        int length = name.length();
+        int header = length < 24 ? 1 : length <= 0xFF ? 2 : 3;
+        byte[] key = new byte[header + length];
+        if(header == 1) {
+            key[0] = (byte) (MAJOR_TEXT << 5 | length);
+        } else if(header == 2) {
+            key[0] = (byte) (MAJOR_TEXT << 5 | 24);
+            key[1] = (byte) length;
+        } else {
+            key[0] = (byte) (MAJOR_TEXT << 5 | 25);
+            key[1] = (byte) (length >> 8);
+            key[2] = (byte) length;
+        }
+        for(int i = 0; i < length; i++) {
+            key[header + i] = (byte) name.charAt(i);
+        }
+        return key;
+    }
+
+    private void writeUri(CharSequence uri) throws IOException {
+        writeHeader(MAJOR_TAG, TAG_URI);
+        writeText(uri);
+    }
+
+    /**
+     * Writes a definite length UTF-8 text string.
+     * @param value the text, may not be null.
+     * @throws IOException if the target throws.
+     */
+    void writeText(CharSequence value) throws IOException {
+        writeEscaped(value, 0, value.length());
+    }
+
+    private void writeLazyText(LazyText value) throws IOException {
+        writeByte(INDEFINITE_TEXT);
+        writeLazy(value);
+        writeByte(BREAK);
+    }
+
+    /**
+     * Writes a definite length text string, which is a chunk when writing lazy text.
+     */
+    @Override
+    void writeEscaped(CharSequence value, int start, int end) throws IOException {
+        writeHeader(MAJOR_TEXT, utf8Length(value, start, end));
+        for(int i = start; i < end;) {
+            char c = value.charAt(i);
+            if(c < 0x80) {
+                writeAscii(c);
+                i++;
+            } else {
+                i += writeNonAscii(value, i);
+            }
+        }
+    }
+
+    /**
+     * Writes the initial byte of a data item and its argument, in the shortest form.
+     * @param major the major type.
+     * @param argument the argument, interpreted as unsigned.
+     * @throws IOException if the target throws.
+     */
+    void writeHeader(int major, long argument) throws IOException {
+        reserve(9);
+        int initial = major << 5;
+        if(argument >= 0 && argument < 24) {
+            buffer[position++] = (byte) (initial | argument);
+        } else if(argument >= 0 && argument <= 0xFF) {
+            buffer[position++] = (byte) (initial | 24);
+            buffer[position++] = (byte) argument;
+        } else if(argument >= 0 && argument <= 0xFFFF) {
+            buffer[position++] = (byte) (initial | 25);
+            writeBigEndian(argument, 2);
+        } else if(argument >= 0 && argument <= 0xFFFFFFFFL) {
+            buffer[position++] = (byte) (initial | 26);
+            writeBigEndian(argument, 4);
+        } else {
+            buffer[position++] = (byte) (initial | 27);
+            writeBigEndian(argument, 8);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        reserve(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void writeBigEndian(long value, int length) {
+        for(int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Computes the number of bytes the supplied text has in UTF-8, as written by this encoder.
+     * @param value the text.
+     * @return the UTF-8 length.
+     */
+    static int utf8Length(CharSequence value) {
+        return utf8Length(value, 0, value.length());
+    }
+
+    private static int utf8Length(CharSequence value, int start, int end) {
+        int utf8Length = end - start;
+        for(int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if(c >= 0x80) {
+                if(c < 0x800) {
+                    utf8Length += 1;
+                } else if(Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // 4 bytes for 2 chars
+                    utf8Length += 2;
+                    i++;
+                } else {
+                    // Including unpaired surrogates, which are written as U+FFFD
+                    utf8Length += 2;
+                }
+            }
+        }
+        return utf8Length;
+    }
+
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
+    @Override
+    void writeUnmappable(int codePoint) throws IOException {
+        // Only unpaired surrogates are unmappable in UTF-8
+        reserve(3);
+        buffer[position++] = (byte) 0xEF;
+        buffer[position++] = (byte) 0xBF;
+        buffer[position++] = (byte) 0xBD;
+    }
+
+}
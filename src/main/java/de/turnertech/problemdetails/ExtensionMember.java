@@ -0,0 +1,58 @@
+package de.turnertech.problemdetails;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Marks a field of a {@link Problem} subclass as an extension member. The annotation processor of the
+ * problem-details-processor artifact generates a class named after the subclass with the suffix {@code Members},
+ * which writes and reads the annotated fields with pre-encoded {@link MemberName}s and without reflection. The
+ * subclass delegates to it:</p>
+ *
+ * <pre>
+ * public class OutOfCredit extends Problem {
+ *
+ *     &#64;ExtensionMember
+ *     long balance;
+ *
+ *     &#64;Override
+ *     protected void writeExtensions(MemberWriter memberWriter) throws IOException {
+ *         super.writeExtensions(memberWriter);
+ *         OutOfCreditMembers.write(this, memberWriter);
+ *     }
+ *
+ *     &#64;Override
+ *     protected void readJsonExtension(String name, Object value) {
+ *         if(!OutOfCreditMembers.readJson(this, name, value)) {
+ *             super.readJsonExtension(name, value);
+ *         }
+ *     }
+ *
+ *     &#64;Override
+ *     protected void readXmlExtension(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+ *         if(!OutOfCreditMembers.readXml(this, xmlStreamReader)) {
+ *             super.readXmlExtension(xmlStreamReader);
+ *         }
+ *     }
+ *
+ * }
+ * </pre>
+ *
+ * <p>Fields may be String, URI, boolean, the integral and floating point primitives, or their wrappers. They must
+ * not be private, static or final. A null reference is not written.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface ExtensionMember {
+
+    /**
+     * The member name.
+     * @return the name, or an empty string to use the field name.
+     */
+    String value() default "";
+
+}
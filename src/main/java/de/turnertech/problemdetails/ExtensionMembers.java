@@ -0,0 +1,650 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Insertion ordered extension members (RFC 9457 - 3.2.) of a {@link Problem}. Values are strings, integers,
+ * floating point numbers, booleans, null, nested members or arrays of these. Primitive values are stored unboxed in
+ * parallel arrays, so the map allocates nothing beyond its arrays as members are added.</p>
+ *
+ * <p>Members are written by the library's JSON and XML encoders, and are read back by
+ * {@link Problem#fromJson(java.io.InputStream)} and {@link Problem#fromXml(javax.xml.stream.XMLStreamReader)}. In
+ * XML, each member is an element of the same name in the problem namespace, so names must be ASCII XML names
+ * (letters, digits, "_", "-" and ".", not starting with a digit or "xml"). The members of
+ * {@link Problem#getExtensions()} may also not be named like the RFC 9457 members, nested members may. Array items
+ * are written as elements named "i", and an element whose children are all named "i" is read back as an array.</p>
+ *
+ * <p>Instances are not thread safe.</p>
+ */
+public final class ExtensionMembers {
+
+    private static final byte STRING = 1;
+
+    private static final byte LONG = 2;
+
+    private static final byte DOUBLE = 3;
+
+    private static final byte BOOLEAN = 4;
+
+    private static final byte NULL = 5;
+
+    private static final byte OBJECT = 6;
+
+    private static final byte LAZY = 7;
+
+    private static final byte ARRAY = 8;
+
+    private String[] names;
+
+    private byte[] kinds;
+
+    /** Values of LONG, DOUBLE (raw bits) and BOOLEAN (0 or 1) members. */
+    private long[] primitives;
+
+    /** Values of STRING, OBJECT, LAZY and ARRAY members. */
+    private Object[] references;
+
+    private int size;
+
+    /** Whether these are the members of a problem, which may not be named like the RFC 9457 members. */
+    private final boolean topLevel;
+
+    /**
+     * Constructs empty extension members.
+     */
+    public ExtensionMembers() {
+        this(4, false);
+    }
+
+    /**
+     * Constructs empty extension members.
+     * @param topLevel true for the members of a problem.
+     */
+    ExtensionMembers(boolean topLevel) {
+        this(4, topLevel);
+    }
+
+    private ExtensionMembers(int capacity, boolean topLevel) {
+        this.topLevel = topLevel;
+        names = new String[capacity];
+        kinds = new byte[capacity];
+        primitives = new long[capacity];
+        references = new Object[capacity];
+    }
+
+    /**
+     * Constructs a deep copy of the provided extension members.
+     * @param other extension members to copy.
+     */
+    public ExtensionMembers(ExtensionMembers other) {
+        this(Math.max(other.size, 1), other.topLevel);
+        size = other.size;
+        System.arraycopy(other.names, 0, names, 0, size);
+        System.arraycopy(other.kinds, 0, kinds, 0, size);
+        System.arraycopy(other.primitives, 0, primitives, 0, size);
+        for(int i = 0; i < size; i++) {
+            references[i] = copy(other.references[i]);
+        }
+    }
+
+    /**
+     * Sets a string member. A CharSequence other than String is kept as is, and only read when it is written.
+     * @param name the member name.
+     * @param value the value, null for a null member.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public ExtensionMembers put(String name, CharSequence value) {
+        if(value == null) {
+            return putNull(name);
+        }
+        set(name, STRING, 0, value);
+        return this;
+    }
+
+    /**
+     * Sets a string member from lazy text, which is only produced when the member is written.
+     * @param name the member name.
+     * @param value the value, null for a null member.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     * @see LazyText
+     */
+    public ExtensionMembers putLazy(String name, LazyText value) {
+        if(value == null) {
+            return putNull(name);
+        }
+        set(name, LAZY, 0, value);
+        return this;
+    }
+
+    /**
+     * Sets an integer member.
+     * @param name the member name.
+     * @param value the value.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public ExtensionMembers put(String name, long value) {
+        set(name, LONG, value, null);
+        return this;
+    }
+
+    /**
+     * Sets a floating point member.
+     * @param name the member name.
+     * @param value the value.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public ExtensionMembers put(String name, double value) {
+        set(name, DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    /**
+     * Sets a boolean member.
+     * @param name the member name.
+     * @param value the value.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public ExtensionMembers put(String name, boolean value) {
+        set(name, BOOLEAN, value ? 1 : 0, null);
+        return this;
+    }
+
+    /**
+     * Sets a nested object member.
+     * @param name the member name.
+     * @param value the nested members, null for a null member.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public ExtensionMembers put(String name, ExtensionMembers value) {
+        if(value == null) {
+            return putNull(name);
+        }
+        set(name, OBJECT, 0, value);
+        return this;
+    }
+
+    /**
+     * Sets an array member. The items are copied: CharSequences are converted to String, integers to Long,
+     * floating point numbers to Double, and nested lists are copied in the same way.
+     * @param name the member name.
+     * @param value the items, which may be CharSequence, Number, Boolean, ExtensionMembers, List or null. A null
+     * list sets a null member.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     * @throws IllegalArgumentException if an item is of another type.
+     */
+    public ExtensionMembers put(String name, List<?> value) {
+        if(value == null) {
+            return putNull(name);
+        }
+        set(name, ARRAY, 0, items(value, false));
+        return this;
+    }
+
+    /**
+     * Sets a member with the value null.
+     * @param name the member name.
+     * @return this.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public ExtensionMembers putNull(String name) {
+        set(name, NULL, 0, null);
+        return this;
+    }
+
+    /**
+     * Gets the nested object member with the supplied name, adding an empty one if there is no such member.
+     * @param name the member name.
+     * @return the nested members.
+     * @throws InvalidParameterException if the name is not a valid extension member name, or the member exists
+     * but is not an object.
+     */
+    public ExtensionMembers putObject(String name) {
+        int index = indexOf(name);
+        if(index < 0) {
+            ExtensionMembers nested = new ExtensionMembers();
+            set(name, OBJECT, 0, nested);
+            return nested;
+        }
+        if(kinds[index] != OBJECT) {
+            throw new InvalidParameterException(Problem.message("error.extension.notobject", name));
+        }
+        return (ExtensionMembers) references[index];
+    }
+
+    /**
+     * Gets the value of a member. Primitive values are boxed.
+     * @param name the member name.
+     * @return a CharSequence, LazyText, Long, Double, Boolean, ExtensionMembers or an unmodifiable List of these, or
+     * null if the member is null or absent.
+     */
+    public Object get(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : value(index);
+    }
+
+    /**
+     * Checks if a member exists.
+     * @param name the member name.
+     * @return true if the member exists, even if its value is null.
+     */
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * Removes a member.
+     * @param name the member name.
+     * @return true if the member existed.
+     */
+    public boolean remove(String name) {
+        int index = indexOf(name);
+        if(index < 0) {
+            return false;
+        }
+        int moved = size - index - 1;
+        System.arraycopy(names, index + 1, names, index, moved);
+        System.arraycopy(kinds, index + 1, kinds, index, moved);
+        System.arraycopy(primitives, index + 1, primitives, index, moved);
+        System.arraycopy(references, index + 1, references, index, moved);
+        size--;
+        names[size] = null;
+        references[size] = null;
+        return true;
+    }
+
+    /**
+     * Removes all members.
+     */
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(references, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Replaces all members with a deep copy of the provided ones. The arrays of these members are reused if they are
+     * large enough.
+     * @param other extension members to copy, not these.
+     */
+    void copyFrom(ExtensionMembers other) {
+        clear();
+        if(names.length < other.size) {
+            names = new String[other.size];
+            kinds = new byte[other.size];
+            primitives = new long[other.size];
+            references = new Object[other.size];
+        }
+        size = other.size;
+        System.arraycopy(other.names, 0, names, 0, size);
+        System.arraycopy(other.kinds, 0, kinds, 0, size);
+        System.arraycopy(other.primitives, 0, primitives, 0, size);
+        for(int i = 0; i < size; i++) {
+            references[i] = copy(other.references[i]);
+        }
+    }
+
+    /**
+     * Copies nested members and arrays containing them, so that copies can be modified independently.
+     */
+    private static Object copy(Object reference) {
+        if(reference instanceof ExtensionMembers) {
+            return new ExtensionMembers((ExtensionMembers) reference);
+        }
+        if(reference instanceof List) {
+            List<?> items = (List<?>) reference;
+            List<Object> copy = new ArrayList<>(items.size());
+            for(Object item : items) {
+                copy.add(copy(item));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        return reference;
+    }
+
+    /**
+     * Gets the number of members.
+     * @return the number of members.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if there are no members.
+     * @return true if there are no members.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the name of the member at the supplied position, in insertion order.
+     * @param index the position, from 0 to size() - 1.
+     * @return the member name.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public String getName(int index) {
+        Objects.checkIndex(index, size);
+        return names[index];
+    }
+
+    /**
+     * Gets the value of the member at the supplied position, in insertion order.
+     * @param index the position, from 0 to size() - 1.
+     * @return the value, see {@link #get(String)}.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Object get(int index) {
+        Objects.checkIndex(index, size);
+        return value(index);
+    }
+
+    /**
+     * Writes all members, in insertion order.
+     * @param memberWriter the writer to write to.
+     * @throws IOException if the writer throws.
+     */
+    public void writeTo(MemberWriter memberWriter) throws IOException {
+        for(int i = 0; i < size; i++) {
+            String name = names[i];
+            switch(kinds[i]) {
+                case STRING:
+                    memberWriter.writeMember(name, (CharSequence) references[i]);
+                    break;
+                case LAZY:
+                    memberWriter.writeLazyMember(name, (LazyText) references[i]);
+                    break;
+                case LONG:
+                    memberWriter.writeMember(name, primitives[i]);
+                    break;
+                case DOUBLE:
+                    memberWriter.writeMember(name, Double.longBitsToDouble(primitives[i]));
+                    break;
+                case BOOLEAN:
+                    memberWriter.writeMember(name, primitives[i] != 0);
+                    break;
+                case OBJECT:
+                    memberWriter.writeStartObject(name);
+                    ((ExtensionMembers) references[i]).writeTo(memberWriter);
+                    memberWriter.writeEndObject();
+                    break;
+                case ARRAY:
+                    writeItems(memberWriter, name, (List<?>) references[i]);
+                    break;
+                default:
+                    memberWriter.writeNullMember(name);
+                    break;
+            }
+        }
+    }
+
+    private static void writeItems(MemberWriter memberWriter, String name, List<?> items) throws IOException {
+        memberWriter.writeStartArray(name);
+        for(int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            if(item instanceof String) {
+                memberWriter.writeMember(name, (String) item);
+            } else if(item instanceof Long) {
+                memberWriter.writeMember(name, ((Long) item).longValue());
+            } else if(item instanceof Double) {
+                memberWriter.writeMember(name, ((Double) item).doubleValue());
+            } else if(item instanceof Boolean) {
+                memberWriter.writeMember(name, ((Boolean) item).booleanValue());
+            } else if(item instanceof ExtensionMembers) {
+                memberWriter.writeStartObject(name);
+                ((ExtensionMembers) item).writeTo(memberWriter);
+                memberWriter.writeEndObject();
+            } else if(item instanceof List) {
+                writeItems(memberWriter, name, (List<?>) item);
+            } else {
+                memberWriter.writeNullMember(name);
+            }
+        }
+        memberWriter.writeEndArray();
+    }
+
+    /**
+     * Sets a member from a parsed JSON value. Values which cannot be represented, such as byte strings read from
+     * CBOR or members with names which are not valid here, are ignored.
+     * @param name the member name.
+     * @param value the value as passed to {@link Problem#readJsonExtension(String, Object)}.
+     */
+    void putJson(String name, Object value) {
+        if(!accepts(name)) {
+            return;
+        }
+        if(value == null) {
+            putNull(name);
+        } else if(value instanceof String) {
+            put(name, (String) value);
+        } else if(value instanceof Long) {
+            put(name, ((Long) value).longValue());
+        } else if(value instanceof Double) {
+            put(name, ((Double) value).doubleValue());
+        } else if(value instanceof Boolean) {
+            put(name, ((Boolean) value).booleanValue());
+        } else if(value instanceof Map) {
+            put(name, fromJson((Map<?, ?>) value));
+        } else if(value instanceof List) {
+            List<Object> items = items((List<?>) value, true);
+            if(items != null) {
+                set(name, ARRAY, 0, items);
+            }
+        }
+    }
+
+    private static ExtensionMembers fromJson(Map<?, ?> value) {
+        ExtensionMembers nested = new ExtensionMembers();
+        for(Map.Entry<?, ?> entry : value.entrySet()) {
+            nested.putJson((String) entry.getKey(), entry.getValue());
+        }
+        return nested;
+    }
+
+    /**
+     * Copies array items into an unmodifiable list of String, Long, Double, Boolean, ExtensionMembers, List and null.
+     * @param json true to convert maps as {@link #putJson(String, Object)} does, and to return null for items which
+     * cannot be represented instead of throwing.
+     */
+    private static List<Object> items(List<?> value, boolean json) {
+        List<Object> items = new ArrayList<>(value.size());
+        for(Object item : value) {
+            if(item == null || item instanceof String || item instanceof Long || item instanceof Double
+                    || item instanceof Boolean || item instanceof ExtensionMembers) {
+                items.add(item);
+            } else if(item instanceof CharSequence) {
+                items.add(item.toString());
+            } else if(item instanceof Integer || item instanceof Short || item instanceof Byte) {
+                items.add(((Number) item).longValue());
+            } else if(item instanceof Float) {
+                items.add(((Number) item).doubleValue());
+            } else if(item instanceof List) {
+                List<Object> nested = items((List<?>) item, json);
+                if(nested == null) {
+                    return null;
+                }
+                items.add(nested);
+            } else if(json && item instanceof Map) {
+                items.add(fromJson((Map<?, ?>) item));
+            } else if(json) {
+                return null;
+            } else {
+                throw new IllegalArgumentException(Problem.message("error.extension.item", item.getClass().getName()));
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Checks if a name may be used for an extension member of a problem: it must be an ASCII XML name, see
+     * {@link #isXmlName(String)}, and may not be one of the RFC 9457 member names.
+     * @param name the name to check.
+     * @return true if the name is valid.
+     */
+    static boolean isValidName(String name) {
+        if(name == null) {
+            return false;
+        }
+        switch(name) {
+            case "type":
+            case "title":
+            case "status":
+            case "detail":
+            case "instance":
+                return false;
+            default:
+                return isXmlName(name);
+        }
+    }
+
+    /**
+     * Checks if a name may be used for a nested member: it must be an ASCII XML name without a prefix, so that it
+     * can be written in any charset.
+     * @param name the name to check.
+     * @return true if the name is valid.
+     */
+    static boolean isXmlName(String name) {
+        if(name == null || name.isEmpty() || !isNameStart(name.charAt(0))) {
+            return false;
+        }
+        for(int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if(!(isNameStart(c) || c == '-' || c == '.' || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        // Names starting with xml are reserved (XML 1.0 - 2.3.)
+        return !name.regionMatches(true, 0, "xml", 0, 3);
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private boolean accepts(String name) {
+        return topLevel ? isValidName(name) : isXmlName(name);
+    }
+
+    private void set(String name, byte kind, long primitive, Object reference) {
+        int index = indexOf(name);
+        if(index < 0) {
+            if(!accepts(name)) {
+                throw new InvalidParameterException(Problem.message("error.extension.name", name));
+            }
+            if(size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                primitives = Arrays.copyOf(primitives, capacity);
+                references = Arrays.copyOf(references, capacity);
+            }
+            index = size++;
+            names[index] = name;
+        }
+        kinds[index] = kind;
+        primitives[index] = primitive;
+        references[index] = reference;
+    }
+
+    private int indexOf(String name) {
+        for(int i = 0; i < size; i++) {
+            if(names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object value(int index) {
+        switch(kinds[index]) {
+            case STRING:
+            case OBJECT:
+            case LAZY:
+            case ARRAY:
+                return references[index];
+            case LONG:
+                return primitives[index];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[index]);
+            case BOOLEAN:
+                return primitives[index] != 0;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        for(int i = 0; i < size; i++) {
+            result = prime * result + names[i].hashCode();
+            result = prime * result + kinds[i];
+            result = prime * result + Long.hashCode(primitives[i]);
+            if(kinds[i] == STRING) {
+                result = prime * result + TextEncoder.hash((CharSequence) references[i]);
+            } else {
+                result = prime * result + (references[i] == null ? 0 : references[i].hashCode());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ExtensionMembers other = (ExtensionMembers) obj;
+        if (size != other.size)
+            return false;
+        for(int i = 0; i < size; i++) {
+            if (!names[i].equals(other.names[i]) || kinds[i] != other.kinds[i] || primitives[i] != other.primitives[i])
+                return false;
+            if (kinds[i] == STRING && !TextEncoder.contentEquals((CharSequence) references[i], (CharSequence) other.references[i]))
+                return false;
+            if ((kinds[i] == OBJECT || kinds[i] == LAZY || kinds[i] == ARRAY) && !references[i].equals(other.references[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for(int i = 0; i < size; i++) {
+            if(i > 0) {
+                builder.append(", ");
+            }
+            builder.append(names[i]).append('=').append(value(i));
+        }
+        return builder.append('}').toString();
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.turnertech.problemdetails;
+
+import java.net.URI;
+
+/**
+ * Holds the installed {@link ProblemInstrumentation}, and times writes only while one is installed.
+ */
+final class Instrumentation {
+
+    /** Returned by {@link #start()} when nothing is installed. System.nanoTime() may return 0, so 0 cannot be used. */
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    static volatile ProblemInstrumentation current = ProblemInstrumentation.NOOP;
+
+    private Instrumentation() {
+        // Static access only
+    }
+
+    /**
+     * Starts timing a write.
+     * @return the current time, or {@link #NOT_TIMED} if nothing is installed, so that the write is not reported.
+     */
+    static long start() {
+        return current == ProblemInstrumentation.NOOP ? NOT_TIMED : System.nanoTime();
+    }
+
+    /**
+     * Reports a completed write, if it was timed.
+     * @param start the result of {@link #start()}.
+     * @param type the type of the problem.
+     * @param status the status of the problem.
+     * @param mediaType the media type written.
+     * @param bytes the number of bytes written, or -1.
+     */
+    static void written(long start, URI type, int status, String mediaType, long bytes) {
+        if(start != NOT_TIMED) {
+            current.written(type, status, mediaType, bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reports a completed write of a problem, if it was timed.
+     * @param start the result of {@link #start()}.
+     * @param problem the problem written.
+     * @param mediaType the media type written.
+     * @param bytes the number of bytes written, or -1.
+     */
+    static void written(long start, Problem problem, String mediaType, long bytes) {
+        if(start != NOT_TIMED) {
+            current.written(problem.getType(), problem.getStatusAsInt(), mediaType, bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reports a mapped exception.
+     * @param exception the class of the mapped exception.
+     * @param problem the problem it was mapped to.
+     */
+    static void mapped(Class<? extends Throwable> exception, Problem problem) {
+        ProblemInstrumentation instrumentation = current;
+        if(instrumentation != ProblemInstrumentation.NOOP) {
+            instrumentation.mapped(exception, problem.getType(), problem.getStatusAsInt());
+        }
+    }
+
+}
@@ -0,0 +1,628 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass JSON decoder used by {@link Problem#fromJson(InputStream)}. The five RFC 9457 members are decoded
+ * directly into the problem, without building an intermediate tree. Only the values of unknown members are
+ * materialised, and handed to {@link Problem#readJsonExtension(String, Object)}. Input is read in chunks through a
+ * pooled buffer, so documents are never buffered completely. String values are decoded into a pooled builder and
+ * then copied into a String, unless the problem supplies a {@link Problem#detailSink()}, which receives the detail
+ * in chunks instead. Input must be UTF-8 (RFC 8259). When validating, the members defined by the {@link Schema}
+ * are checked as they are decoded, instead of being ignored if they do not match.
+ */
+final class JsonDecoder {
+
+    private static final Pool<JsonDecoder> POOL = new Pool<>(JsonDecoder::new);
+
+    private static final int MAX_DEPTH = 512;
+
+    private static final int END_OF_INPUT = -1;
+
+    private final byte[] ownBuffer = new byte[TextEncoder.BUFFER_SIZE];
+
+    private final StringBuilder text = new StringBuilder(64);
+
+    private byte[] buffer;
+
+    private int position;
+
+    private int limit;
+
+    /** Number of bytes consumed before the current buffer, for error messages */
+    private long consumed;
+
+    private InputStream inputStream;
+
+    private ByteBuffer byteBuffer;
+
+    /** Non null while validating against the bundled RFC-9457.json. */
+    private Schema schema;
+
+    private JsonDecoder() {
+        // Use decode
+    }
+
+    /**
+     * Decodes a single problem object from the supplied stream. The stream is not closed, but may have been read
+     * beyond the end of the object.
+     * @param inputStream the stream to read.
+     * @param problem the problem to populate.
+     * @throws IOException if the stream throws or does not contain a JSON object.
+     */
+    static void decode(InputStream inputStream, Problem problem) throws IOException {
+        decode(inputStream, problem, null);
+    }
+
+    /**
+     * Decodes a single problem object from the supplied stream, optionally validating it in the same pass.
+     * @param inputStream the stream to read.
+     * @param problem the problem to populate.
+     * @param schema the schema to validate against, or null to ignore members of the wrong type.
+     * @throws IOException if the stream throws, does not contain a JSON object or does not match the schema.
+     */
+    static void decode(InputStream inputStream, Problem problem, Schema schema) throws IOException {
+        JsonDecoder decoder = acquire();
+        try {
+            decoder.schema = schema;
+            decoder.inputStream = inputStream;
+            decoder.buffer = decoder.ownBuffer;
+            decoder.decodeDocument(problem);
+        } finally {
+            decoder.release();
+        }
+    }
+
+    /**
+     * Decodes a single problem object from the remaining bytes of the supplied buffer. On success the position of
+     * the buffer is directly after the object.
+     * @param byteBuffer the buffer to read.
+     * @param problem the problem to populate.
+     * @throws IOException if the buffer does not contain a JSON object.
+     */
+    static void decode(ByteBuffer byteBuffer, Problem problem) throws IOException {
+        decode(byteBuffer, problem, null);
+    }
+
+    /**
+     * Decodes a single problem object from the remaining bytes of the supplied buffer, optionally validating it in
+     * the same pass.
+     * @param byteBuffer the buffer to read.
+     * @param problem the problem to populate.
+     * @param schema the schema to validate against, or null to ignore members of the wrong type.
+     * @throws IOException if the buffer does not contain a JSON object or does not match the schema.
+     */
+    static void decode(ByteBuffer byteBuffer, Problem problem, Schema schema) throws IOException {
+        JsonDecoder decoder = acquire();
+        try {
+            decoder.schema = schema;
+            if(byteBuffer.hasArray()) {
+                decoder.buffer = byteBuffer.array();
+                decoder.position = byteBuffer.arrayOffset() + byteBuffer.position();
+                decoder.limit = byteBuffer.arrayOffset() + byteBuffer.limit();
+                decoder.consumed = -decoder.position;
+                decoder.decodeDocument(problem);
+                byteBuffer.position(decoder.position - byteBuffer.arrayOffset());
+            } else {
+                decoder.byteBuffer = byteBuffer;
+                decoder.buffer = decoder.ownBuffer;
+                decoder.decodeDocument(problem);
+                byteBuffer.position(byteBuffer.position() - (decoder.limit - decoder.position));
+            }
+        } finally {
+            decoder.release();
+        }
+    }
+
+    private static JsonDecoder acquire() {
+        return POOL.acquire();
+    }
+
+    private void release() {
+        inputStream = null;
+        byteBuffer = null;
+        schema = null;
+        buffer = null;
+        position = 0;
+        limit = 0;
+        consumed = 0;
+        if(text.capacity() > TextEncoder.BUFFER_SIZE) {
+            // Do not keep huge details alive
+            text.setLength(0);
+            text.trimToSize();
+        }
+        POOL.release(this);
+    }
+
+    private void decodeDocument(Problem problem) throws IOException {
+        // RFC 8259 - 8.1. A byte order mark may be ignored
+        if(peek() == 0xEF) {
+            next();
+            if(next() != 0xBB || next() != 0xBF) {
+                throw syntaxError();
+            }
+        }
+        if(nextNonWhitespace() != '{') {
+            throw syntaxError();
+        }
+        int c = nextNonWhitespace();
+        if(c == '}') {
+            return;
+        }
+        while(true) {
+            if(c != '"') {
+                throw syntaxError();
+            }
+            readString();
+            expect(':');
+            decodeMember(problem);
+            c = nextNonWhitespace();
+            if(c == '}') {
+                return;
+            } else if(c != ',') {
+                throw syntaxError();
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    /**
+     * Decodes the value of the member whose name is currently held in {@link #text}. Values of the wrong type are
+     * ignored, as required by RFC 9457 - 3.1.
+     */
+    private void decodeMember(Problem problem) throws IOException {
+        int c = nextNonWhitespace();
+        if(schema != null) {
+            Schema.Rule rule = schema.member(text);
+            if(rule != null) {
+                decodeChecked(problem, rule, c);
+                return;
+            }
+        }
+        if(isName("type")) {
+            if(c == '"') {
+                URI type = readUri();
+                if(type != null) {
+                    problem.setType(type);
+                }
+                return;
+            }
+        } else if(isName("title")) {
+            if(c == '"') {
+                readString();
+                problem.setTitle(text.toString());
+                return;
+            }
+        } else if(isName("status")) {
+            if(c == '"') {
+                // Version 1.0 of this library wrote the status as a string
+                readString();
+                setStatus(problem, text);
+                return;
+            }
+            if(c == '-' || (c >= '0' && c <= '9')) {
+                readNumberText(c);
+                setStatus(problem, text);
+                return;
+            }
+        } else if(isName("detail")) {
+            if(c == '"') {
+                Appendable sink = problem.detailSink();
+                readString(sink);
+                if(sink == null) {
+                    problem.setDetail(text.toString());
+                }
+                return;
+            }
+        } else if(isName("instance")) {
+            if(c == '"') {
+                problem.setInstance(readUri());
+                return;
+            }
+        } else {
+            String name = text.toString();
+            problem.readJsonExtension(name, readValue(c, 0));
+            return;
+        }
+        readValue(c, 0);
+    }
+
+    /**
+     * Decodes the value of a member the schema defines, failing if it does not match.
+     */
+    private void decodeChecked(Problem problem, Schema.Rule rule, int c) throws IOException {
+        long offset = consumed + position - 1;
+        if(rule.kind == Schema.INTEGER) {
+            if(c != '-' && (c < '0' || c > '9')) {
+                throw schemaError(rule, offset);
+            }
+            if(!readNumberText(c)) {
+                // JSON Schema integers may have a zero fraction, e.g. 404.0
+                double value = Double.parseDouble(text.toString());
+                if(value != Math.rint(value) || Math.abs(value) >= 1e18) {
+                    throw schemaError(rule, offset);
+                }
+                text.setLength(0);
+                text.append((long) value);
+            }
+        } else if(c == '"') {
+            Appendable sink = "detail".equals(rule.name) ? problem.detailSink() : null;
+            readString(sink);
+            if(sink != null) {
+                // Every string is a valid detail
+                return;
+            }
+        } else {
+            throw schemaError(rule, offset);
+        }
+        Object value = rule.check(text);
+        if(value == null) {
+            throw schemaError(rule, offset);
+        }
+        rule.set(problem, value);
+    }
+
+    /**
+     * Sets the status from its decimal text, ignoring values which are not a status code.
+     * @param problem the problem to populate.
+     * @param value the decimal text.
+     */
+    static void setStatus(Problem problem, CharSequence value) {
+        if(value.length() != 3) {
+            return;
+        }
+        int status = 0;
+        for(int i = 0; i < 3; i++) {
+            char digit = value.charAt(i);
+            if(digit < '0' || digit > '9') {
+                return;
+            }
+            status = status * 10 + digit - '0';
+        }
+        if(status >= 100 && status <= 599) {
+            problem.setStatus(status);
+        }
+    }
+
+    private URI readUri() throws IOException {
+        readString();
+        try {
+            return new URI(text.toString());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private Object readValue(int c, int depth) throws IOException {
+        if(depth > MAX_DEPTH) {
+            throw syntaxError();
+        }
+        switch(c) {
+            case '"':
+                readString();
+                return text.toString();
+            case '{':
+                return readObject(depth);
+            case '[':
+                return readArray(depth);
+            case 't':
+                expectLiteral("rue");
+                return Boolean.TRUE;
+            case 'f':
+                expectLiteral("alse");
+                return Boolean.FALSE;
+            case 'n':
+                expectLiteral("ull");
+                return null;
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber(c);
+                }
+                throw syntaxError();
+        }
+    }
+
+    private Map<String, Object> readObject(int depth) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        int c = nextNonWhitespace();
+        if(c == '}') {
+            return object;
+        }
+        while(true) {
+            if(c != '"') {
+                throw syntaxError();
+            }
+            readString();
+            String name = text.toString();
+            expect(':');
+            object.put(name, readValue(nextNonWhitespace(), depth + 1));
+            c = nextNonWhitespace();
+            if(c == '}') {
+                return object;
+            } else if(c != ',') {
+                throw syntaxError();
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    private List<Object> readArray(int depth) throws IOException {
+        List<Object> array = new ArrayList<>();
+        int c = nextNonWhitespace();
+        if(c == ']') {
+            return array;
+        }
+        while(true) {
+            array.add(readValue(c, depth + 1));
+            c = nextNonWhitespace();
+            if(c == ']') {
+                return array;
+            } else if(c != ',') {
+                throw syntaxError();
+            }
+            c = nextNonWhitespace();
+        }
+    }
+
+    private Number readNumber(int c) throws IOException {
+        boolean integral = readNumberText(c);
+        if(integral && text.length() < 19) {
+            long value = 0;
+            boolean negative = text.charAt(0) == '-';
+            for(int i = negative ? 1 : 0; i < text.length(); i++) {
+                value = value * 10 + text.charAt(i) - '0';
+            }
+            return negative ? -value : value;
+        }
+        return Double.valueOf(text.toString());
+    }
+
+    /**
+     * Reads the text of a number into {@link #text}, validating the RFC 8259 number grammar.
+     * @return true if the number has neither a fraction nor an exponent.
+     */
+    private boolean readNumberText(int c) throws IOException {
+        text.setLength(0);
+        boolean integral = true;
+        if(c == '-') {
+            text.append('-');
+            c = next();
+        }
+        if(c == '0') {
+            text.append('0');
+        } else if(c >= '1' && c <= '9') {
+            text.append((char) c);
+            readDigits(false);
+        } else {
+            throw syntaxError();
+        }
+        if(peek() == '.') {
+            integral = false;
+            text.append((char) next());
+            readDigits(true);
+        }
+        if(peek() == 'e' || peek() == 'E') {
+            integral = false;
+            text.append((char) next());
+            if(peek() == '+' || peek() == '-') {
+                text.append((char) next());
+            }
+            readDigits(true);
+        }
+        return integral;
+    }
+
+    private void readDigits(boolean required) throws IOException {
+        int c = peek();
+        if(required && (c < '0' || c > '9')) {
+            throw syntaxError();
+        }
+        while(c >= '0' && c <= '9') {
+            text.append((char) next());
+            c = peek();
+        }
+    }
+
+    /**
+     * Reads the remainder of a string whose opening quote has been consumed into {@link #text}, decoding escapes
+     * and UTF-8 sequences.
+     */
+    private void readString() throws IOException {
+        readString(null);
+    }
+
+    /**
+     * Reads the remainder of a string whose opening quote has been consumed, decoding escapes and UTF-8 sequences.
+     * @param sink receives the string in chunks of at most the buffer size, or null to read it into {@link #text}.
+     */
+    private void readString(Appendable sink) throws IOException {
+        text.setLength(0);
+        while(true) {
+            if(sink != null && text.length() >= TextEncoder.BUFFER_SIZE) {
+                drain(sink, false);
+            }
+            if(position == limit && !fill()) {
+                throw syntaxError();
+            }
+            int b = buffer[position++];
+            if(b == '"') {
+                if(sink != null) {
+                    drain(sink, true);
+                }
+                return;
+            } else if(b == '\\') {
+                readEscape();
+            } else if(b >= 0x20) {
+                text.append((char) b);
+            } else if(b < 0) {
+                readUtf8(b);
+            } else {
+                throw syntaxError();
+            }
+        }
+    }
+
+    /**
+     * Appends the decoded text to a sink. Unless all is appended, a trailing high surrogate is kept back, so that a
+     * surrogate pair written as two escapes is never split between chunks.
+     */
+    private void drain(Appendable sink, boolean all) throws IOException {
+        int end = text.length();
+        if(!all && end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        sink.append(text, 0, end);
+        text.delete(0, end);
+    }
+
+    private void readEscape() throws IOException {
+        int c = next();
+        switch(c) {
+            case '"':
+            case '\\':
+            case '/':
+                text.append((char) c);
+                break;
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for(int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if(digit < 0) {
+                        throw syntaxError();
+                    }
+                    value = (value << 4) | digit;
+                }
+                text.append((char) value);
+                break;
+            default:
+                throw syntaxError();
+        }
+    }
+
+    private void readUtf8(int first) throws IOException {
+        int codePoint;
+        int continuations;
+        if((first & 0xE0) == 0xC0) {
+            codePoint = first & 0x1F;
+            continuations = 1;
+        } else if((first & 0xF0) == 0xE0) {
+            codePoint = first & 0x0F;
+            continuations = 2;
+        } else if((first & 0xF8) == 0xF0) {
+            codePoint = first & 0x07;
+            continuations = 3;
+        } else {
+            text.append('\uFFFD');
+            return;
+        }
+        for(int i = 0; i < continuations; i++) {
+            int b = peek();
+            if((b & 0xC0) != 0x80) {
+                text.append('\uFFFD');
+                return;
+            }
+            next();
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        text.appendCodePoint(codePoint <= Character.MAX_CODE_POINT ? codePoint : '\uFFFD');
+    }
+
+    private boolean isName(String name) {
+        if(text.length() != name.length()) {
+            return false;
+        }
+        for(int i = 0; i < name.length(); i++) {
+            if(text.charAt(i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(int expected) throws IOException {
+        if(nextNonWhitespace() != expected) {
+            throw syntaxError();
+        }
+    }
+
+    private void expectLiteral(String remainder) throws IOException {
+        for(int i = 0; i < remainder.length(); i++) {
+            if(next() != remainder.charAt(i)) {
+                throw syntaxError();
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = next();
+        while(c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = next();
+        }
+        return c;
+    }
+
+    private int next() throws IOException {
+        if(position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if(position == limit && !fill()) {
+            return END_OF_INPUT;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if(inputStream == null && byteBuffer == null) {
+            return false;
+        }
+        consumed += limit;
+        position = 0;
+        limit = 0;
+        if(inputStream != null) {
+            int read = inputStream.read(buffer, 0, buffer.length);
+            if(read > 0) {
+                limit = read;
+            }
+        } else if(byteBuffer != null && byteBuffer.hasRemaining()) {
+            limit = Math.min(byteBuffer.remaining(), buffer.length);
+            byteBuffer.get(buffer, 0, limit);
+        }
+        return limit > 0;
+    }
+
+    private IOException syntaxError() {
+        return new IOException(Problem.message("error.json.syntax", consumed + position));
+    }
+
+    private static IOException schemaError(Schema.Rule rule, long offset) {
+        return new IOException(Problem.message("error.schema.json", rule.name, offset));
+    }
+
+}
@@ -0,0 +1,358 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+
+/**
+ * Streaming JSON encoder used by {@link Problem#toJson(OutputStream, Charset)}. Strings are escaped according to
+ * RFC 8259 and encoded directly into the target charset. Encoders and their buffers are reused through a lock-free
+ * {@link Pool}, unless created with {@link #unshared(OutputStream, Charset)}.
+ */
+final class JsonEncoder extends TextEncoder implements MemberWriter {
+
+    private static final Pool<JsonEncoder> POOL = new Pool<>(JsonEncoder::new);
+
+    static final byte[] TYPE = ascii("{\"type\":");
+
+    static final byte[] TITLE = ascii(",\"title\":");
+
+    static final byte[] STATUS = ascii(",\"status\":");
+
+    static final byte[] DETAIL = ascii(",\"detail\":");
+
+    static final byte[] INSTANCE = ascii(",\"instance\":");
+
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[] TRUE = ascii("true");
+
+    private static final byte[] FALSE = ascii("false");
+
+    private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    /** Escape character for each ASCII char, 0 if none is needed and 'u' for a unicode escape. */
+    private static final byte[] ESCAPES = new byte[0x80];
+
+    static {
+        for(int i = 0; i < 0x20; i++) {
+            ESCAPES[i] = 'u';
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\t'] = 't';
+    }
+
+    /** Whether the next member needs a leading ",". True within the problem object, as "type" is always first. */
+    private boolean needsComma;
+
+    private JsonEncoder() {
+        // Use acquire
+    }
+
+    /**
+     * Gets an encoder from the pool which writes to the supplied stream. The encoder must be closed after
+     * use, so that it may be reused.
+     * @param outputStream the stream to write to.
+     * @param charset the charset to encode with.
+     * @return an open encoder.
+     */
+    static JsonEncoder acquire(OutputStream outputStream, Charset charset) {
+        JsonEncoder encoder = acquire(charset);
+        encoder.target(outputStream);
+        return encoder;
+    }
+
+    /**
+     * Creates an encoder which is not pooled, for writers which keep it open across calls.
+     * @param outputStream the stream to write to.
+     * @param charset the charset to encode with.
+     * @return an open encoder.
+     */
+    static JsonEncoder unshared(OutputStream outputStream, Charset charset) {
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.open(charset);
+        encoder.target(outputStream);
+        return encoder;
+    }
+
+    /**
+     * Gets an encoder from the pool without a target, which only counts the encoded bytes until a target
+     * is set. The encoder must be closed after use, so that it may be reused.
+     * @param charset the charset to encode with.
+     * @return an open encoder.
+     */
+    static JsonEncoder acquire(Charset charset) {
+        JsonEncoder encoder = POOL.acquire();
+        encoder.pooled = true;
+        encoder.open(charset);
+        encoder.needsComma = true;
+        return encoder;
+    }
+
+    /**
+     * Opens the problem object and writes the members which are usually constant for a problem type.
+     * @param type the problem type, may not be null.
+     * @param title the problem title, may be null.
+     * @param status the problem status, may be {@link Problem#NO_STATUS}.
+     * @throws IOException if the stream throws.
+     */
+    void writeHead(URI type, String title, int status) throws IOException {
+        writeHead(type.toString(), title, status);
+    }
+
+    /**
+     * Opens the problem object and writes the members which are usually constant for a problem type.
+     * @param type the problem type as text, may not be null.
+     * @param title the problem title, may be null.
+     * @param status the problem status, may be {@link Problem#NO_STATUS}.
+     * @throws IOException if the stream throws.
+     */
+    void writeHead(CharSequence type, String title, int status) throws IOException {
+        needsComma = true;
+        writeAscii(TYPE);
+        writeString(type);
+        if(title != null) {
+            writeAscii(TITLE);
+            writeString(title);
+        }
+        if(status != Problem.NO_STATUS) {
+            writeAscii(STATUS);
+            writeStatusCode(status);
+        }
+    }
+
+    /**
+     * Writes the members which usually vary for each occurrence of a problem. The object is not closed.
+     * @param detail the problem detail, may be null.
+     * @param instance the problem instance, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeOccurrence(String detail, URI instance) throws IOException {
+        writeOccurrence(detail, instance == null ? null : instance.toString());
+    }
+
+    /**
+     * Writes the members which usually vary for each occurrence of a problem. The object is not closed.
+     * @param detail the problem detail, may be null.
+     * @param instance the problem instance as text, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeOccurrence(String detail, CharSequence instance) throws IOException {
+        if(detail != null) {
+            writeAscii(DETAIL);
+            writeString(detail);
+        }
+        if(instance != null) {
+            writeAscii(INSTANCE);
+            writeString(instance);
+        }
+    }
+
+    /**
+     * Writes the detail member from lazy text. Used instead of the detail of
+     * {@link #writeOccurrence(String, URI)}, and before it, to keep the member order.
+     * @param detail the problem detail.
+     * @throws IOException if the stream or the text throws.
+     */
+    void writeDetail(LazyText detail) throws IOException {
+        writeAscii(DETAIL);
+        writeAscii('"');
+        writeLazy(detail);
+        writeAscii('"');
+    }
+
+    /**
+     * Writes the supplied sequence as a quoted and escaped JSON string.
+     * @param value the value to write, may not be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeString(CharSequence value) throws IOException {
+        writeAscii('"');
+        writeEscaped(value, 0, value.length());
+        writeAscii('"');
+    }
+
+    @Override
+    void writeEscaped(CharSequence value, int start, int end) throws IOException {
+        for(int i = start; i < end;) {
+            char c = value.charAt(i);
+            if(c < 0x80) {
+                byte escape = ESCAPES[c];
+                if(escape == 0) {
+                    writeAscii(c);
+                } else if(escape == 'u') {
+                    writeUnicodeEscape(c);
+                } else {
+                    writeAscii('\\');
+                    writeAscii(escape);
+                }
+                i++;
+            } else {
+                i += writeNonAscii(value, i);
+            }
+        }
+    }
+
+    @Override
+    public void writeMember(String name, CharSequence value) throws IOException {
+        writeName(name);
+        writeString(value);
+    }
+
+    @Override
+    public void writeLazyMember(String name, LazyText value) throws IOException {
+        writeName(name);
+        writeAscii('"');
+        writeLazy(value);
+        writeAscii('"');
+    }
+
+    @Override
+    public void writeMember(String name, long value) throws IOException {
+        writeName(name);
+        writeLong(value);
+    }
+
+    @Override
+    public void writeMember(String name, double value) throws IOException {
+        writeName(name);
+        writeDouble(value);
+    }
+
+    @Override
+    public void writeMember(String name, boolean value) throws IOException {
+        writeName(name);
+        writeAscii(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeNullMember(String name) throws IOException {
+        writeName(name);
+        writeAscii(NULL);
+    }
+
+    @Override
+    public void writeMember(MemberName name, CharSequence value) throws IOException {
+        writeName(name);
+        writeString(value);
+    }
+
+    @Override
+    public void writeMember(MemberName name, long value) throws IOException {
+        writeName(name);
+        writeLong(value);
+    }
+
+    @Override
+    public void writeMember(MemberName name, double value) throws IOException {
+        writeName(name);
+        writeDouble(value);
+    }
+
+    @Override
+    public void writeMember(MemberName name, boolean value) throws IOException {
+        writeName(name);
+        writeAscii(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void writeNullMember(MemberName name) throws IOException {
+        writeName(name);
+        writeAscii(NULL);
+    }
+
+    @Override
+    public void writeStartObject(String name) throws IOException {
+        writeName(name);
+        writeAscii('{');
+        startNested(false);
+        needsComma = false;
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        writeAscii('}');
+        endNested();
+        needsComma = true;
+    }
+
+    @Override
+    public void writeStartArray(String name) throws IOException {
+        writeName(name);
+        writeAscii('[');
+        startNested(true);
+        needsComma = false;
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        writeAscii(']');
+        endNested();
+        needsComma = true;
+    }
+
+    private void writeName(String name) throws IOException {
+        if(needsComma) {
+            writeAscii(',');
+        }
+        if(!inArray()) {
+            writeString(name);
+            writeAscii(':');
+        }
+        needsComma = true;
+    }
+
+    private void writeName(MemberName name) throws IOException {
+        if(!isPreEncodable() || inArray()) {
+            writeName(name.toString());
+            return;
+        }
+        if(needsComma) {
+            writeAscii(',');
+        }
+        writeEncoded(name.json);
+        needsComma = true;
+    }
+
+    private void writeDouble(double value) throws IOException {
+        if(Double.isFinite(value)) {
+            String digits = Double.toString(value);
+            for(int i = 0; i < digits.length(); i++) {
+                writeAscii(digits.charAt(i));
+            }
+        } else {
+            writeAscii(NULL);
+        }
+    }
+
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
+    @Override
+    void writeUnmappable(int codePoint) throws IOException {
+        if(Character.isBmpCodePoint(codePoint)) {
+            writeUnicodeEscape(codePoint);
+        } else {
+            writeUnicodeEscape(Character.highSurrogate(codePoint));
+            writeUnicodeEscape(Character.lowSurrogate(codePoint));
+        }
+    }
+
+    private void writeUnicodeEscape(int c) throws IOException {
+        writeAscii('\\');
+        writeAscii('u');
+        writeAscii(HEX[(c >> 12) & 0xF]);
+        writeAscii(HEX[(c >> 8) & 0xF]);
+        writeAscii(HEX[(c >> 4) & 0xF]);
+        writeAscii(HEX[c & 0xF]);
+    }
+
+}
@@ -0,0 +1,64 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>Text which is only produced when a problem is written, such as a large validation report. The text is appended
+ * in as many chunks as convenient, and each chunk is escaped and encoded straight into the output, so the full text
+ * is never held in memory by the library. If the problem is never written, the text is never produced.</p>
+ *
+ * <pre>
+ * problem.setLazyDetail(out -&gt; {
+ *     for(Violation violation : violations) {
+ *         out.append(violation.getPath()).append(": ").append(violation.getMessage()).append('\n');
+ *     }
+ * });
+ * </pre>
+ *
+ * <p>The text may be written more than once, e.g. once to compute a length and once to write it, and should append
+ * the same text each time.</p>
+ *
+ * @see Problem#setLazyDetail(LazyText)
+ * @see ExtensionMembers#putLazy(String, LazyText)
+ */
+@FunctionalInterface
+public interface LazyText {
+
+    /**
+     * Appends the text. The appendable must not be used after this method returns.
+     * @param appendable the target to append the text to.
+     * @throws IOException if the appendable throws.
+     */
+    void writeTo(Appendable appendable) throws IOException;
+
+    /**
+     * Creates lazy text which appends the sequence of the supplied supplier in one chunk.
+     * @param supplier supplies the text when it is written, may not return null.
+     * @return the lazy text.
+     */
+    static LazyText of(Supplier<? extends CharSequence> supplier) {
+        Objects.requireNonNull(supplier);
+        return appendable -> appendable.append(supplier.get());
+    }
+
+    /**
+     * Produces the complete text.
+     * @param text the lazy text.
+     * @return the text as a String.
+     * @throws UncheckedIOException if the text throws.
+     */
+    static String toString(LazyText text) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            text.writeTo(builder);
+        } catch (IOException e) {
+            // A StringBuilder does not throw, only the text itself could
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,87 @@
+package de.turnertech.problemdetails;
+
+import java.security.InvalidParameterException;
+
+/**
+ * <p>The name of an extension member, encoded once as a JSON key, as XML tags and as a CBOR key. Writing a member by
+ * its {@code MemberName} copies these bytes into the output, instead of escaping and encoding the name on every
+ * write. Hold instances in constants.</p>
+ *
+ * <pre>
+ * private static final MemberName BALANCE = MemberName.of("balance");
+ * ...
+ * memberWriter.writeMember(BALANCE, balance);
+ * </pre>
+ *
+ * <p>Names follow the rules of {@link ExtensionMembers}, so they are ASCII and the bytes are valid in every charset
+ * the library writes directly. Instances are immutable.</p>
+ *
+ * @see ExtensionMember
+ */
+public final class MemberName {
+
+    private final String name;
+
+    /** {@code "name":} */
+    final byte[] json;
+
+    /** {@code <name>} */
+    final byte[] xmlStart;
+
+    /** {@code </name>} */
+    final byte[] xmlEnd;
+
+    /** {@code <name/>} */
+    final byte[] xmlEmpty;
+
+    /** The name as a CBOR text string. */
+    final byte[] cbor;
+
+    private MemberName(String name) {
+        this.name = name;
+        this.json = TextEncoder.ascii('"' + name + "\":");
+        this.xmlStart = TextEncoder.ascii('<' + name + '>');
+        this.xmlEnd = TextEncoder.ascii("</" + name + '>');
+        this.xmlEmpty = TextEncoder.ascii('<' + name + XmlEncoder.NIL);
+        this.cbor = CborEncoder.encodeKey(name);
+    }
+
+    /**
+     * Creates a member name.
+     * @param name the name.
+     * @return the encoded name.
+     * @throws InvalidParameterException if the name is not a valid extension member name.
+     */
+    public static MemberName of(String name) {
+        if(!ExtensionMembers.isValidName(name)) {
+            throw new InvalidParameterException(Problem.message("error.extension.name", name));
+        }
+        return new MemberName(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || (obj instanceof MemberName && name.equals(((MemberName) obj).name));
+    }
+
+    /**
+     * Gets the name.
+     * @return the name.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,157 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+
+/**
+ * <p>Format neutral target for extension members (RFC 9457 - 3.2.). The same calls produce JSON members or XML
+ * elements in the problem namespace, depending on the representation being written.</p>
+ *
+ * <p>Implementations take care of separators, escaping and encoding, and are backed by the buffers of the
+ * library's own encoders, so writing members does not allocate.</p>
+ *
+ * @see Problem#writeExtensions(MemberWriter)
+ */
+public interface MemberWriter {
+
+    /**
+     * Writes a string member.
+     * @param name the member name.
+     * @param value the value, may not be null.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeMember(String name, CharSequence value) throws IOException;
+
+    /**
+     * Writes a string member from lazy text. The library's encoders write each appended chunk straight to the
+     * output. By default, the text is collected and written with {@link #writeMember(String, CharSequence)}.
+     * @param name the member name.
+     * @param value the value, may not be null.
+     * @throws IOException if the underlying output or the text throws.
+     */
+    default void writeLazyMember(String name, LazyText value) throws IOException {
+        StringBuilder text = new StringBuilder();
+        value.writeTo(text);
+        writeMember(name, text);
+    }
+
+    /**
+     * Writes an integer member.
+     * @param name the member name.
+     * @param value the value.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeMember(String name, long value) throws IOException;
+
+    /**
+     * Writes a floating point member. NaN and infinite values have no JSON representation and are written as null.
+     * In XML they are written as NaN, INF and -INF, as xs:double spells them.
+     * @param name the member name.
+     * @param value the value.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeMember(String name, double value) throws IOException;
+
+    /**
+     * Writes a boolean member.
+     * @param name the member name.
+     * @param value the value.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeMember(String name, boolean value) throws IOException;
+
+    /**
+     * Writes a member with the value null. In XML this is an empty element with the attribute xsi:nil="true", which
+     * is read back as null.
+     * @param name the member name.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeNullMember(String name) throws IOException;
+
+    /**
+     * Writes a string member with a pre-encoded name. By default, this calls
+     * {@link #writeMember(String, CharSequence)}.
+     * @param name the member name.
+     * @param value the value, may not be null.
+     * @throws IOException if the underlying output throws.
+     */
+    default void writeMember(MemberName name, CharSequence value) throws IOException {
+        writeMember(name.toString(), value);
+    }
+
+    /**
+     * Writes an integer member with a pre-encoded name. By default, this calls {@link #writeMember(String, long)}.
+     * @param name the member name.
+     * @param value the value.
+     * @throws IOException if the underlying output throws.
+     */
+    default void writeMember(MemberName name, long value) throws IOException {
+        writeMember(name.toString(), value);
+    }
+
+    /**
+     * Writes a floating point member with a pre-encoded name. By default, this calls
+     * {@link #writeMember(String, double)}.
+     * @param name the member name.
+     * @param value the value.
+     * @throws IOException if the underlying output throws.
+     */
+    default void writeMember(MemberName name, double value) throws IOException {
+        writeMember(name.toString(), value);
+    }
+
+    /**
+     * Writes a boolean member with a pre-encoded name. By default, this calls {@link #writeMember(String, boolean)}.
+     * @param name the member name.
+     * @param value the value.
+     * @throws IOException if the underlying output throws.
+     */
+    default void writeMember(MemberName name, boolean value) throws IOException {
+        writeMember(name.toString(), value);
+    }
+
+    /**
+     * Writes a member with the value null and a pre-encoded name. By default, this calls
+     * {@link #writeNullMember(String)}.
+     * @param name the member name.
+     * @throws IOException if the underlying output throws.
+     */
+    default void writeNullMember(MemberName name) throws IOException {
+        writeNullMember(name.toString());
+    }
+
+    /**
+     * Starts a nested object member. All following members are written into the nested object, until
+     * {@link #writeEndObject()} is called.
+     * @param name the member name.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeStartObject(String name) throws IOException;
+
+    /**
+     * Ends the nested object started last.
+     * @throws IOException if the underlying output throws.
+     */
+    void writeEndObject() throws IOException;
+
+    /**
+     * Starts an array member. All following calls write the items of the array, and the names passed to them are
+     * ignored, until {@link #writeEndArray()} is called. In XML, each item is an element named "i". The library's
+     * writers support arrays, by default this throws.
+     * @param name the member name.
+     * @throws IOException if the underlying output throws.
+     * @throws UnsupportedOperationException if this writer does not support arrays.
+     */
+    default void writeStartArray(String name) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Ends the array started last.
+     * @throws IOException if the underlying output throws.
+     * @throws UnsupportedOperationException if this writer does not support arrays.
+     */
+    default void writeEndArray() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+}
@@ -0,0 +1,76 @@
+package de.turnertech.problemdetails;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * <p>Small lock-free pool of reusable, not thread safe objects such as encoders and decoders. Objects are taken out
+ * of a fixed number of slots with a compare-and-set, and put back the same way. If all slots are empty a new object
+ * is created, and if all slots are full a returned object is dropped, so the pool never blocks.</p>
+ *
+ * <p>Unlike a ThreadLocal, the number of pooled objects does not grow with the number of threads, which matters
+ * when problems are rendered from many short lived virtual threads. A pooled object is owned by exactly one caller
+ * between {@link #acquire()} and {@link #release(Object)}, so nested use (e.g. a problem serialising another problem
+ * in an extension) simply takes a second object.</p>
+ *
+ * @param <T> the type of the pooled objects.
+ */
+final class Pool<T> {
+
+    private final AtomicReferenceArray<T> slots;
+
+    private final int mask;
+
+    private final Supplier<T> factory;
+
+    /**
+     * Creates an empty pool with about two slots per processor.
+     * @param factory creates new objects when the pool is empty.
+     */
+    Pool(Supplier<T> factory) {
+        int size = Integer.highestOneBit(Math.min(64, Math.max(2, Runtime.getRuntime().availableProcessors() * 2)) * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.factory = factory;
+    }
+
+    /**
+     * Takes an object out of the pool, or creates one if the pool is empty.
+     * @return an object which is owned by the caller until it is released.
+     */
+    T acquire() {
+        int start = probe();
+        for(int i = 0; i <= mask; i++) {
+            int index = (start + i) & mask;
+            T object = slots.get(index);
+            if(object != null && slots.compareAndSet(index, object, null)) {
+                return object;
+            }
+        }
+        return factory.get();
+    }
+
+    /**
+     * Puts an object back into the pool, or drops it if the pool is full. The caller must not use it afterwards.
+     * @param object the object to return.
+     */
+    void release(T object) {
+        int start = probe();
+        for(int i = 0; i <= mask; i++) {
+            int index = (start + i) & mask;
+            if(slots.get(index) == null && slots.compareAndSet(index, null, object)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Spreads threads over the slots, so that concurrent callers rarely contend for the same slot.
+     * @return the first slot to try.
+     */
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) * 0x9E3779B9;
+    }
+
+}
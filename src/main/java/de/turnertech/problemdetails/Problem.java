@@ -2,18 +2,23 @@ package de.turnertech.problemdetails;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidParameterException;
+import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.ResourceBundle;
+import java.util.function.Supplier;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 /**
@@ -29,31 +34,82 @@ public class Problem {
     
     /** application/problem+json */
     public static final String MEDIA_TYPE_JSON = "application/problem+json";
+
+    /** application/problem+cbor */
+    public static final String MEDIA_TYPE_CBOR = "application/problem+cbor";
+
+    /** Returned by {@link #getStatusAsInt()} if no status is set. */
+    public static final int NO_STATUS = 0;
     
-    private static final ResourceBundle i18n = ResourceBundle.getBundle("de.turnertech.problemdetails.i18n");
+    /** about:blank (RFC 9457 - 4.2.1.) */
+    static final URI ABOUT_BLANK = URI.create("about:blank");
 
     private static final String PROBLEM_STRING = "problem";
+
+    /** The number of type texts each problem keeps parsed, see {@link #setTypeText(CharSequence)}. */
+    private static final int PARSED_TYPES = 4;
+
+    /** Whether a class overrides {@link #extendXml(XMLStreamWriter, Charset)}, and so requires a StAX writer. */
+    private static final ClassValue<Boolean> EXTENDS_XML = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return overrides(type, "extendXml", XMLStreamWriter.class, Charset.class);
+        }
+    };
+
+    /** Whether a class overrides {@link #extendJson(OutputStream, Charset)}, and so requires a flushed stream. */
+    private static final ClassValue<Boolean> EXTENDS_JSON = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return overrides(type, "extendJson", OutputStream.class, Charset.class);
+        }
+    };
     
-    // Mandatory with default
+    // Mandatory with default. Parsed from typeText if that is set.
     private URI type;
+
+    // Written instead of type, if set from text
+    private CharSequence typeText;
+
+    // Type texts parsed recently and their URIs, created on first use and kept across reset, so that a few
+    // constant types are parsed only once
+    private String[] parsedTypeTexts;
+
+    private URI[] parsedTypes;
+
+    private int nextParsedType;
     
-    // Optional, must be same as HTTP response if present
-    private Integer status;
+    // Optional, must be same as HTTP response if present. NO_STATUS if absent.
+    private int status = NO_STATUS;
     
     // Advisory
     private String title;
     
     // Optional
     private String detail;
+
+    // Optional, replaces detail
+    private LazyText lazyDetail;
     
     // Optional
     private URI instance;
 
+    // Optional, replaces instance
+    private CharSequence instanceText;
+
+    // The instance text parsed last and its URI, so that getInstance() parses the same text only once
+    private String parsedInstanceText;
+
+    private URI parsedInstance;
+
+    // Optional, created on first use
+    private ExtensionMembers extensions;
+
     /**
      * Constructs an empty Problem with the type "about:blank" (RFC 9457 - 4.2.1.).
      */
     public Problem() {
-        this(URI.create("about:blank"));
+        this(ABOUT_BLANK);
     }
 
     /**
@@ -72,7 +128,7 @@ public class Problem {
      * @throws NullPointerException if type is null.
      */
     public Problem(URI type, URI instance) throws NullPointerException {
-        this.type = Objects.requireNonNull(type, i18n.getString("error.type.nonnull"));
+        this.type = checkType(type);
         this.instance = instance;
     }
     
@@ -83,10 +139,63 @@ public class Problem {
      */
     public Problem(Problem other) {
         this.type = other.type;
+        this.typeText = other.typeText;
+        this.status = other.status;
+        this.title = other.title;
+        this.detail = other.detail;
+        this.lazyDetail = other.lazyDetail;
+        this.instance = other.instance;
+        this.instanceText = other.instanceText;
+        this.extensions = other.hasExtensions() ? new ExtensionMembers(other.extensions) : null;
+    }
+
+    /**
+     * <p>Resets this problem to the state of a problem constructed with {@link #Problem()}, so that it can be reused
+     * instead of allocating a new one. The extension members are cleared, but kept for reuse.</p>
+     * <p>If you extend this class with fields of your own, override this to reset them, and call
+     * {@code super.reset()}.</p>
+     * @see ProblemPool
+     */
+    public void reset() {
+        this.type = ABOUT_BLANK;
+        this.typeText = null;
+        this.status = NO_STATUS;
+        this.title = null;
+        this.detail = null;
+        this.lazyDetail = null;
+        this.instance = null;
+        this.instanceText = null;
+        if(extensions != null) {
+            extensions.clear();
+        }
+    }
+
+    /**
+     * <p>Copies the provided problem into this one, without allocating a new problem as {@link #Problem(Problem)}
+     * does. The extension members of this problem are replaced by copies of the provided ones. Copied texts, e.g.
+     * a type set with {@link #setTypeText(CharSequence)}, are shared.</p>
+     * <p>If you extend this class with fields of your own, override this to copy them, and call
+     * {@code super.copyFrom(other)}.</p>
+     * @param other problem to copy.
+     * @see ProblemPool
+     */
+    public void copyFrom(Problem other) {
+        if(other == this) {
+            return;
+        }
+        this.type = other.type;
+        this.typeText = other.typeText;
         this.status = other.status;
         this.title = other.title;
         this.detail = other.detail;
+        this.lazyDetail = other.lazyDetail;
         this.instance = other.instance;
+        this.instanceText = other.instanceText;
+        if(other.hasExtensions()) {
+            getExtensions().copyFrom(other.extensions);
+        } else if(extensions != null) {
+            extensions.clear();
+        }
     }
 
     /**
@@ -103,7 +212,46 @@ public class Problem {
      * @throws NullPointerException if type is null
      */
     public void setType(URI type) throws NullPointerException {
-        this.type = Objects.requireNonNull(type, i18n.getString("error.type.nonnull"));
+        this.type = checkType(type);
+        this.typeText = null;
+    }
+
+    /**
+     * Sets the problem type from text. The text is written as is, and must not be changed while the problem is in
+     * use. It is parsed when set, unless its content equals one of the last four types this problem parsed, even
+     * after a {@link #reset()}. Use this with constant types on paths which must not allocate, whether they are
+     * Strings or other text.
+     * @param type the problem type, a URI reference.
+     * @throws NullPointerException if type is null
+     * @throws IllegalArgumentException if type is not a URI reference.
+     * @see #reset()
+     */
+    public void setTypeText(CharSequence type) throws NullPointerException {
+        checkType(type);
+        this.type = parseType(type);
+        this.typeText = type;
+    }
+
+    /**
+     * Parses a type, or looks it up among the types parsed recently. Compares contents instead of identities, as
+     * text other than a String may be changed between uses.
+     */
+    private URI parseType(CharSequence type) {
+        if(parsedTypeTexts == null) {
+            parsedTypeTexts = new String[PARSED_TYPES];
+            parsedTypes = new URI[PARSED_TYPES];
+        }
+        for(int i = 0; i < PARSED_TYPES; i++) {
+            if(TextEncoder.contentEquals(parsedTypeTexts[i], type)) {
+                return parsedTypes[i];
+            }
+        }
+        String text = type.toString();
+        URI parsed = URI.create(text);
+        parsedTypeTexts[nextParsedType] = text;
+        parsedTypes[nextParsedType] = parsed;
+        nextParsedType = (nextParsedType + 1) % PARSED_TYPES;
+        return parsed;
     }
 
     /**
@@ -111,19 +259,43 @@ public class Problem {
      * @return the problem status code (HTTP Status Code)
      */
     public Integer getStatus() {
+        return status == NO_STATUS ? null : Integer.valueOf(status);
+    }
+
+    /**
+     * Gets the problem status code (HTTP Status Code) without boxing.
+     * @return the problem status code (HTTP Status Code), or {@link #NO_STATUS} if none is set.
+     * @see #hasStatus()
+     */
+    public int getStatusAsInt() {
         return status;
     }
 
+    /**
+     * Checks if a problem status code (HTTP Status Code) is set.
+     * @return true if a status is set.
+     */
+    public boolean hasStatus() {
+        return status != NO_STATUS;
+    }
+
     /**
      * Sets the problem status code (HTTP Status Code). If set, this must be the same as the one used in your HTTP Response.
-     * @param status the problem status code (HTTP Status Code).
+     * @param status the problem status code (HTTP Status Code), or null to remove it.
      * @see #findStatusPhrase(int)
      */
     public void setStatus(Integer status) {
-        if(status != null && (status < 100 || status > 599)) {
-            throw new InvalidParameterException(i18n.getString("error.status.inrange"));
-        }
-        this.status = status;
+        this.status = status == null ? NO_STATUS : checkStatus(status.intValue());
+    }
+
+    /**
+     * Sets the problem status code (HTTP Status Code) without boxing. If set, this must be the same as the one used
+     * in your HTTP Response.
+     * @param status the problem status code (HTTP Status Code), or {@link #NO_STATUS} to remove it.
+     * @see #findStatusPhrase(int)
+     */
+    public void setStatus(int status) {
+        this.status = status == NO_STATUS ? NO_STATUS : checkStatus(status);
     }
 
     /**
@@ -144,11 +316,13 @@ public class Problem {
     }
 
     /**
-     * Gets the problem detail.
+     * Gets the problem detail. If the detail was set with {@link #setLazyDetail(LazyText)}, it is produced on each
+     * call.
      * @return the problem detail.
+     * @throws java.io.UncheckedIOException if the lazy detail throws.
      */
     public String getDetail() {
-        return detail;
+        return lazyDetail == null ? detail : LazyText.toString(lazyDetail);
     }
 
     /**
@@ -157,14 +331,45 @@ public class Problem {
      */
     public void setDetail(String detail) {
         this.detail = detail;
+        this.lazyDetail = null;
+    }
+
+    /**
+     * Sets the problem detail from lazy text, which is only produced when the problem is written, and is streamed
+     * into the output in the chunks it is appended in. Use this for large details, which should neither be built up
+     * front nor be copied, and which are not needed at all if the problem is dropped.
+     * @param detail the problem detail, may be null.
+     * @see LazyText
+     */
+    public void setLazyDetail(LazyText detail) {
+        this.detail = null;
+        this.lazyDetail = detail;
     }
 
     /**
-     * Gets the problem instance.
+     * Checks if the detail was set with {@link #setLazyDetail(LazyText)}.
+     * @return true if the detail is lazy text.
+     */
+    public boolean hasLazyDetail() {
+        return lazyDetail != null;
+    }
+
+    /**
+     * Gets the problem instance. If the instance was set with {@link #setInstanceText(CharSequence)}, it is parsed on
+     * the first call, and again only once text with other content is set.
      * @return the problem instance.
+     * @throws IllegalArgumentException if the instance was set from text which is not a URI reference.
      */
     public URI getInstance() {
-        return instance;
+        if(instanceText == null) {
+            return instance;
+        }
+        if(!TextEncoder.contentEquals(parsedInstanceText, instanceText)) {
+            String text = instanceText.toString();
+            parsedInstance = URI.create(text);
+            parsedInstanceText = text;
+        }
+        return parsedInstance;
     }
 
     /**
@@ -173,12 +378,75 @@ public class Problem {
      */
     public void setInstance(URI instance) {
         this.instance = instance;
+        this.instanceText = null;
+    }
+
+    /**
+     * Sets the problem instance from text, without creating a {@link URI}. The text is written as is, and must not
+     * be changed while the problem is in use.
+     * @param instance the problem instance, a URI reference which is not validated, may be null.
+     */
+    public void setInstanceText(CharSequence instance) {
+        this.instanceText = instance;
+        this.instance = null;
+    }
+
+    /**
+     * Gets the instance for reporting, without throwing. Text which is not a URI reference is reported as null.
+     */
+    URI instanceOrNull() {
+        if(instanceText == null) {
+            return instance;
+        }
+        try {
+            return getInstance();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the type as written.
+     */
+    private CharSequence typeText() {
+        return typeText == null ? type.toString() : typeText;
+    }
+
+    /**
+     * Gets the instance as written, may be null.
+     */
+    private CharSequence instanceText() {
+        if(instanceText != null) {
+            return instanceText;
+        }
+        return instance == null ? null : instance.toString();
+    }
+
+    /**
+     * Gets the extension members (RFC 9457 - 3.2.), which are written after the RFC 9457 members. They are created
+     * on first use.
+     * @return the extension members, never null.
+     * @see #writeExtensions(MemberWriter)
+     */
+    public ExtensionMembers getExtensions() {
+        if(extensions == null) {
+            extensions = new ExtensionMembers(true);
+        }
+        return extensions;
+    }
+
+    /**
+     * Checks if any extension members are set, without creating them.
+     * @return true if there is at least one extension member.
+     */
+    public boolean hasExtensions() {
+        return extensions != null && !extensions.isEmpty();
     }
 
     /**
      * Helper for retrieving the HTTP Status Phrase for a HTTP Status Code.
      * @param statusCode the HTTP Status Code.
-     * @return the HTTP Status Phrase in English, may be null.
+     * @return the HTTP Status Phrase in English, null if the status code is unknown.
      * @see #findStatusPhrase(int, Locale)
      */
     public static String findStatusPhrase(int statusCode) {
@@ -186,15 +454,15 @@ public class Problem {
     }
 
     /**
-     * Helper for retrieving the localised HTTP Status Phrase for a HTTP Status Code.
+     * Helper for retrieving the localised HTTP Status Phrase for a HTTP Status Code. Phrases are held in tables
+     * which are built once per language, so this does not allocate.
      * @param statusCode the HTTP Status Code.
      * @param locale the desired language.
-     * @return the HTTP Status Phrase, may be null.
+     * @return the HTTP Status Phrase, null if the status code is unknown.
      * @see #findStatusPhrase(int)
      */
     public static String findStatusPhrase(int statusCode, Locale locale) {
-        ResourceBundle strings = ResourceBundle.getBundle("de.turnertech.problemdetails.i18n", locale);
-        return strings.getString(Integer.toString(statusCode));
+        return StatusPhrases.find(statusCode, locale);
     }
     
     /**
@@ -225,52 +493,231 @@ public class Problem {
     }
 
     /**
-     * Writes the Problem to the supplied stream in JSON format using the supplied Charset.
+     * Writes the Problem to the supplied stream in JSON format using the supplied Charset. Strings are escaped, and
+     * characters which the Charset cannot represent are written as unicode escapes. The stream is not closed.
      * @param outputStream the stream to write to.
      * @param charset the Charset to use.
      * @throws IOException if there are problems with extending the JSON.
      */
     public void toJson(OutputStream outputStream, Charset charset) throws IOException {
-        try(PrintWriter printWriter = new PrintWriter(outputStream)) {
-            printWriter.write("{\"type\":\"");
-            printWriter.write(type.toString());
-            printWriter.write("\"");
-
-            if(title != null) {
-                printWriter.write(",\"title\":\"");
-                printWriter.write(title);
-                printWriter.write("\"");
-            }
-            if(status != null) {
-                printWriter.write(",\"status\":\"");
-                printWriter.write(Integer.toString(status));
-                printWriter.write("\"");
-            }
-            if(detail != null) {
-                printWriter.write(",\"detail\":\"");
-                printWriter.write(detail);
-                printWriter.write("\"");
-            }
-            if(instance != null) {
-                printWriter.write(",\"instance\":\"");
-                printWriter.write(instance.toString());
-                printWriter.write("\"");
-            }
+        writeJson(JsonEncoder.acquire(outputStream, charset));
+    }
+
+    /**
+     * Writes the Problem to the supplied buffer in JSON format using UTF-8.
+     * @param byteBuffer the buffer to write to, its position is advanced by the number of bytes written.
+     * @throws IOException if there are problems with extending the JSON.
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space remaining.
+     * @see #jsonLength(Charset)
+     */
+    public void toJson(ByteBuffer byteBuffer) throws IOException {
+        toJson(byteBuffer, StandardCharsets.UTF_8);
+    }
 
-            printWriter.flush();
+    /**
+     * Writes the Problem to the supplied buffer in JSON format using the supplied Charset. The JSON is encoded in
+     * chunks of the buffer of a pooled encoder, so that no intermediate array of the full size is created. The
+     * buffer may be a direct buffer.
+     * @param byteBuffer the buffer to write to, its position is advanced by the number of bytes written.
+     * @param charset the Charset to use.
+     * @throws IOException if there are problems with extending the JSON.
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space remaining.
+     * @see #jsonLength(Charset)
+     */
+    public void toJson(ByteBuffer byteBuffer, Charset charset) throws IOException {
+        JsonEncoder encoder = JsonEncoder.acquire(charset);
+        encoder.target(byteBuffer);
+        writeJson(encoder);
+    }
 
+    /**
+     * Writes the Problem to the supplied channel in JSON format using UTF-8.
+     * @param channel the channel to write to.
+     * @throws IOException if the channel throws or there are problems with extending the JSON.
+     * @see #toJson(WritableByteChannel, Charset)
+     */
+    public void toJson(WritableByteChannel channel) throws IOException {
+        toJson(channel, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the Problem to the supplied channel in JSON format using the supplied Charset. The channel is written
+     * to in chunks of the buffer of a pooled encoder, and each write is repeated until all bytes are written, so
+     * the channel should be in blocking mode. The channel is not closed.
+     * @param channel the channel to write to.
+     * @param charset the Charset to use.
+     * @throws IOException if the channel throws or there are problems with extending the JSON.
+     */
+    public void toJson(WritableByteChannel channel, Charset charset) throws IOException {
+        JsonEncoder encoder = JsonEncoder.acquire(charset);
+        encoder.target(channel);
+        writeJson(encoder);
+    }
+
+    /**
+     * Computes the exact number of bytes of the JSON representation in the supplied Charset, e.g. for a
+     * Content-Length header or to size a buffer for {@link #toJson(ByteBuffer, Charset)}. The JSON is encoded, but
+     * the bytes are only counted.
+     * @param charset the Charset to use.
+     * @return the number of bytes {@link #toJson(OutputStream, Charset)} writes.
+     * @throws IOException if there are problems with extending the JSON.
+     */
+    public long jsonLength(Charset charset) throws IOException {
+        return writeJson(JsonEncoder.acquire(charset));
+    }
+
+    private long writeJson(JsonEncoder encoder) throws IOException {
+        return writeJson(encoder, title);
+    }
+
+    /**
+     * Writes the JSON object to an encoder, and closes the encoder.
+     * @param encoder the encoder to write to.
+     * @param title the title to write instead of the title of this problem.
+     * @return the number of bytes written.
+     * @throws IOException if the target throws or there are problems with extending the JSON.
+     */
+    long writeJson(JsonEncoder encoder, String title) throws IOException {
+        long start = encoder.hasTarget() ? Instrumentation.start() : Instrumentation.NOT_TIMED;
+        long written;
+        try {
+            writeJsonObject(encoder, title);
+        } finally {
+            written = encoder.close();
+        }
+        Instrumentation.written(start, this, MEDIA_TYPE_JSON, written);
+        return written;
+    }
+
+    /**
+     * Writes the JSON object to an open encoder, which is not closed.
+     * @param encoder the encoder to write to.
+     * @throws IOException if the target throws or there are problems with extending the JSON.
+     */
+    void writeJsonObject(JsonEncoder encoder) throws IOException {
+        writeJsonObject(encoder, title);
+    }
+
+    private void writeJsonObject(JsonEncoder encoder, String title) throws IOException {
+        encoder.writeHead(typeText(), title, status);
+        if(lazyDetail != null) {
+            encoder.writeDetail(lazyDetail);
+        }
+        encoder.writeOccurrence(detail, instanceText());
+        writeExtensions(encoder);
+
+        if(EXTENDS_JSON.get(getClass())) {
+            encoder.flush();
+            extendJson(encoder.targetStream(), encoder.charset());
+        }
+
+        encoder.writeAscii('}');
+    }
+
+    /**
+     * <p>Writes the extension members, in JSON and in XML. By default this writes {@link #getExtensions()}. Override
+     * this to write members from fields of a subclass, without building them up front. The writer takes care of
+     * separators, escaping and the target charset.</p>
+     * <p>In XML, members are written as elements in the problem namespace, after the RFC 9457 elements.</p>
+     * @param memberWriter the writer to write the members to.
+     * @throws IOException if the writer throws.
+     */
+    protected void writeExtensions(MemberWriter memberWriter) throws IOException {
+        if(extensions != null) {
+            extensions.writeTo(memberWriter);
         }
+    }
+
+    /**
+     * Gets the Problem in CBOR format (RFC 8949).
+     * @return the CBOR bytes.
+     * @throws IOException if there are problems with extending the CBOR.
+     * @see #toCbor(OutputStream)
+     */
+    public byte[] toCbor() throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            toCbor(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * <p>Writes the Problem to the supplied stream in CBOR format (RFC 8949). The problem is written as a map, with
+     * the integer keys 1 (type), 2 (title), 3 (status), 4 (detail) and 5 (instance) for the RFC 9457 members, and
+     * text keys for the extension members. Type and instance are tagged as URIs. The stream is not closed.</p>
+     * <p>Only {@link #writeExtensions(MemberWriter)} is called, {@link #extendJson(OutputStream, Charset)} and
+     * {@link #extendXml(XMLStreamWriter, Charset)} do not apply to CBOR.</p>
+     * @param outputStream the stream to write to.
+     * @throws IOException if the stream throws or there are problems with extending the CBOR.
+     */
+    public void toCbor(OutputStream outputStream) throws IOException {
+        CborEncoder encoder = CborEncoder.acquire();
+        encoder.target(outputStream);
+        writeCbor(encoder);
+    }
+
+    /**
+     * Writes the Problem to the supplied buffer in CBOR format. The buffer may be a direct buffer.
+     * @param byteBuffer the buffer to write to, its position is advanced by the number of bytes written.
+     * @throws IOException if there are problems with extending the CBOR.
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space remaining.
+     * @see #cborLength()
+     * @see #toCbor(OutputStream)
+     */
+    public void toCbor(ByteBuffer byteBuffer) throws IOException {
+        CborEncoder encoder = CborEncoder.acquire();
+        encoder.target(byteBuffer);
+        writeCbor(encoder);
+    }
+
+    /**
+     * Computes the exact number of bytes of the CBOR representation, e.g. for a Content-Length header or to size a
+     * buffer for {@link #toCbor(ByteBuffer)}.
+     * @return the number of bytes {@link #toCbor(OutputStream)} writes.
+     * @throws IOException if there are problems with extending the CBOR.
+     */
+    public long cborLength() throws IOException {
+        return writeCbor(CborEncoder.acquire());
+    }
 
-        extendJson(outputStream, charset);
+    private long writeCbor(CborEncoder encoder) throws IOException {
+        return writeCbor(encoder, title);
+    }
 
-        outputStream.write("}".getBytes(charset));
+    /**
+     * Writes the CBOR map to an encoder, and closes the encoder.
+     * @param encoder the encoder to write to.
+     * @param title the title to write instead of the title of this problem.
+     * @return the number of bytes written.
+     * @throws IOException if the target throws or there are problems with extending the CBOR.
+     */
+    long writeCbor(CborEncoder encoder, String title) throws IOException {
+        long start = encoder.hasTarget() ? Instrumentation.start() : Instrumentation.NOT_TIMED;
+        long written;
+        try {
+            encoder.writeHead(typeText(), title, status);
+            if(lazyDetail != null) {
+                encoder.writeDetail(lazyDetail);
+            }
+            encoder.writeOccurrence(detail, instanceText());
+            writeExtensions(encoder);
+            encoder.writeEnd();
+        } finally {
+            written = encoder.close();
+        }
+        Instrumentation.written(start, this, MEDIA_TYPE_CBOR, written);
+        return written;
     }
 
     /**
      * <p>Override this if you wish to extend the JSON response. This function is called directly before
      * closing the problem element. Pay carefull attention to the namespaces!</p>
+     * <p>Prefer {@link #writeExtensions(MemberWriter)}, which needs no flush of the internal buffer and writes both
+     * JSON and XML.</p>
+     * <p>As the "type" member is always written first, extensions must start with a ",". The stream belongs to the
+     * caller and must not be closed.</p>
      * @param outputStream the stream to write to
-     * @param charset the charset this XML is being written in
+     * @param charset the charset this JSON is being written in
      * @return true if an element was inserted (so that the caller can decide whether or not to write a ",")
      */
     protected boolean extendJson(OutputStream outputStream, Charset charset) {
@@ -296,17 +743,128 @@ public class Problem {
     }
     
     /**
-     * Writes the Problem to the supplied stream in XML format using the supplied charset.
+     * <p>Writes the Problem to the supplied stream in XML format using the supplied charset. The stream is not
+     * closed.</p>
+     * <p>If {@link #extendXml(XMLStreamWriter, Charset)} is not overridden, the fixed RFC 9457 element set is
+     * written directly, without creating an {@link XMLStreamWriter}. Otherwise a writer is created from a pooled,
+     * namespace repairing {@link XMLOutputFactory}.</p>
      * @param outputStream to write to.
      * @param charset to write using.
      * @param writeStartDocument to indicate if the xml start document should also be written.
      * @throws XMLStreamException if there are problems with extending the XML.
      */
     public void toXml(OutputStream outputStream, Charset charset, boolean writeStartDocument) throws XMLStreamException {
-        XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
-        outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
-        XMLStreamWriter xmlStreamWriter = outputFactory.createXMLStreamWriter(outputStream, charset.toString());
-        toXml(xmlStreamWriter, charset, writeStartDocument);
+        writeXml(XmlEncoder.acquire(outputStream, charset), writeStartDocument);
+    }
+
+    /**
+     * Writes the Problem to the supplied buffer in XML format using the supplied charset. The XML is encoded in
+     * chunks of the buffer of a pooled encoder, so that no intermediate array of the full size is created. The
+     * buffer may be a direct buffer.
+     * @param byteBuffer the buffer to write to, its position is advanced by the number of bytes written.
+     * @param charset to write using.
+     * @param writeStartDocument to indicate if the xml start document should also be written.
+     * @throws XMLStreamException if there are problems with extending the XML.
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space remaining.
+     * @see #xmlLength(Charset, boolean)
+     */
+    public void toXml(ByteBuffer byteBuffer, Charset charset, boolean writeStartDocument) throws XMLStreamException {
+        XmlEncoder encoder = XmlEncoder.acquire(charset);
+        encoder.target(byteBuffer);
+        writeXml(encoder, writeStartDocument);
+    }
+
+    /**
+     * Writes the Problem to the supplied channel in XML format using the supplied charset. The channel is written
+     * to in chunks of the buffer of a pooled encoder, and each write is repeated until all bytes are written, so
+     * the channel should be in blocking mode. The channel is not closed.
+     * @param channel the channel to write to.
+     * @param charset to write using.
+     * @param writeStartDocument to indicate if the xml start document should also be written.
+     * @throws XMLStreamException if the channel throws or there are problems with extending the XML.
+     */
+    public void toXml(WritableByteChannel channel, Charset charset, boolean writeStartDocument) throws XMLStreamException {
+        XmlEncoder encoder = XmlEncoder.acquire(charset);
+        encoder.target(channel);
+        writeXml(encoder, writeStartDocument);
+    }
+
+    /**
+     * Computes the exact number of bytes of the XML representation in the supplied charset, e.g. for a
+     * Content-Length header or to size a buffer for {@link #toXml(ByteBuffer, Charset, boolean)}. The XML is
+     * encoded, but the bytes are only counted. If {@link #extendXml(XMLStreamWriter, Charset)} is overridden, the
+     * length is only exact if the extension always writes the same output, i.e. does not rely on generated
+     * namespace prefixes.
+     * @param charset to write using.
+     * @param writeStartDocument to indicate if the xml start document should also be counted.
+     * @return the number of bytes {@link #toXml(OutputStream, Charset, boolean)} writes.
+     * @throws XMLStreamException if there are problems with extending the XML.
+     */
+    public long xmlLength(Charset charset, boolean writeStartDocument) throws XMLStreamException {
+        return writeXml(XmlEncoder.acquire(charset), writeStartDocument);
+    }
+
+    private long writeXml(XmlEncoder encoder, boolean writeStartDocument) throws XMLStreamException {
+        return writeXml(encoder, writeStartDocument, title);
+    }
+
+    /**
+     * Writes the problem element to an encoder, and closes the encoder.
+     * @param encoder the encoder to write to.
+     * @param writeStartDocument to indicate if the xml start document should also be written.
+     * @param title the title to write instead of the title of this problem.
+     * @return the number of bytes written.
+     * @throws XMLStreamException if the target throws or there are problems with extending the XML.
+     */
+    long writeXml(XmlEncoder encoder, boolean writeStartDocument, String title) throws XMLStreamException {
+        long start = encoder.hasTarget() ? Instrumentation.start() : Instrumentation.NOT_TIMED;
+        try {
+            long written;
+            try {
+                writeXmlElement(encoder, writeStartDocument, title);
+            } finally {
+                written = encoder.close();
+            }
+            Instrumentation.written(start, this, MEDIA_TYPE_XML, written);
+            return written;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    /**
+     * Writes the problem element to an open encoder, which is not closed. If
+     * {@link #extendXml(XMLStreamWriter, Charset)} is overridden, a StAX writer is created on top of the encoder,
+     * so that the encoder still takes care of the charset.
+     * @param encoder the encoder to write to.
+     * @param writeStartDocument to indicate if the xml start document should also be written.
+     * @throws IOException if the target throws.
+     * @throws XMLStreamException if there are problems with extending the XML.
+     */
+    void writeXmlElement(XmlEncoder encoder, boolean writeStartDocument) throws IOException, XMLStreamException {
+        writeXmlElement(encoder, writeStartDocument, title);
+    }
+
+    private void writeXmlElement(XmlEncoder encoder, boolean writeStartDocument, String title) throws IOException, XMLStreamException {
+        if(EXTENDS_XML.get(getClass())) {
+            XMLStreamWriter xmlStreamWriter = XmlOutputFactoryHolder.createXMLStreamWriter(encoder.targetWriter());
+            writeXml(xmlStreamWriter, encoder.charset(), writeStartDocument, title);
+            xmlStreamWriter.flush();
+            xmlStreamWriter.close();
+            return;
+        }
+        if(writeStartDocument) {
+            encoder.writeStartDocument();
+        }
+        encoder.writeHead(typeText(), title);
+        if(lazyDetail != null) {
+            encoder.writeDetail(lazyDetail);
+        }
+        encoder.writeDetail(detail);
+        encoder.writeStatus(status);
+        encoder.writeInstance(instanceText());
+        writeExtensions(encoder);
+        encoder.writeAscii(XmlEncoder.PROBLEM_END);
     }
     
     /**
@@ -317,6 +875,12 @@ public class Problem {
      * @throws XMLStreamException if there are problems with extending the XML.
      */
     public void toXml(XMLStreamWriter xmlStreamWriter, Charset charset, boolean writeStartDocument) throws XMLStreamException {
+        long start = Instrumentation.start();
+        writeXml(xmlStreamWriter, charset, writeStartDocument, title);
+        Instrumentation.written(start, this, MEDIA_TYPE_XML, -1);
+    }
+
+    private void writeXml(XMLStreamWriter xmlStreamWriter, Charset charset, boolean writeStartDocument, String title) throws XMLStreamException {
         if(writeStartDocument) {
             xmlStreamWriter.writeStartDocument(charset.toString(), "1.0");
         }
@@ -333,17 +897,15 @@ public class Problem {
             prefix = "p";
             int i = 0;
             while(xmlStreamWriter.getNamespaceContext().getNamespaceURI(prefix) != null) {
-                prefix = "p" + Integer.toString(i);
+                prefix = "p" + Integer.toString(i++);
             }
             xmlStreamWriter.writeStartElement(prefix, PROBLEM_STRING, NAMESPACE);
             xmlStreamWriter.writeNamespace(prefix, NAMESPACE);
         }
         
-        if(type != null) {
-            xmlStreamWriter.writeStartElement(NAMESPACE, PROBLEM_STRING);
-            xmlStreamWriter.writeCharacters(type.toString());
-            xmlStreamWriter.writeEndElement();
-        }
+        xmlStreamWriter.writeStartElement(NAMESPACE, "type");
+        xmlStreamWriter.writeCharacters(typeText().toString());
+        xmlStreamWriter.writeEndElement();
 
         if(title != null) {
             xmlStreamWriter.writeStartElement(NAMESPACE, "title");
@@ -351,23 +913,33 @@ public class Problem {
             xmlStreamWriter.writeEndElement();
         }
 
-        if(status != null) {
-            xmlStreamWriter.writeStartElement(NAMESPACE, "status");
-            xmlStreamWriter.writeCharacters(Integer.toString(status));
-            xmlStreamWriter.writeEndElement();
-        }
-
+        String detail = getDetail();
         if(detail != null) {
             xmlStreamWriter.writeStartElement(NAMESPACE, "detail");
             xmlStreamWriter.writeCharacters(detail);
             xmlStreamWriter.writeEndElement();
         }
 
+        if(status != NO_STATUS) {
+            xmlStreamWriter.writeStartElement(NAMESPACE, "status");
+            xmlStreamWriter.writeCharacters(Integer.toString(status));
+            xmlStreamWriter.writeEndElement();
+        }
+
+        CharSequence instance = instanceText();
         if(instance != null) {
             xmlStreamWriter.writeStartElement(NAMESPACE, "instance");
             xmlStreamWriter.writeCharacters(instance.toString());
             xmlStreamWriter.writeEndElement();
         }
+
+        try {
+            writeExtensions(new StaxMemberWriter(xmlStreamWriter));
+        } catch (StaxMemberWriter.StaxException e) {
+            throw e.getCause();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
         
         extendXml(xmlStreamWriter, charset);
         
@@ -390,6 +962,266 @@ public class Problem {
         // Called before closing the last element.
     }
 
+    /**
+     * Reads a Problem from the supplied stream in JSON format. The stream must be encoded in UTF-8, is read in a
+     * single pass and is not closed. Members of the wrong type are ignored (RFC 9457 - 3.1.). The document is not
+     * buffered, but each string value is held in memory in full, unless the detail is streamed to
+     * {@link #detailSink()}.
+     * @param inputStream the stream to read from.
+     * @return the Problem.
+     * @throws IOException if the stream throws or does not contain a JSON object.
+     * @see #fromJson(InputStream, Supplier)
+     */
+    public static Problem fromJson(InputStream inputStream) throws IOException {
+        return fromJson(inputStream, Problem::new);
+    }
+
+    /**
+     * Reads a Problem from the supplied stream in JSON format, into a Problem created by the supplied factory.
+     * Unknown members are handed to {@link #readJsonExtension(String, Object)}.
+     * @param <T> the type of Problem to read.
+     * @param inputStream the stream to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws IOException if the stream throws or does not contain a JSON object.
+     */
+    public static <T extends Problem> T fromJson(InputStream inputStream, Supplier<T> factory) throws IOException {
+        T problem = factory.get();
+        JsonDecoder.decode(inputStream, problem);
+        return problem;
+    }
+
+    /**
+     * Reads a Problem from the remaining bytes of the supplied buffer in JSON format. The buffer must be encoded in
+     * UTF-8. On return, the position of the buffer is directly after the JSON object.
+     * @param byteBuffer the buffer to read from.
+     * @return the Problem.
+     * @throws IOException if the buffer does not contain a JSON object.
+     * @see #fromJson(ByteBuffer, Supplier)
+     */
+    public static Problem fromJson(ByteBuffer byteBuffer) throws IOException {
+        return fromJson(byteBuffer, Problem::new);
+    }
+
+    /**
+     * Reads a Problem from the remaining bytes of the supplied buffer in JSON format, into a Problem created by the
+     * supplied factory. Unknown members are handed to {@link #readJsonExtension(String, Object)}.
+     * @param <T> the type of Problem to read.
+     * @param byteBuffer the buffer to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws IOException if the buffer does not contain a JSON object.
+     */
+    public static <T extends Problem> T fromJson(ByteBuffer byteBuffer, Supplier<T> factory) throws IOException {
+        T problem = factory.get();
+        JsonDecoder.decode(byteBuffer, problem);
+        return problem;
+    }
+
+    /**
+     * <p>Override this if you wish to read extension members from JSON. This function is called for each member
+     * which is not defined by RFC 9457, in document order.</p>
+     * <p>Values are passed as String, Long, Double, Boolean, null, {@link java.util.List} (for arrays) or
+     * {@link java.util.Map} (for objects).</p>
+     * <p>By default, members are added to {@link #getExtensions()}. Members with names which
+     * {@link ExtensionMembers} does not accept are ignored.</p>
+     * @param name the name of the member.
+     * @param value the value of the member.
+     */
+    protected void readJsonExtension(String name, Object value) {
+        if(ExtensionMembers.isValidName(name)) {
+            getExtensions().putJson(name, value);
+        }
+    }
+
+    /**
+     * Reads a Problem from the supplied stream in CBOR format, as written by {@link #toCbor(OutputStream)}. Maps of
+     * definite and indefinite length are accepted, and tags are ignored. The stream is not closed, but may have been
+     * read beyond the end of the map. Members of the wrong type are ignored (RFC 9457 - 3.1.).
+     * @param inputStream the stream to read from.
+     * @return the Problem.
+     * @throws IOException if the stream throws or does not contain a CBOR map.
+     * @see #fromCbor(InputStream, Supplier)
+     */
+    public static Problem fromCbor(InputStream inputStream) throws IOException {
+        return fromCbor(inputStream, Problem::new);
+    }
+
+    /**
+     * Reads a Problem from the supplied stream in CBOR format, into a Problem created by the supplied factory.
+     * Members with text keys are handed to {@link #readCborExtension(String, Object)}.
+     * @param <T> the type of Problem to read.
+     * @param inputStream the stream to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws IOException if the stream throws or does not contain a CBOR map.
+     */
+    public static <T extends Problem> T fromCbor(InputStream inputStream, Supplier<T> factory) throws IOException {
+        T problem = factory.get();
+        CborDecoder.decode(inputStream, problem);
+        return problem;
+    }
+
+    /**
+     * Reads a Problem from the remaining bytes of the supplied buffer in CBOR format. On return, the position of the
+     * buffer is directly after the map.
+     * @param byteBuffer the buffer to read from.
+     * @return the Problem.
+     * @throws IOException if the buffer does not contain a CBOR map.
+     * @see #fromCbor(ByteBuffer, Supplier)
+     */
+    public static Problem fromCbor(ByteBuffer byteBuffer) throws IOException {
+        return fromCbor(byteBuffer, Problem::new);
+    }
+
+    /**
+     * Reads a Problem from the remaining bytes of the supplied buffer in CBOR format, into a Problem created by the
+     * supplied factory. Members with text keys are handed to {@link #readCborExtension(String, Object)}.
+     * @param <T> the type of Problem to read.
+     * @param byteBuffer the buffer to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws IOException if the buffer does not contain a CBOR map.
+     */
+    public static <T extends Problem> T fromCbor(ByteBuffer byteBuffer, Supplier<T> factory) throws IOException {
+        T problem = factory.get();
+        CborDecoder.decode(byteBuffer, problem);
+        return problem;
+    }
+
+    /**
+     * <p>Override this if you wish to read extension members from CBOR. This function is called for each member
+     * with a text key, in map order.</p>
+     * <p>Values are passed as in {@link #readJsonExtension(String, Object)}, and additionally as byte[] for byte
+     * strings. Floating point values of any precision are passed as Double.</p>
+     * <p>By default, this calls {@link #readJsonExtension(String, Object)}.</p>
+     * @param name the name of the member.
+     * @param value the value of the member.
+     */
+    protected void readCborExtension(String name, Object value) {
+        readJsonExtension(name, value);
+    }
+
+    /**
+     * Reads a Problem from the supplied reader in XML format. The reader may be positioned at the start of the
+     * document, or anywhere before the problem element. On return it is positioned at the end of the problem
+     * element.
+     * @param xmlStreamReader the reader to read from.
+     * @return the Problem.
+     * @throws XMLStreamException if the reader throws or no problem element is found.
+     * @see #fromXml(XMLStreamReader, Supplier)
+     */
+    public static Problem fromXml(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        return fromXml(xmlStreamReader, Problem::new);
+    }
+
+    /**
+     * Reads a Problem from the supplied reader in XML format, into a Problem created by the supplied factory.
+     * Unknown elements are handed to {@link #readXmlExtension(XMLStreamReader)}.
+     * @param <T> the type of Problem to read.
+     * @param xmlStreamReader the reader to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws XMLStreamException if the reader throws or no problem element is found.
+     */
+    public static <T extends Problem> T fromXml(XMLStreamReader xmlStreamReader, Supplier<T> factory) throws XMLStreamException {
+        T problem = factory.get();
+        XmlDecoder.decode(xmlStreamReader, problem);
+        return problem;
+    }
+
+    /**
+     * Override this if you wish to read extension elements from XML. This function is called with the reader
+     * positioned at the start of each child element of the problem which is not defined by RFC 9457. It must
+     * return with the reader positioned at the matching end element. Pay carefull attention to the namespaces!
+     * <p>By default, elements in the problem namespace are added to {@link #getExtensions()}: as arrays if all of
+     * their child elements are named "i", as nested objects if they have other child elements and as strings
+     * otherwise. Elements in other namespaces are skipped.</p>
+     * @param xmlStreamReader the reader, positioned at the start element.
+     * @throws XMLStreamException if there are problems reading the XML.
+     */
+    protected void readXmlExtension(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        if(NAMESPACE.equals(xmlStreamReader.getNamespaceURI()) && ExtensionMembers.isValidName(xmlStreamReader.getLocalName())) {
+            XmlDecoder.readExtension(xmlStreamReader, getExtensions());
+        } else {
+            XmlDecoder.skipElement(xmlStreamReader);
+        }
+    }
+
+    /**
+     * <p>Override this to stream a large detail while reading, instead of holding it in memory as a String. It is
+     * called when the detail is found by {@link #fromJson(InputStream)}, {@link #fromXml(XMLStreamReader)} or a
+     * {@link ProblemValidator}, and the detail is appended to the returned sink in chunks as it is decoded. The
+     * detail of this problem is then left unset, e.g. to be set as {@link LazyText} from the sink.</p>
+     * <p>By default, this returns null, and the detail is set with {@link #setDetail(String)}.</p>
+     * @return the sink for the detail, or null.
+     */
+    protected Appendable detailSink() {
+        return null;
+    }
+
+    /**
+     * Validates a problem type.
+     * @param type the type to validate.
+     * @return the type.
+     * @throws NullPointerException if type is null.
+     */
+    static URI checkType(URI type) {
+        return Objects.requireNonNull(type, I18n.message("error.type.nonnull"));
+    }
+
+    /**
+     * Validates a problem type set from text.
+     * @param type the type to validate.
+     * @return the type.
+     * @throws NullPointerException if type is null.
+     */
+    static CharSequence checkType(CharSequence type) {
+        return Objects.requireNonNull(type, I18n.message("error.type.nonnull"));
+    }
+
+    /**
+     * Validates a problem status.
+     * @param status the status to validate.
+     * @return the status.
+     * @throws InvalidParameterException if status is not between 100 and 599.
+     */
+    static int checkStatus(int status) {
+        if(status < 100 || status > 599) {
+            throw new InvalidParameterException(I18n.message("error.status.inrange"));
+        }
+        return status;
+    }
+
+    /**
+     * Checks if a subclass of Problem, or one of its super classes below Problem, declares the supplied method.
+     * @param type the class to check.
+     * @param name the method name.
+     * @param parameterTypes the method parameter types.
+     * @return true if the method is overridden.
+     */
+    private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+        for(Class<?> c = type; c != Problem.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Check the super class
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets an error message.
+     * @param key the message key.
+     * @param arguments the message arguments.
+     * @return the formatted message.
+     */
+    static String message(String key, Object... arguments) {
+        return MessageFormat.format(I18n.message(key), arguments);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -397,11 +1229,15 @@ public class Problem {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((type == null) ? 0 : type.hashCode());
-        result = prime * result + ((status == null) ? 0 : status.hashCode());
+        // Hashed and compared as written, so that text is never parsed
+        result = prime * result + TextEncoder.hash(typeText());
+        result = prime * result + status;
         result = prime * result + ((title == null) ? 0 : title.hashCode());
         result = prime * result + ((detail == null) ? 0 : detail.hashCode());
-        result = prime * result + ((instance == null) ? 0 : instance.hashCode());
+        result = prime * result + ((lazyDetail == null) ? 0 : lazyDetail.hashCode());
+        CharSequence instanceText = instanceText();
+        result = prime * result + (instanceText == null ? 0 : TextEncoder.hash(instanceText));
+        result = prime * result + (hasExtensions() ? extensions.hashCode() : 0);
         return result;
     }
 
@@ -417,15 +1253,9 @@ public class Problem {
         if (getClass() != obj.getClass())
             return false;
         Problem other = (Problem) obj;
-        if (type == null) {
-            if (other.type != null)
-                return false;
-        } else if (!type.equals(other.type))
+        if (!TextEncoder.contentEquals(typeText(), other.typeText()))
             return false;
-        if (status == null) {
-            if (other.status != null)
-                return false;
-        } else if (!status.equals(other.status))
+        if (status != other.status)
             return false;
         if (title == null) {
             if (other.title != null)
@@ -437,10 +1267,13 @@ public class Problem {
                 return false;
         } else if (!detail.equals(other.detail))
             return false;
-        if (instance == null) {
-            if (other.instance != null)
-                return false;
-        } else if (!instance.equals(other.instance))
+        if (!Objects.equals(lazyDetail, other.lazyDetail))
+            return false;
+        if (!TextEncoder.contentEquals(instanceText(), other.instanceText()))
+            return false;
+        if (hasExtensions() != other.hasExtensions())
+            return false;
+        if (hasExtensions() && !extensions.equals(other.extensions))
             return false;
         return true;
     }
@@ -450,7 +1283,30 @@ public class Problem {
      */
     @Override
     public String toString() {
-        return "Problem [type=" + type + ", title=" + title + "]";
+        return "Problem [type=" + typeText() + ", title=" + title + "]";
+    }
+    
+    /**
+     * Lazily created pool of factories. The StAX API does not guarantee that a factory may be used by several
+     * threads at once, so each factory is only used by one thread at a time.
+     */
+    private static final class XmlOutputFactoryHolder {
+
+        private static final Pool<XMLOutputFactory> POOL = new Pool<>(() -> {
+            XMLOutputFactory factory = XMLOutputFactory.newFactory();
+            factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+            return factory;
+        });
+
+        private static XMLStreamWriter createXMLStreamWriter(Writer writer) throws XMLStreamException {
+            XMLOutputFactory factory = POOL.acquire();
+            try {
+                return factory.createXMLStreamWriter(writer);
+            } finally {
+                POOL.release(factory);
+            }
+        }
+
     }
     
 }
@@ -0,0 +1,347 @@
+package de.turnertech.problemdetails;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * <p>Counts occurrences of problems and hands one {@link ProblemSummary} per problem type and window to a sink,
+ * instead of one record per occurrence. This keeps a storm of identical errors from turning into a storm of log
+ * lines or telemetry events.</p>
+ *
+ * <pre>
+ * ProblemAggregator aggregator = new ProblemAggregator(Duration.ofSeconds(10), 8, summary -&gt; LOGGER.warning(summary.toProblem().toJson()));
+ * ...
+ * aggregator.record(problem);
+ * </pre>
+ *
+ * <p>Occurrences are grouped by type, title and status, the members which {@link ProblemTemplate} compares, as the
+ * detail and instance usually differ for each occurrence. Counting uses striped counters, and samples of the
+ * instances are taken with compare-and-set, so recording does not lock and, while a problem type keeps occurring,
+ * does not allocate.</p>
+ *
+ * <p>A window is flushed by the first call to {@link #record(Problem)} after it has ended, on the recording thread,
+ * or by {@link #flush()}, e.g. from a scheduled task so that quiet periods are reported too. The library starts no
+ * threads of its own. Problem types which did not occur during a window are dropped by its flush, so the aggregator
+ * only holds the types which recently occurred, however many distinct types are recorded over its lifetime. A
+ * recording thread which meets a flush deciding whether to drop its type spins until the decision is made.</p>
+ *
+ * <p>Instances may be shared between threads. The sink is called by one thread at a time.</p>
+ */
+public final class ProblemAggregator {
+
+    private final Map<URI, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long windowNanos;
+
+    private final int samples;
+
+    private final Consumer<ProblemSummary> sink;
+
+    private final AtomicLong windowStart;
+
+    private volatile Instant windowStartInstant;
+
+    /** Guards the sink, so that summaries of concurrent flushes are not interleaved. */
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    /**
+     * Constructs an aggregator.
+     * @param window the length of a window, zero or negative to flush only on {@link #flush()}.
+     * @param samples the number of distinct instances to sample per problem type and window.
+     * @param sink receives the summaries.
+     * @throws NullPointerException if window or sink is null.
+     * @throws IllegalArgumentException if samples is negative.
+     */
+    public ProblemAggregator(Duration window, int samples, Consumer<ProblemSummary> sink) {
+        if(samples < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.windowNanos = window.toNanos();
+        this.samples = samples;
+        this.sink = Objects.requireNonNull(sink);
+        this.windowStart = new AtomicLong(System.nanoTime());
+        this.windowStartInstant = Instant.now();
+    }
+
+    /**
+     * Records an occurrence of a problem. The detail is only read until one occurrence of its type in a window had
+     * one, so a lazy detail is rarely produced.
+     * @param problem the problem which occurred.
+     */
+    public void record(Problem problem) {
+        Entry entry;
+        do {
+            entry = entry(problem.getType(), problem.getTitle(), problem.getStatusAsInt(), problem);
+        } while(!enter(entry));
+        // Read once, before counting, as a flush replaces the samples before it reads the count
+        Samples current = entry.samples;
+        entry.count.increment();
+        entry.recording.decrement();
+        if(current.detail == null) {
+            current.detail = problem.getDetail();
+        }
+        if(!current.full) {
+            // An instance set from text is parsed, so only while samples are taken
+            current.sample(problem.instanceOrNull());
+        }
+        flushIfDue();
+    }
+
+    /**
+     * Records an occurrence of a problem from a template, without creating the problem.
+     * @param template the type, title and status of the problem.
+     * @param detail the detail, may be null.
+     * @param instance the instance, may be null.
+     */
+    public void record(ProblemTemplate template, String detail, URI instance) {
+        Entry entry;
+        do {
+            entry = entry(template.getType(), template.getTitle(), template.getStatusAsInt(), template);
+        } while(!enter(entry));
+        Samples current = entry.samples;
+        entry.count.increment();
+        entry.recording.decrement();
+        if(current.detail == null) {
+            current.detail = detail;
+        }
+        current.sample(instance);
+        flushIfDue();
+    }
+
+    /**
+     * Announces an occurrence on an entry before it is counted, so that a concurrent flush does not drop the entry
+     * and lose the count. The announcement is withdrawn by decrementing {@link Entry#recording} after counting.
+     * @return false if a flush dropped the entry, and the occurrence must be recorded on a new one.
+     */
+    private static boolean enter(Entry entry) {
+        entry.recording.increment();
+        int state;
+        while((state = entry.state) == Entry.RETIRING) {
+            // The flush decides within a few instructions
+            Thread.onSpinWait();
+        }
+        // A dropped entry keeps the announcement, as nothing reads it any more
+        return state == Entry.ACTIVE;
+    }
+
+    /**
+     * Hands a summary of every problem type which occurred since the last flush to the sink, and starts a new
+     * window. Problem types which did not occur since the last flush are dropped. Occurrences recorded while
+     * flushing are counted in this or the next window, but never lost.
+     */
+    public void flush() {
+        if(!flushing.compareAndSet(false, true)) {
+            // Another thread is flushing, and will report these occurrences
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            Instant start = windowStartInstant;
+            Instant end = Instant.now();
+            windowStart.set(now);
+            windowStartInstant = end;
+            for(Map.Entry<URI, Entry> chain : entries.entrySet()) {
+                boolean retired = false;
+                for(Entry entry = chain.getValue(); entry != null; entry = entry.next.get()) {
+                    long reported = entry.reported;
+                    if(entry.count.sum() <= reported) {
+                        retired |= retire(entry);
+                        continue;
+                    }
+                    Samples ended = entry.samples;
+                    entry.samples = new Samples(samples);
+                    // Counters are never reset, which could lose concurrent increments
+                    long total = entry.count.sum();
+                    entry.reported = total;
+                    sink.accept(new ProblemSummary(entry.template, total - reported, ended.detail, ended.instances(), start, end));
+                }
+                if(retired) {
+                    entries.computeIfPresent(chain.getKey(), (type, head) -> unlink(head));
+                }
+            }
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    private void flushIfDue() {
+        if(windowNanos <= 0) {
+            return;
+        }
+        long start = windowStart.get();
+        if(System.nanoTime() - start >= windowNanos && !flushing.get()) {
+            flush();
+        }
+    }
+
+    /**
+     * Retires an entry which did not occur during the window, unless an occurrence is being recorded on it.
+     * Recorders check the state after announcing an occurrence, see {@link #enter(Entry)}.
+     * @return true if the entry was retired.
+     */
+    private static boolean retire(Entry entry) {
+        entry.state = Entry.RETIRING;
+        // Announcements are read first, so that the count holds the occurrence of every withdrawn one
+        boolean idle = entry.recording.sum() == 0 && entry.count.sum() == entry.reported;
+        entry.state = idle ? Entry.RETIRED : Entry.ACTIVE;
+        return idle;
+    }
+
+    /**
+     * Removes the retired entries from a chain. Called within the map, which serialises it with appends.
+     * @return the new head, or null if all entries were retired.
+     */
+    private static Entry unlink(Entry head) {
+        while(head != null && head.state == Entry.RETIRED) {
+            head = head.next.get();
+        }
+        for(Entry entry = head; entry != null; entry = entry.next.get()) {
+            Entry next = entry.next.get();
+            while(next != null && next.state == Entry.RETIRED) {
+                next = next.next.get();
+            }
+            entry.next.set(next);
+        }
+        return head;
+    }
+
+    /**
+     * Finds the entry for a type, title and status, adding it if it does not exist yet. Entries of the same type
+     * are chained, as they rarely differ in title or status. Chains are only changed within the map, so that an
+     * append cannot race with a flush unlinking retired entries.
+     */
+    private Entry entry(URI type, String title, int status, Object source) {
+        Entry entry = find(entries.get(type), title, status);
+        while(entry == null) {
+            Entry created = new Entry(source instanceof ProblemTemplate ? (ProblemTemplate) source : ProblemTemplate.of((Problem) source), samples);
+            Entry head = entries.compute(type, (key, current) -> {
+                if(current == null) {
+                    return created;
+                }
+                if(find(current, title, status) == null) {
+                    Entry tail = current;
+                    while(tail.next.get() != null) {
+                        tail = tail.next.get();
+                    }
+                    tail.next.set(created);
+                }
+                return current;
+            });
+            // Null if a flush retired the entry in the meantime
+            entry = find(head, title, status);
+        }
+        return entry;
+    }
+
+    private static Entry find(Entry head, String title, int status) {
+        for(Entry entry = head; entry != null; entry = entry.next.get()) {
+            if(entry.state != Entry.RETIRED && entry.template.getStatusAsInt() == status && Objects.equals(entry.template.getTitle(), title)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counter and samples of one problem type.
+     */
+    private static final class Entry {
+
+        private static final int ACTIVE = 0;
+
+        /** While a flush decides whether to drop the entry. */
+        private static final int RETIRING = 1;
+
+        /** Dropped by a flush, as it did not occur during a window. */
+        private static final int RETIRED = 2;
+
+        private final ProblemTemplate template;
+
+        private final LongAdder count = new LongAdder();
+
+        /** Occurrences which are being recorded, see {@link ProblemAggregator#enter(Entry)}. */
+        private final LongAdder recording = new LongAdder();
+
+        private final AtomicReference<Entry> next = new AtomicReference<>();
+
+        /** Total reported by previous flushes, only accessed by the flushing thread. */
+        private long reported;
+
+        /** Replaced by each flush. */
+        private volatile Samples samples;
+
+        private volatile int state;
+
+        private Entry(ProblemTemplate template, int samples) {
+            this.template = template;
+            this.samples = new Samples(samples);
+        }
+
+    }
+
+    /**
+     * Samples of one problem type in one window.
+     */
+    private static final class Samples {
+
+        private final AtomicReferenceArray<URI> instances;
+
+        private volatile String detail;
+
+        /** Set once all slots are taken, so that later occurrences skip sampling with a single read. */
+        private volatile boolean full;
+
+        private Samples(int size) {
+            this.instances = new AtomicReferenceArray<>(size);
+            this.full = size == 0;
+        }
+
+        private void sample(URI instance) {
+            if(instance == null || full) {
+                return;
+            }
+            for(int i = 0; i < instances.length(); i++) {
+                URI sampled = instances.get(i);
+                if(sampled == null) {
+                    if(instances.compareAndSet(i, null, instance)) {
+                        if(i == instances.length() - 1) {
+                            full = true;
+                        }
+                        return;
+                    }
+                    sampled = instances.get(i);
+                }
+                if(instance.equals(sampled)) {
+                    return;
+                }
+            }
+        }
+
+        private List<URI> instances() {
+            List<URI> list = new ArrayList<>(instances.length());
+            for(int i = 0; i < instances.length(); i++) {
+                URI instance = instances.get(i);
+                if(instance == null) {
+                    break;
+                }
+                list.add(instance);
+            }
+            return Collections.unmodifiableList(list);
+        }
+
+    }
+
+}
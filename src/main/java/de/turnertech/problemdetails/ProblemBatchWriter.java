@@ -0,0 +1,218 @@
+package de.turnertech.problemdetails;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * <p>Writes many problems into a single output, as a JSON array, as newline delimited JSON or as a sequence of
+ * problem elements in a problems element. One encoder and its buffer are used for all problems, and output is
+ * written to the stream whenever the buffer is full, so memory use does not depend on the number of problems.</p>
+ *
+ * <p>RFC 9457 defines no element for several problems, so the problems element is in the namespace
+ * {@value #NAMESPACE} of this library. Each problem element in it declares {@value Problem#NAMESPACE} and is valid
+ * against the bundled RFC-9457.xsd on its own.</p>
+ *
+ * <pre>
+ * try(ProblemBatchWriter writer = ProblemBatchWriter.open(outputStream, StandardCharsets.UTF_8, Format.NDJSON)) {
+ *     writer.writeAll(problems);
+ * }
+ * </pre>
+ *
+ * <p>Closing the writer ends the array or sequence and writes all buffered output, but does not close the stream.
+ * Instances are not thread safe.</p>
+ */
+public final class ProblemBatchWriter implements Closeable, Flushable {
+
+    /**
+     * The namespace of the problems element written in {@link Format#XML}.
+     */
+    public static final String NAMESPACE = "urn:de:turnertech:problemdetails:problems";
+
+    private static final byte[] PROBLEMS_START = TextEncoder.ascii("<problems xmlns=\"" + NAMESPACE + "\">");
+
+    private static final byte[] PROBLEMS_END = TextEncoder.ascii("</problems>");
+
+    /**
+     * The output formats of a {@link ProblemBatchWriter}.
+     */
+    public enum Format {
+
+        /** A JSON array of problem objects. */
+        JSON_ARRAY("application/json"),
+
+        /** One problem object per line (newline delimited JSON). */
+        NDJSON("application/x-ndjson"),
+
+        /** An XML document with a problems root element, containing one problem element per problem. */
+        XML("application/xml");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * Gets the media type of the complete output.
+         * @return the media type.
+         */
+        public String getMediaType() {
+            return mediaType;
+        }
+
+    }
+
+    private final OutputStream outputStream;
+
+    private final Format format;
+
+    private final JsonEncoder jsonEncoder;
+
+    private final XmlEncoder xmlEncoder;
+
+    private int count;
+
+    private boolean closed;
+
+    private ProblemBatchWriter(OutputStream outputStream, Charset charset, Format format) {
+        this.outputStream = outputStream;
+        this.format = format;
+        if(format == Format.XML) {
+            this.jsonEncoder = null;
+            this.xmlEncoder = XmlEncoder.unshared(outputStream, charset);
+        } else {
+            this.jsonEncoder = JsonEncoder.unshared(outputStream, charset);
+            this.xmlEncoder = null;
+        }
+    }
+
+    /**
+     * Opens a writer and writes the start of the array or sequence.
+     * @param outputStream the stream to write to.
+     * @param charset the charset to write with.
+     * @param format the output format.
+     * @return the open writer.
+     * @throws IOException if the stream throws.
+     */
+    public static ProblemBatchWriter open(OutputStream outputStream, Charset charset, Format format) throws IOException {
+        Objects.requireNonNull(outputStream);
+        Objects.requireNonNull(charset);
+        ProblemBatchWriter writer = new ProblemBatchWriter(outputStream, charset, Objects.requireNonNull(format));
+        if(format == Format.JSON_ARRAY) {
+            writer.jsonEncoder.writeAscii('[');
+        } else if(format == Format.XML) {
+            writer.xmlEncoder.writeStartDocument();
+            writer.xmlEncoder.writeAscii(PROBLEMS_START);
+        }
+        return writer;
+    }
+
+    /**
+     * Writes a problem. If the problem throws while being written, the output is left incomplete.
+     * @param problem the problem to write.
+     * @throws IOException if the stream throws, or the problem cannot be written.
+     * @throws IllegalStateException if the writer is closed.
+     */
+    public void write(Problem problem) throws IOException {
+        if(closed) {
+            throw new IllegalStateException();
+        }
+        long start = Instrumentation.start();
+        long before = start == Instrumentation.NOT_TIMED ? 0 : encoder().count();
+        if(format == Format.XML) {
+            try {
+                problem.writeXmlElement(xmlEncoder, false);
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        } else {
+            if(format == Format.JSON_ARRAY && count > 0) {
+                jsonEncoder.writeAscii(',');
+            }
+            problem.writeJsonObject(jsonEncoder);
+            if(format == Format.NDJSON) {
+                jsonEncoder.writeAscii('\n');
+            }
+        }
+        count++;
+        if(start != Instrumentation.NOT_TIMED) {
+            TextEncoder encoder = encoder();
+            // Separators are counted with the problem they precede or follow
+            long bytes = encoder.isPreEncodable() ? encoder.count() - before : -1;
+            Instrumentation.written(start, problem, format == Format.XML ? Problem.MEDIA_TYPE_XML : Problem.MEDIA_TYPE_JSON, bytes);
+        }
+    }
+
+    /**
+     * Writes all problems of the supplied iterable, in order.
+     * @param problems the problems to write.
+     * @throws IOException if the stream throws, or a problem cannot be written.
+     */
+    public void writeAll(Iterable<? extends Problem> problems) throws IOException {
+        for(Problem problem : problems) {
+            write(problem);
+        }
+    }
+
+    /**
+     * Writes all problems of the supplied stream, in order. The stream is consumed, but not closed.
+     * @param problems the problems to write.
+     * @throws IOException if the output stream throws, or a problem cannot be written.
+     */
+    public void writeAll(Stream<? extends Problem> problems) throws IOException {
+        Iterator<? extends Problem> iterator = problems.iterator();
+        while(iterator.hasNext()) {
+            write(iterator.next());
+        }
+    }
+
+    /**
+     * Gets the number of problems written so far.
+     * @return the number of problems written.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Writes all buffered output and flushes the stream, e.g. to send the problems written so far to a client.
+     * @throws IOException if the stream throws.
+     */
+    @Override
+    public void flush() throws IOException {
+        encoder().flush();
+        outputStream.flush();
+    }
+
+    /**
+     * Ends the array or sequence and writes all buffered output. The stream is not closed. Closing a closed writer
+     * has no effect.
+     * @throws IOException if the stream throws.
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        if(format == Format.JSON_ARRAY) {
+            jsonEncoder.writeAscii(']');
+        } else if(format == Format.XML) {
+            xmlEncoder.writeAscii(PROBLEMS_END);
+        }
+        encoder().close();
+    }
+
+    private TextEncoder encoder() {
+        return format == Format.XML ? xmlEncoder : jsonEncoder;
+    }
+
+}
@@ -0,0 +1,71 @@
+package de.turnertech.problemdetails;
+
+import java.util.Objects;
+
+/**
+ * <p>An unchecked exception which carries the {@link Problem} to report for it. A {@link ProblemMapper} maps it to
+ * its own problem, without looking up its class.</p>
+ *
+ * <p>Capturing a stack trace is the most expensive part of creating an exception. Exceptions which are only thrown
+ * to end a request with a problem, or which wrap a cause that has its own trace, may be created without one.</p>
+ */
+public class ProblemException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Not serialised, the problem is only meaningful within the application which threw it. */
+    private final transient Problem problem;
+
+    /**
+     * Constructs an exception with a stack trace.
+     * @param problem the problem to report.
+     * @throws NullPointerException if problem is null.
+     */
+    public ProblemException(Problem problem) {
+        this(problem, null, true);
+    }
+
+    /**
+     * Constructs an exception with a stack trace and a cause.
+     * @param problem the problem to report.
+     * @param cause the cause, may be null.
+     * @throws NullPointerException if problem is null.
+     */
+    public ProblemException(Problem problem, Throwable cause) {
+        this(problem, cause, true);
+    }
+
+    /**
+     * Constructs an exception, optionally without a stack trace. Suppressed exceptions are always recorded.
+     * @param problem the problem to report.
+     * @param cause the cause, may be null.
+     * @param writableStackTrace false to skip capturing the stack trace.
+     * @throws NullPointerException if problem is null.
+     */
+    public ProblemException(Problem problem, Throwable cause, boolean writableStackTrace) {
+        super(null, cause, true, writableStackTrace);
+        this.problem = Objects.requireNonNull(problem);
+    }
+
+    /**
+     * Gets the problem to report. It is not copied, so changes are seen by every holder of this exception.
+     * @return the problem, or null if this exception was deserialised.
+     */
+    public Problem getProblem() {
+        return problem;
+    }
+
+    /**
+     * Gets the detail of the problem, or its title if it has no detail. The message is only built when asked for.
+     * @return the message, may be null.
+     */
+    @Override
+    public String getMessage() {
+        if(problem == null) {
+            return null;
+        }
+        String detail = problem.getDetail();
+        return detail == null ? problem.getTitle() : detail;
+    }
+
+}
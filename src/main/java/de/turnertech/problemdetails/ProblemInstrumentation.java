@@ -0,0 +1,74 @@
+package de.turnertech.problemdetails;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * <p>Receives events about the problems this library writes and maps, e.g. to forward them to a metrics backend.
+ * One instance is installed for the whole library with {@link #install(ProblemInstrumentation)}, so call sites need
+ * no wrapping. {@link ProblemStatistics} is a ready made implementation which keeps counters and histograms.</p>
+ *
+ * <pre>
+ * ProblemInstrumentation.install(new ProblemInstrumentation() {
+ *     &#64;Override
+ *     public void written(URI type, int status, String mediaType, long bytes, long nanos) {
+ *         registry.timer("problems.written", "status", Integer.toString(status)).record(nanos, TimeUnit.NANOSECONDS);
+ *     }
+ * });
+ * </pre>
+ *
+ * <p>By default {@link #NOOP} is installed, and writing costs one volatile read and a comparison, without reading
+ * the clock. Events are delivered on the writing thread, so implementations must be thread safe, should be cheap
+ * and must not throw. Lengths which are only computed, such as {@link Problem#jsonLength(java.nio.charset.Charset)},
+ * are not reported. Writes of a {@link ProblemRecord} are reported whether it encodes or replays memoised bytes.</p>
+ */
+public interface ProblemInstrumentation {
+
+    /**
+     * Ignores all events. Installed by default.
+     */
+    ProblemInstrumentation NOOP = new ProblemInstrumentation() { };
+
+    /**
+     * Installs an instrumentation for all subsequent events, replacing the previous one.
+     * @param instrumentation the instrumentation, {@link #NOOP} to uninstall.
+     * @throws NullPointerException if instrumentation is null.
+     */
+    static void install(ProblemInstrumentation instrumentation) {
+        Instrumentation.current = Objects.requireNonNull(instrumentation);
+    }
+
+    /**
+     * Gets the installed instrumentation.
+     * @return the instrumentation, {@link #NOOP} if none is installed.
+     */
+    static ProblemInstrumentation installed() {
+        return Instrumentation.current;
+    }
+
+    /**
+     * Called after a problem, a {@link ProblemRecord} or an occurrence of a {@link ProblemTemplate} was written
+     * completely. Failed writes are not reported.
+     * @param type the type of the problem.
+     * @param status the status of the problem, or {@link Problem#NO_STATUS}.
+     * @param mediaType {@link Problem#MEDIA_TYPE_JSON}, {@link Problem#MEDIA_TYPE_XML} or
+     * {@link Problem#MEDIA_TYPE_CBOR}.
+     * @param bytes the number of bytes written, or -1 if unknown, e.g. when writing to an
+     * {@link javax.xml.stream.XMLStreamWriter}.
+     * @param nanos the time taken to write, in nanoseconds.
+     */
+    default void written(URI type, int status, String mediaType, long bytes, long nanos) {
+        // Ignored by default
+    }
+
+    /**
+     * Called after a {@link ProblemMapper} mapped an exception to a problem.
+     * @param exception the class of the mapped exception.
+     * @param type the type of the problem.
+     * @param status the status of the problem, or {@link Problem#NO_STATUS}.
+     */
+    default void mapped(Class<? extends Throwable> exception, URI type, int status) {
+        // Ignored by default
+    }
+
+}
@@ -0,0 +1,171 @@
+package de.turnertech.problemdetails;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>Maps exceptions to problems. Exception classes are registered against {@link ProblemTemplate}s, and an exception
+ * is mapped by the registration of its own class or of its nearest registered superclass. Exceptions without a
+ * registered class are mapped to the fallback template, by default 500 Internal Server Error.</p>
+ *
+ * <pre>
+ * static final ProblemMapper MAPPER = new ProblemMapper()
+ *     .register(IllegalArgumentException.class, ProblemTemplate.of(URI.create("https://example.com/probs/invalid"), "Invalid request.", 400), Throwable::getMessage)
+ *     .register(AccessDeniedException.class, FORBIDDEN);
+ *
+ * Problem problem = MAPPER.toProblem(exception);
+ * </pre>
+ *
+ * <p>The result of walking the class hierarchy is cached for each concrete class, so mapping costs one map lookup
+ * once a class has been seen. The cache is filled without holding locks and is discarded by each registration, so
+ * exceptions should be registered up front. A {@link ProblemException} is mapped to its own problem.</p>
+ *
+ * <p>Instances may be shared between threads.</p>
+ */
+public final class ProblemMapper {
+
+    private final Map<Class<?>, Mapping> registered = new ConcurrentHashMap<>();
+
+    /** Replaced on each registration, so that a resolution racing with a registration cannot cache a stale result. */
+    private volatile Map<Class<?>, Mapping> resolved = new ConcurrentHashMap<>();
+
+    private final Mapping fallback;
+
+    private final boolean captureStackTraces;
+
+    /**
+     * A registered template, and how to get the detail from an exception.
+     */
+    private static final class Mapping {
+
+        private final ProblemTemplate template;
+
+        private final Function<Throwable, String> detail;
+
+        private Mapping(ProblemTemplate template, Function<Throwable, String> detail) {
+            this.template = template;
+            this.detail = detail;
+        }
+
+        private Problem toProblem(Throwable throwable) {
+            return template.toProblem(detail == null ? null : detail.apply(throwable), null);
+        }
+
+    }
+
+    /**
+     * Constructs a mapper which maps unregistered exceptions to 500 Internal Server Error, and creates
+     * {@link ProblemException}s without stack traces.
+     */
+    public ProblemMapper() {
+        this(ProblemTemplate.of(Problem.ABOUT_BLANK, Problem.findStatusPhrase(500), 500), false);
+    }
+
+    /**
+     * Constructs a mapper.
+     * @param fallback the template for exceptions without a registered class.
+     * @param captureStackTraces whether {@link #toException(Throwable)} captures stack traces. The cause always has
+     * its own.
+     * @throws NullPointerException if fallback is null.
+     */
+    public ProblemMapper(ProblemTemplate fallback, boolean captureStackTraces) {
+        this.fallback = new Mapping(Objects.requireNonNull(fallback), null);
+        this.captureStackTraces = captureStackTraces;
+    }
+
+    /**
+     * Registers an exception class. Problems are created without detail, so that exception messages are not
+     * disclosed to clients by accident.
+     * @param type the exception class, which includes its subclasses.
+     * @param template the template to create problems from.
+     * @return this.
+     * @throws NullPointerException if type or template is null.
+     */
+    public ProblemMapper register(Class<? extends Throwable> type, ProblemTemplate template) {
+        return register(type, new Mapping(Objects.requireNonNull(template), null));
+    }
+
+    /**
+     * Registers an exception class, with the detail taken from the exception.
+     * @param <T> the exception type.
+     * @param type the exception class, which includes its subclasses.
+     * @param template the template to create problems from.
+     * @param detail gets the detail from an exception, e.g. {@code Throwable::getMessage}. May return null.
+     * @return this.
+     * @throws NullPointerException if any argument is null.
+     */
+    public <T extends Throwable> ProblemMapper register(Class<T> type, ProblemTemplate template, Function<? super T, String> detail) {
+        Objects.requireNonNull(detail);
+        return register(type, new Mapping(Objects.requireNonNull(template), throwable -> detail.apply(type.cast(throwable))));
+    }
+
+    private ProblemMapper register(Class<? extends Throwable> type, Mapping mapping) {
+        registered.put(Objects.requireNonNull(type), mapping);
+        resolved = new ConcurrentHashMap<>();
+        return this;
+    }
+
+    /**
+     * Gets the template an exception class is mapped to.
+     * @param type the exception class.
+     * @return the template of the class or of its nearest registered superclass, or the fallback template.
+     */
+    public ProblemTemplate resolve(Class<? extends Throwable> type) {
+        return mapping(type).template;
+    }
+
+    /**
+     * Maps an exception to a new problem. A {@link ProblemException} is mapped to its own problem, which is not
+     * copied.
+     * @param throwable the exception to map.
+     * @return the problem.
+     * @throws NullPointerException if throwable is null.
+     */
+    public Problem toProblem(Throwable throwable) {
+        Problem problem;
+        if(throwable instanceof ProblemException && ((ProblemException) throwable).getProblem() != null) {
+            problem = ((ProblemException) throwable).getProblem();
+        } else {
+            problem = mapping(throwable.getClass()).toProblem(throwable);
+        }
+        Instrumentation.mapped(throwable.getClass(), problem);
+        return problem;
+    }
+
+    /**
+     * Wraps an exception in a {@link ProblemException} carrying the mapped problem, e.g. to rethrow a checked
+     * exception. A {@link ProblemException} is returned as is.
+     * @param throwable the exception to wrap.
+     * @return the exception carrying the problem.
+     * @throws NullPointerException if throwable is null.
+     */
+    public ProblemException toException(Throwable throwable) {
+        if(throwable instanceof ProblemException && ((ProblemException) throwable).getProblem() != null) {
+            return (ProblemException) throwable;
+        }
+        return new ProblemException(toProblem(throwable), throwable, captureStackTraces);
+    }
+
+    private Mapping mapping(Class<?> type) {
+        Map<Class<?>, Mapping> cache = resolved;
+        Mapping mapping = cache.get(type);
+        if(mapping != null) {
+            return mapping;
+        }
+        // Not computeIfAbsent, which would walk the hierarchy while holding a lock. Racing threads resolve equally.
+        for(Class<?> current = type; current != null; current = current.getSuperclass()) {
+            mapping = registered.get(current);
+            if(mapping != null) {
+                break;
+            }
+        }
+        if(mapping == null) {
+            mapping = fallback;
+        }
+        cache.put(type, mapping);
+        return mapping;
+    }
+
+}
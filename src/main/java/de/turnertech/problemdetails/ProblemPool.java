@@ -0,0 +1,71 @@
+package de.turnertech.problemdetails;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>An opt-in pool of reusable problems, for error paths which must not allocate. Problems are reset when they are
+ * released, and are owned by the caller between {@link #acquire()} and {@link #release(Problem)}.</p>
+ *
+ * <pre>
+ * private static final ProblemPool&lt;Problem&gt; PROBLEMS = new ProblemPool&lt;&gt;(Problem::new);
+ * private static final String OUT_OF_CREDIT = "https://example.com/probs/out-of-credit";
+ * ...
+ * Problem problem = PROBLEMS.acquire();
+ * try {
+ *     problem.setTypeText(OUT_OF_CREDIT);
+ *     problem.setStatus(403);
+ *     problem.setInstanceText(instance);
+ *     problem.toJson(byteBuffer);
+ * } finally {
+ *     PROBLEMS.release(problem);
+ * }
+ * </pre>
+ *
+ * <p>Like the encoders of the library, problems are held in a small number of lock-free slots instead of thread
+ * locals, so the pool does not grow with the number of threads, and works with short lived virtual threads. If the
+ * pool is empty a new problem is created, and if it is full a released problem is dropped, so the pool never blocks.
+ * A problem which is never released is simply collected.</p>
+ *
+ * <p>Writing a pooled problem allocates nothing once the JVM is warm, as long as its type is a constant set with
+ * {@link Problem#setType(java.net.URI)}, or one of a few constant texts set with
+ * {@link Problem#setTypeText(CharSequence)}, its instance is set from text with
+ * {@link Problem#setInstanceText(CharSequence)}, and it has no extension members. Comparing and hashing such a
+ * problem, and reading its instance again, does not allocate either. Pools may be shared by any number of
+ * threads.</p>
+ *
+ * @param <T> the type of the pooled problems.
+ */
+public final class ProblemPool<T extends Problem> {
+
+    private final Pool<T> pool;
+
+    /**
+     * Constructs an empty pool.
+     * @param factory creates new problems when the pool is empty, e.g. {@code Problem::new}.
+     * @throws NullPointerException if factory is null.
+     */
+    public ProblemPool(Supplier<T> factory) {
+        this.pool = new Pool<>(Objects.requireNonNull(factory));
+    }
+
+    /**
+     * Takes a problem out of the pool, or creates one if the pool is empty. The problem is in the state of a new
+     * problem, see {@link Problem#reset()}.
+     * @return a problem which is owned by the caller until it is released.
+     */
+    public T acquire() {
+        return pool.acquire();
+    }
+
+    /**
+     * Resets a problem and puts it back into the pool. The caller must not use it afterwards.
+     * @param problem the problem to return, which need not have come from this pool.
+     * @throws NullPointerException if problem is null.
+     */
+    public void release(T problem) {
+        problem.reset();
+        pool.release(problem);
+    }
+
+}
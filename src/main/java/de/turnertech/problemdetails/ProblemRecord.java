@@ -0,0 +1,422 @@
+package de.turnertech.problemdetails;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * <p>An immutable counterpart to {@link Problem}, created with a {@link Builder}. As it cannot change, its hash code
+ * is computed once on creation, and its UTF-8 JSON and XML encodings are computed on first use and then reused.
+ * This makes records cheap to use as map keys, e.g. for deduplication, and cheap to send repeatedly.</p>
+ *
+ * <p>Records hold the five RFC 9457 members only, and may be shared between threads.</p>
+ *
+ * <pre>
+ * ProblemRecord problem = ProblemRecord.builder()
+ *     .type(URI.create("https://example.com/probs/out-of-credit"))
+ *     .title("You do not have enough credit.")
+ *     .status(403)
+ *     .build();
+ * </pre>
+ */
+public final class ProblemRecord {
+
+    private static final byte[] UTF_8_DECLARATION = TextEncoder.ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+
+    private final URI type;
+
+    private final String title;
+
+    private final int status;
+
+    private final String detail;
+
+    private final URI instance;
+
+    private final int hashCode;
+
+    /** Lazily encoded UTF-8 JSON. */
+    private volatile byte[] json;
+
+    /** Lazily encoded UTF-8 XML, without the XML declaration. */
+    private volatile byte[] xml;
+
+    private ProblemRecord(Builder builder) {
+        this.type = builder.type;
+        this.title = builder.title;
+        this.status = builder.status;
+        this.detail = builder.detail;
+        this.instance = builder.instance;
+        this.hashCode = Objects.hash(type, title, detail, instance) * 31 + status;
+    }
+
+    /**
+     * Creates a new builder, with the type "about:blank" (RFC 9457 - 4.2.1.).
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a record from the five RFC 9457 members of the supplied problem.
+     * @param problem the problem to copy.
+     * @return the record.
+     */
+    public static ProblemRecord of(Problem problem) {
+        return builder()
+            .type(problem.getType())
+            .title(problem.getTitle())
+            .status(problem.getStatusAsInt())
+            .detail(problem.getDetail())
+            .instance(problem.getInstance())
+            .build();
+    }
+
+    /**
+     * Creates a builder which is initialised with the members of this record.
+     * @return a new builder.
+     */
+    public Builder toBuilder() {
+        return builder()
+            .type(type)
+            .title(title)
+            .status(status)
+            .detail(detail)
+            .instance(instance);
+    }
+
+    /**
+     * Creates a new, mutable problem from this record.
+     * @return a new problem.
+     */
+    public Problem toProblem() {
+        Problem problem = new Problem(type, instance);
+        problem.setTitle(title);
+        problem.setStatus(status);
+        problem.setDetail(detail);
+        return problem;
+    }
+
+    /**
+     * Gets the problem type.
+     * @return the problem type.
+     */
+    public URI getType() {
+        return type;
+    }
+
+    /**
+     * Gets the problem title.
+     * @return the problem title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the problem status code (HTTP Status Code).
+     * @return the problem status code (HTTP Status Code)
+     */
+    public Integer getStatus() {
+        return status == Problem.NO_STATUS ? null : Integer.valueOf(status);
+    }
+
+    /**
+     * Gets the problem status code (HTTP Status Code) without boxing.
+     * @return the problem status code (HTTP Status Code), or {@link Problem#NO_STATUS} if none is set.
+     */
+    public int getStatusAsInt() {
+        return status;
+    }
+
+    /**
+     * Gets the problem detail.
+     * @return the problem detail.
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Gets the problem instance.
+     * @return the problem instance.
+     */
+    public URI getInstance() {
+        return instance;
+    }
+
+    /**
+     * Converts the contents to a String containing the JSON representation of this record.
+     * @return the JSON String.
+     */
+    public String toJson() {
+        long start = Instrumentation.start();
+        byte[] bytes = jsonBytes();
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_JSON, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the record to the supplied stream in JSON format using UTF-8. After the first call, this only copies
+     * the memoized encoding.
+     * @param outputStream the stream to write to.
+     * @throws IOException if the stream throws.
+     */
+    public void toJson(OutputStream outputStream) throws IOException {
+        long start = Instrumentation.start();
+        byte[] bytes = jsonBytes();
+        outputStream.write(bytes);
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_JSON, bytes.length);
+    }
+
+    /**
+     * Writes the record to the supplied stream in JSON format using the supplied Charset. Only UTF-8 is memoized.
+     * @param outputStream the stream to write to.
+     * @param charset the Charset to use.
+     * @throws IOException if the stream throws.
+     */
+    public void toJson(OutputStream outputStream, Charset charset) throws IOException {
+        if(StandardCharsets.UTF_8.equals(charset)) {
+            toJson(outputStream);
+            return;
+        }
+        long start = Instrumentation.start();
+        JsonEncoder encoder = JsonEncoder.acquire(outputStream, charset);
+        long written;
+        try {
+            writeJson(encoder);
+        } finally {
+            written = encoder.close();
+        }
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_JSON, written);
+    }
+
+    /**
+     * Converts the contents to a String containing the XML representation of this record, including the XML
+     * declaration.
+     * @return the XML String.
+     */
+    public String toXml() {
+        long start = Instrumentation.start();
+        byte[] bytes = xmlBytes();
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_XML, UTF_8_DECLARATION.length + bytes.length);
+        return new String(UTF_8_DECLARATION, StandardCharsets.UTF_8) + new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the record to the supplied stream in XML format using the supplied Charset. Only UTF-8 is memoized.
+     * @param outputStream the stream to write to.
+     * @param charset the Charset to use.
+     * @param writeStartDocument to indicate if the xml start document should also be written.
+     * @throws IOException if the stream throws.
+     */
+    public void toXml(OutputStream outputStream, Charset charset, boolean writeStartDocument) throws IOException {
+        long start = Instrumentation.start();
+        if(StandardCharsets.UTF_8.equals(charset)) {
+            byte[] bytes = xmlBytes();
+            if(writeStartDocument) {
+                outputStream.write(UTF_8_DECLARATION);
+            }
+            outputStream.write(bytes);
+            Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_XML, (writeStartDocument ? UTF_8_DECLARATION.length : 0) + bytes.length);
+            return;
+        }
+        XmlEncoder encoder = XmlEncoder.acquire(outputStream, charset);
+        long written;
+        try {
+            if(writeStartDocument) {
+                encoder.writeStartDocument();
+            }
+            writeXml(encoder);
+        } finally {
+            written = encoder.close();
+        }
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_XML, written);
+    }
+
+    private byte[] jsonBytes() {
+        byte[] result = json;
+        if(result == null) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            JsonEncoder encoder = JsonEncoder.acquire(outputStream, StandardCharsets.UTF_8);
+            try {
+                try {
+                    writeJson(encoder);
+                } finally {
+                    encoder.close();
+                }
+            } catch (IOException e) {
+                // A ByteArrayOutputStream does not throw
+                throw new UncheckedIOException(e);
+            }
+            json = result = outputStream.toByteArray();
+        }
+        return result;
+    }
+
+    private byte[] xmlBytes() {
+        byte[] result = xml;
+        if(result == null) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            XmlEncoder encoder = XmlEncoder.acquire(outputStream, StandardCharsets.UTF_8);
+            try {
+                try {
+                    writeXml(encoder);
+                } finally {
+                    encoder.close();
+                }
+            } catch (IOException e) {
+                // A ByteArrayOutputStream does not throw
+                throw new UncheckedIOException(e);
+            }
+            xml = result = outputStream.toByteArray();
+        }
+        return result;
+    }
+
+    private void writeJson(JsonEncoder encoder) throws IOException {
+        encoder.writeHead(type, title, status);
+        encoder.writeOccurrence(detail, instance);
+        encoder.writeAscii('}');
+    }
+
+    private void writeXml(XmlEncoder encoder) throws IOException {
+        encoder.writeHead(type, title);
+        encoder.writeDetail(detail);
+        encoder.writeStatus(status);
+        encoder.writeInstance(instance);
+        encoder.writeAscii(XmlEncoder.PROBLEM_END);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof ProblemRecord))
+            return false;
+        ProblemRecord other = (ProblemRecord) obj;
+        return hashCode == other.hashCode
+            && type.equals(other.type)
+            && Objects.equals(title, other.title)
+            && status == other.status
+            && Objects.equals(detail, other.detail)
+            && Objects.equals(instance, other.instance);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ProblemRecord [type=" + type + ", title=" + title + "]";
+    }
+
+    /**
+     * Builder for {@link ProblemRecord}. Values are validated as they are set.
+     */
+    public static final class Builder {
+
+        private URI type = Problem.ABOUT_BLANK;
+
+        private String title;
+
+        private int status = Problem.NO_STATUS;
+
+        private String detail;
+
+        private URI instance;
+
+        private Builder() {
+            // Use ProblemRecord.builder()
+        }
+
+        /**
+         * Sets the problem type.
+         * @param type RFC 9457 - 3.1.1.
+         * @return this builder.
+         * @throws NullPointerException if type is null.
+         */
+        public Builder type(URI type) {
+            this.type = Problem.checkType(type);
+            return this;
+        }
+
+        /**
+         * Sets the problem title.
+         * @param title RFC 9457 - 3.1.3., may be null.
+         * @return this builder.
+         */
+        public Builder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        /**
+         * Sets the problem status code (HTTP Status Code).
+         * @param status RFC 9457 - 3.1.2., may be null.
+         * @return this builder.
+         * @throws java.security.InvalidParameterException if status is not between 100 and 599.
+         */
+        public Builder status(Integer status) {
+            return status(status == null ? Problem.NO_STATUS : status.intValue());
+        }
+
+        /**
+         * Sets the problem status code (HTTP Status Code) without boxing.
+         * @param status RFC 9457 - 3.1.2., may be {@link Problem#NO_STATUS}.
+         * @return this builder.
+         * @throws java.security.InvalidParameterException if status is not between 100 and 599.
+         */
+        public Builder status(int status) {
+            this.status = status == Problem.NO_STATUS ? Problem.NO_STATUS : Problem.checkStatus(status);
+            return this;
+        }
+
+        /**
+         * Sets the problem detail.
+         * @param detail RFC 9457 - 3.1.4., may be null.
+         * @return this builder.
+         */
+        public Builder detail(String detail) {
+            this.detail = detail;
+            return this;
+        }
+
+        /**
+         * Sets the problem instance.
+         * @param instance RFC 9457 - 3.1.5., may be null.
+         * @return this builder.
+         */
+        public Builder instance(URI instance) {
+            this.instance = instance;
+            return this;
+        }
+
+        /**
+         * Creates the record.
+         * @return a new record.
+         */
+        public ProblemRecord build() {
+            return new ProblemRecord(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package de.turnertech.problemdetails;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A registry of the problem types an application produces. Each type is registered once as an immutable
+ * {@link ProblemTemplate}, which is then looked up by its type URI or by a string key, without parsing URIs or
+ * rebuilding titles and status codes on each error path.</p>
+ *
+ * <p>Lookups are lock-free and the registry may be shared between threads. Registering an equal template twice
+ * returns the instance registered first, so templates may be compared by identity. A registration which is rejected
+ * leaves the registry as it was.</p>
+ *
+ * <pre>
+ * static final ProblemRegistry PROBLEMS = new ProblemRegistry();
+ * static final ProblemTemplate OUT_OF_CREDIT = PROBLEMS.register("https://example.com/probs/out-of-credit", "You do not have enough credit.", 403);
+ *
+ * OUT_OF_CREDIT.toJson(outputStream, "Your current balance is 30, but that costs 50.", instance);
+ * </pre>
+ */
+public final class ProblemRegistry {
+
+    private final Map<URI, ProblemTemplate> byType = new ConcurrentHashMap<>();
+
+    private final Map<String, ProblemTemplate> byKey = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a problem type, under its type URI and the string form of its type URI.
+     * @param type RFC 9457 - 3.1.1.
+     * @param title RFC 9457 - 3.1.3., may be null.
+     * @param status RFC 9457 - 3.1.2., may be null.
+     * @return the registered template.
+     * @throws IllegalArgumentException if type is not a valid URI, or a different template is already registered.
+     * @throws java.security.InvalidParameterException if status is not between 100 and 599.
+     */
+    public ProblemTemplate register(String type, String title, Integer status) {
+        return register(ProblemTemplate.of(URI.create(type), title, status));
+    }
+
+    /**
+     * Registers a template, under its type URI and the string form of its type URI.
+     * @param template the template to register.
+     * @return the registered template, which is the previously registered instance if an equal one exists.
+     * @throws IllegalArgumentException if a different template is already registered for the type.
+     */
+    public ProblemTemplate register(ProblemTemplate template) {
+        return register(template, null);
+    }
+
+    /**
+     * Registers a template under an additional, application specific key, e.g. an error code. The template is
+     * also registered under its type URI.
+     * @param key the key to register the template under.
+     * @param template the template to register.
+     * @return the registered template, which is the previously registered instance if an equal one exists.
+     * @throws IllegalArgumentException if a different template is already registered for the key or type.
+     */
+    public ProblemTemplate register(String key, ProblemTemplate template) {
+        return register(template, Objects.requireNonNull(key));
+    }
+
+    /**
+     * Gets the template registered for a type URI.
+     * @param type the type URI.
+     * @return the template, or null if none is registered.
+     */
+    public ProblemTemplate get(URI type) {
+        return byType.get(type);
+    }
+
+    /**
+     * Gets the template registered for a key, or the string form of a type URI.
+     * @param key the key or type URI.
+     * @return the template, or null if none is registered.
+     */
+    public ProblemTemplate get(String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * Gets the number of registered problem types.
+     * @return the number of registered problem types.
+     */
+    public int size() {
+        return byType.size();
+    }
+
+    /**
+     * Adds a template under its type, the string form of its type and the optional key. Entries added before a
+     * conflict is found are removed again, so a rejected registration does not remain half applied.
+     */
+    private ProblemTemplate register(ProblemTemplate template, String key) {
+        URI type = template.getType();
+        String typeKey = type.toString();
+        ProblemTemplate existingType = byType.putIfAbsent(type, template);
+        checkConflict(type, existingType, template);
+        ProblemTemplate registered = existingType == null ? template : existingType;
+        ProblemTemplate existingTypeKey = byKey.putIfAbsent(typeKey, registered);
+        try {
+            checkConflict(typeKey, existingTypeKey, registered);
+            if(key != null) {
+                checkConflict(key, byKey.putIfAbsent(key, registered), registered);
+            }
+        } catch (IllegalArgumentException e) {
+            if(existingTypeKey == null) {
+                byKey.remove(typeKey, registered);
+            }
+            if(existingType == null) {
+                byType.remove(type, template);
+            }
+            throw e;
+        }
+        return registered;
+    }
+
+    private static void checkConflict(Object key, ProblemTemplate existing, ProblemTemplate template) {
+        if(existing != null && !existing.equals(template)) {
+            throw new IllegalArgumentException(Problem.message("error.registry.conflict", key, existing));
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package de.turnertech.problemdetails;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A {@link ProblemInstrumentation} which counts written problems per type, per status and per media type, sums
+ * the bytes written, and keeps a histogram of the write latencies. An adapter can poll it, instead of implementing
+ * {@link ProblemInstrumentation} itself.</p>
+ *
+ * <pre>
+ * ProblemStatistics statistics = new ProblemStatistics();
+ * ProblemInstrumentation.install(statistics);
+ * ...
+ * long notFound = statistics.getWritten(404);
+ * </pre>
+ *
+ * <p>Counting uses striped counters, and once a type or media type has been seen, does not lock or allocate. Types
+ * are kept for the lifetime of the instance, so their number should be bounded, as with {@link ProblemAggregator}.
+ * Latencies are counted in buckets of powers of two, bucket i counting writes which took from 2<sup>i</sup> up to
+ * 2<sup>i+1</sup> nanoseconds.</p>
+ *
+ * <p>Instances may be shared between threads.</p>
+ */
+public final class ProblemStatistics implements ProblemInstrumentation {
+
+    /** The number of latency buckets, one for each bit of a long. */
+    public static final int BUCKETS = 64;
+
+    /** Indexed by status, 0 for {@link Problem#NO_STATUS}. Filled on first use. */
+    private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(600);
+
+    private final Map<URI, LongAdder> types = new ConcurrentHashMap<>();
+
+    private final Map<URI, LongAdder> mappedTypes = new ConcurrentHashMap<>();
+
+    private final Map<String, Series> mediaTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Counters of one media type.
+     */
+    private static final class Series {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final LongAdder[] latencies = new LongAdder[BUCKETS];
+
+        private Series() {
+            for(int i = 0; i < BUCKETS; i++) {
+                latencies[i] = new LongAdder();
+            }
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void written(URI type, int status, String mediaType, long bytes, long nanos) {
+        counter(types, type).increment();
+        if(status >= 0 && status < statuses.length()) {
+            LongAdder counter = statuses.get(status);
+            if(counter == null) {
+                statuses.compareAndSet(status, null, new LongAdder());
+                counter = statuses.get(status);
+            }
+            counter.increment();
+        }
+        Series series = series(mediaType);
+        series.count.increment();
+        if(bytes > 0) {
+            series.bytes.add(bytes);
+        }
+        series.latencies[bucket(nanos)].increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void mapped(Class<? extends Throwable> exception, URI type, int status) {
+        counter(mappedTypes, type).increment();
+    }
+
+    /**
+     * Gets the number of written problems of a type.
+     * @param type the problem type.
+     * @return the number of problems written.
+     */
+    public long getWritten(URI type) {
+        return sum(types.get(type));
+    }
+
+    /**
+     * Gets the number of written problems with a status.
+     * @param status the status, or {@link Problem#NO_STATUS}.
+     * @return the number of problems written.
+     */
+    public long getWritten(int status) {
+        return status < 0 || status >= statuses.length() ? 0 : sum(statuses.get(status));
+    }
+
+    /**
+     * Gets the number of problems written in a media type.
+     * @param mediaType e.g. {@link Problem#MEDIA_TYPE_JSON}.
+     * @return the number of problems written.
+     */
+    public long getWritten(String mediaType) {
+        Series series = mediaTypes.get(mediaType);
+        return series == null ? 0 : series.count.sum();
+    }
+
+    /**
+     * Gets the number of bytes written in a media type. Writes of unknown length are not included.
+     * @param mediaType e.g. {@link Problem#MEDIA_TYPE_JSON}.
+     * @return the number of bytes written.
+     */
+    public long getBytes(String mediaType) {
+        Series series = mediaTypes.get(mediaType);
+        return series == null ? 0 : series.bytes.sum();
+    }
+
+    /**
+     * Gets the histogram of write latencies in a media type.
+     * @param mediaType e.g. {@link Problem#MEDIA_TYPE_JSON}.
+     * @return a new array of {@link #BUCKETS} counts, element i counting writes which took from 2<sup>i</sup> up to
+     * 2<sup>i+1</sup> nanoseconds. Writes faster than 2 nanoseconds are counted in element 0.
+     */
+    public long[] getLatencies(String mediaType) {
+        long[] histogram = new long[BUCKETS];
+        Series series = mediaTypes.get(mediaType);
+        if(series != null) {
+            for(int i = 0; i < BUCKETS; i++) {
+                histogram[i] = series.latencies[i].sum();
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Gets the number of exceptions a {@link ProblemMapper} mapped to problems of a type.
+     * @param type the problem type.
+     * @return the number of exceptions mapped.
+     */
+    public long getMapped(URI type) {
+        return sum(mappedTypes.get(type));
+    }
+
+    private static int bucket(long nanos) {
+        return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private Series series(String mediaType) {
+        Series series = mediaTypes.get(mediaType);
+        if(series == null) {
+            Series created = new Series();
+            series = mediaTypes.putIfAbsent(mediaType, created);
+            if(series == null) {
+                series = created;
+            }
+        }
+        return series;
+    }
+
+    private static LongAdder counter(Map<URI, LongAdder> counters, URI type) {
+        LongAdder counter = counters.get(type);
+        if(counter == null) {
+            LongAdder created = new LongAdder();
+            counter = counters.putIfAbsent(type, created);
+            if(counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    private static long sum(LongAdder counter) {
+        return counter == null ? 0 : counter.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ProblemStatistics [types=" + types + ", mapped=" + mappedTypes + "]";
+    }
+
+}
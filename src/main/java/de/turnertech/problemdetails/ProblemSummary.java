@@ -0,0 +1,97 @@
+package de.turnertech.problemdetails;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The occurrences of one problem type in one window of a {@link ProblemAggregator}. Instances are immutable.
+ */
+public final class ProblemSummary {
+
+    private final ProblemTemplate template;
+
+    private final long count;
+
+    private final String detail;
+
+    private final List<URI> instances;
+
+    private final Instant start;
+
+    private final Instant end;
+
+    ProblemSummary(ProblemTemplate template, long count, String detail, List<URI> instances, Instant start, Instant end) {
+        this.template = template;
+        this.count = count;
+        this.detail = detail;
+        this.instances = instances;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the type, title and status the occurrences share.
+     * @return the template.
+     */
+    public ProblemTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Gets the number of occurrences in the window.
+     * @return the number of occurrences, at least 1.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the detail of the first occurrence in the window which had one.
+     * @return the detail, may be null.
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Gets a sample of the distinct instances of the occurrences, in the order they were first seen.
+     * @return the unmodifiable sample, may be empty.
+     */
+    public List<URI> getInstances() {
+        return instances;
+    }
+
+    /**
+     * Gets the start of the window.
+     * @return the start of the window.
+     */
+    public Instant getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the window.
+     * @return the end of the window.
+     */
+    public Instant getEnd() {
+        return end;
+    }
+
+    /**
+     * Creates a problem which stands for all occurrences, e.g. to log it as JSON. It has the sampled detail, the
+     * first sampled instance, and the number of occurrences in the extension member "occurrences".
+     * @return a new problem.
+     */
+    public Problem toProblem() {
+        Problem problem = template.toProblem(detail, instances.isEmpty() ? null : instances.get(0));
+        problem.getExtensions().put("occurrences", count);
+        return problem;
+    }
+
+    @Override
+    public String toString() {
+        return "ProblemSummary [template=" + template + ", count=" + count + ", instances=" + instances + "]";
+    }
+
+}
@@ -0,0 +1,294 @@
+package de.turnertech.problemdetails;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An immutable, pre-rendered form of the constant part of a {@link Problem}: its type, title and status. The
+ * JSON and XML representations of these members are encoded once per charset, so that writing an occurrence of the
+ * problem only needs to encode the detail and instance, which are spliced in between the pre-encoded bytes.</p>
+ *
+ * <p>Pre-encoding is used for stateless charsets such as UTF-8, ISO-8859-1 and US-ASCII. Other charsets (e.g.
+ * UTF-16 with its byte order mark) are encoded on each call, with the same output as {@link Problem}.</p>
+ *
+ * <p>Templates capture the five RFC 9457 members only. Extensions of {@link Problem} subclasses are not part of
+ * the template. Templates are immutable and may be shared between threads. Their hash code is computed once.</p>
+ */
+public final class ProblemTemplate {
+
+    private final URI type;
+
+    private final String title;
+
+    private final int status;
+
+    private final int hashCode;
+
+    private final Encoded utf8;
+
+    private final Map<Charset, Encoded> encodings = new ConcurrentHashMap<>(4);
+
+    private ProblemTemplate(URI type, String title, int status) {
+        this.type = type;
+        this.title = title;
+        this.status = status;
+        this.hashCode = (31 * type.hashCode() + Objects.hashCode(title)) * 31 + status;
+        this.utf8 = new Encoded(this, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a template from the type, title and status of the supplied problem.
+     * @param problem the problem to freeze.
+     * @return the template.
+     */
+    public static ProblemTemplate of(Problem problem) {
+        return new ProblemTemplate(problem.getType(), problem.getTitle(), problem.getStatusAsInt());
+    }
+
+    /**
+     * Creates a template from the supplied members.
+     * @param type RFC 9457 - 3.1.1.
+     * @param title RFC 9457 - 3.1.3., may be null.
+     * @param status RFC 9457 - 3.1.2., may be null.
+     * @return the template.
+     * @throws NullPointerException if type is null.
+     * @throws java.security.InvalidParameterException if status is not between 100 and 599.
+     */
+    public static ProblemTemplate of(URI type, String title, Integer status) {
+        Problem problem = new Problem(type);
+        problem.setTitle(title);
+        problem.setStatus(status);
+        return of(problem);
+    }
+
+    /**
+     * Gets the problem type.
+     * @return the problem type.
+     */
+    public URI getType() {
+        return type;
+    }
+
+    /**
+     * Gets the problem title.
+     * @return the problem title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the problem status code (HTTP Status Code).
+     * @return the problem status code (HTTP Status Code)
+     */
+    public Integer getStatus() {
+        return status == Problem.NO_STATUS ? null : Integer.valueOf(status);
+    }
+
+    /**
+     * Gets the problem status code (HTTP Status Code) without boxing.
+     * @return the problem status code (HTTP Status Code), or {@link Problem#NO_STATUS} if none is set.
+     */
+    public int getStatusAsInt() {
+        return status;
+    }
+
+    /**
+     * Creates a new, mutable problem from this template, without detail or instance.
+     * @return a new problem.
+     */
+    public Problem toProblem() {
+        return toProblem(null, null);
+    }
+
+    /**
+     * Creates a new, mutable problem from this template.
+     * @param detail RFC 9457 - 3.1.4., may be null.
+     * @param instance RFC 9457 - 3.1.5., may be null.
+     * @return a new problem.
+     */
+    public Problem toProblem(String detail, URI instance) {
+        Problem problem = new Problem(type, instance);
+        problem.setTitle(title);
+        problem.setStatus(status);
+        problem.setDetail(detail);
+        return problem;
+    }
+
+    /**
+     * Writes an occurrence of this problem to the supplied stream in JSON format using UTF-8.
+     * @param outputStream the stream to write to.
+     * @param detail RFC 9457 - 3.1.4., may be null.
+     * @param instance RFC 9457 - 3.1.5., may be null.
+     * @throws IOException if the stream throws.
+     */
+    public void toJson(OutputStream outputStream, String detail, URI instance) throws IOException {
+        toJson(outputStream, StandardCharsets.UTF_8, detail, instance);
+    }
+
+    /**
+     * Writes an occurrence of this problem to the supplied stream in JSON format using the supplied Charset. The
+     * output is identical to {@link Problem#toJson(OutputStream, Charset)}.
+     * @param outputStream the stream to write to.
+     * @param charset the Charset to use.
+     * @param detail RFC 9457 - 3.1.4., may be null.
+     * @param instance RFC 9457 - 3.1.5., may be null.
+     * @throws IOException if the stream throws.
+     */
+    public void toJson(OutputStream outputStream, Charset charset, String detail, URI instance) throws IOException {
+        long start = Instrumentation.start();
+        JsonEncoder encoder = JsonEncoder.acquire(outputStream, charset);
+        long written;
+        try {
+            if(encoder.isPreEncodable()) {
+                encoder.writeEncoded(encoded(charset).jsonHead);
+            } else {
+                encoder.writeHead(type, title, status);
+            }
+            encoder.writeOccurrence(detail, instance);
+            encoder.writeAscii('}');
+        } finally {
+            written = encoder.close();
+        }
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_JSON, written);
+    }
+
+    /**
+     * Writes an occurrence of this problem to the supplied stream in XML format using the supplied Charset.
+     * @param outputStream the stream to write to.
+     * @param charset the Charset to use.
+     * @param writeStartDocument to indicate if the xml start document should also be written.
+     * @param detail RFC 9457 - 3.1.4., may be null.
+     * @param instance RFC 9457 - 3.1.5., may be null.
+     * @throws IOException if the stream throws.
+     */
+    public void toXml(OutputStream outputStream, Charset charset, boolean writeStartDocument, String detail, URI instance) throws IOException {
+        long start = Instrumentation.start();
+        XmlEncoder encoder = XmlEncoder.acquire(outputStream, charset);
+        long written;
+        try {
+            if(writeStartDocument) {
+                encoder.writeStartDocument();
+            }
+            if(encoder.isPreEncodable()) {
+                Encoded encoded = encoded(charset);
+                encoder.writeEncoded(encoded.xmlHead);
+                encoder.writeDetail(detail);
+                encoder.writeEncoded(encoded.xmlStatus);
+            } else {
+                encoder.writeHead(type, title);
+                encoder.writeDetail(detail);
+                encoder.writeStatus(status);
+            }
+            encoder.writeInstance(instance);
+            encoder.writeAscii(XmlEncoder.PROBLEM_END);
+        } finally {
+            written = encoder.close();
+        }
+        Instrumentation.written(start, type, status, Problem.MEDIA_TYPE_XML, written);
+    }
+
+    private Encoded encoded(Charset charset) {
+        if(StandardCharsets.UTF_8.equals(charset)) {
+            return utf8;
+        }
+        Encoded encoded = encodings.get(charset);
+        if(encoded == null) {
+            // Not computeIfAbsent, which would encode while holding a lock. Racing threads encode the same bytes.
+            Encoded created = new Encoded(this, charset);
+            encoded = encodings.putIfAbsent(charset, created);
+            if(encoded == null) {
+                encoded = created;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof ProblemTemplate))
+            return false;
+        ProblemTemplate other = (ProblemTemplate) obj;
+        return hashCode == other.hashCode
+            && type.equals(other.type)
+            && Objects.equals(title, other.title)
+            && status == other.status;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ProblemTemplate [type=" + type + ", title=" + title + ", status=" + getStatus() + "]";
+    }
+
+    /**
+     * The constant parts of the JSON and XML representations in a single charset.
+     */
+    private static final class Encoded {
+
+        private final byte[] jsonHead;
+
+        private final byte[] xmlHead;
+
+        private final byte[] xmlStatus;
+
+        private Encoded(ProblemTemplate template, Charset charset) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                JsonEncoder jsonEncoder = JsonEncoder.acquire(outputStream, charset);
+                try {
+                    jsonEncoder.writeHead(template.type, template.title, template.status);
+                } finally {
+                    jsonEncoder.close();
+                }
+                jsonHead = outputStream.toByteArray();
+
+                outputStream.reset();
+                XmlEncoder xmlEncoder = XmlEncoder.acquire(outputStream, charset);
+                try {
+                    xmlEncoder.writeHead(template.type, template.title);
+                } finally {
+                    xmlEncoder.close();
+                }
+                xmlHead = outputStream.toByteArray();
+
+                outputStream.reset();
+                xmlEncoder = XmlEncoder.acquire(outputStream, charset);
+                try {
+                    xmlEncoder.writeStatus(template.status);
+                } finally {
+                    xmlEncoder.close();
+                }
+                xmlStatus = outputStream.toByteArray();
+            } catch (IOException e) {
+                // A ByteArrayOutputStream does not throw
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
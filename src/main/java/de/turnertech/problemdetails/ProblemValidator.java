@@ -0,0 +1,133 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * <p>Reads problems and validates them against the schemas bundled with this library, RFC-9457.json and
+ * RFC-9457.xsd, in the same pass. Where {@link Problem#fromJson(InputStream)} and
+ * {@link Problem#fromXml(XMLStreamReader)} ignore members of the wrong type, as RFC 9457 - 3.1. requires of
+ * consumers, a validator rejects the document, e.g. at an ingress which should only pass on valid problems.</p>
+ *
+ * <pre>
+ * Problem problem = ProblemValidator.STRICT.fromJson(request.getInputStream());
+ * </pre>
+ *
+ * <p>The schemas are compiled once, on first use, into a check per member. Documents are validated while they are
+ * decoded, so validation costs no second traversal and no generic schema engine. JSON documents are validated
+ * against the properties of RFC-9457.json, and may contain any extension member. XML documents are validated
+ * against the sequence of RFC-9457.xsd: RFC 9457 elements in schema order with type required, followed by
+ * extension elements.</p>
+ *
+ * <p>Instances may be shared between threads.</p>
+ */
+public final class ProblemValidator {
+
+    /**
+     * Validates exactly as the bundled schemas. The xs:any particle of RFC-9457.xsd allows a single extension
+     * element.
+     */
+    public static final ProblemValidator STRICT = new ProblemValidator(false);
+
+    /**
+     * Validates as the bundled schemas, but allows any number of extension elements in XML, as this library writes
+     * them.
+     */
+    public static final ProblemValidator LENIENT = new ProblemValidator(true);
+
+    private final boolean lenient;
+
+    private ProblemValidator(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * Reads and validates a Problem from the supplied stream in JSON format.
+     * @param inputStream the stream to read from.
+     * @return the Problem.
+     * @throws IOException if the stream throws, or does not contain a JSON object which matches RFC-9457.json.
+     * @see Problem#fromJson(InputStream)
+     */
+    public Problem fromJson(InputStream inputStream) throws IOException {
+        return fromJson(inputStream, Problem::new);
+    }
+
+    /**
+     * Reads and validates a Problem from the supplied stream in JSON format, into a Problem created by the supplied
+     * factory. Extension members are handed to {@link Problem#readJsonExtension(String, Object)}.
+     * @param <T> the type of Problem to read.
+     * @param inputStream the stream to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws IOException if the stream throws, or does not contain a JSON object which matches RFC-9457.json.
+     */
+    public <T extends Problem> T fromJson(InputStream inputStream, Supplier<T> factory) throws IOException {
+        T problem = factory.get();
+        JsonDecoder.decode(inputStream, problem, Schema.get());
+        return problem;
+    }
+
+    /**
+     * Reads and validates a Problem from the remaining bytes of the supplied buffer in JSON format.
+     * @param byteBuffer the buffer to read from.
+     * @return the Problem.
+     * @throws IOException if the buffer does not contain a JSON object which matches RFC-9457.json.
+     * @see Problem#fromJson(ByteBuffer)
+     */
+    public Problem fromJson(ByteBuffer byteBuffer) throws IOException {
+        return fromJson(byteBuffer, Problem::new);
+    }
+
+    /**
+     * Reads and validates a Problem from the remaining bytes of the supplied buffer in JSON format, into a Problem
+     * created by the supplied factory.
+     * @param <T> the type of Problem to read.
+     * @param byteBuffer the buffer to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws IOException if the buffer does not contain a JSON object which matches RFC-9457.json.
+     */
+    public <T extends Problem> T fromJson(ByteBuffer byteBuffer, Supplier<T> factory) throws IOException {
+        T problem = factory.get();
+        JsonDecoder.decode(byteBuffer, problem, Schema.get());
+        return problem;
+    }
+
+    /**
+     * Reads and validates a Problem from the supplied reader in XML format.
+     * @param xmlStreamReader the reader to read from.
+     * @return the Problem.
+     * @throws XMLStreamException if the reader throws, or no problem element which matches RFC-9457.xsd is found.
+     * @see Problem#fromXml(XMLStreamReader)
+     */
+    public Problem fromXml(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        return fromXml(xmlStreamReader, Problem::new);
+    }
+
+    /**
+     * Reads and validates a Problem from the supplied reader in XML format, into a Problem created by the supplied
+     * factory. Extension elements are handed to {@link Problem#readXmlExtension(XMLStreamReader)}.
+     * @param <T> the type of Problem to read.
+     * @param xmlStreamReader the reader to read from.
+     * @param factory creates the Problem to populate.
+     * @return the Problem.
+     * @throws XMLStreamException if the reader throws, or no problem element which matches RFC-9457.xsd is found.
+     */
+    public <T extends Problem> T fromXml(XMLStreamReader xmlStreamReader, Supplier<T> factory) throws XMLStreamException {
+        T problem = factory.get();
+        Schema schema = Schema.get();
+        XmlDecoder.decode(xmlStreamReader, problem, schema, lenient ? Integer.MAX_VALUE : schema.extensionMaxOccurs);
+        return problem;
+    }
+
+    @Override
+    public String toString() {
+        return lenient ? "ProblemValidator.LENIENT" : "ProblemValidator.STRICT";
+    }
+
+}
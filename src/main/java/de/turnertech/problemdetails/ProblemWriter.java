@@ -0,0 +1,347 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * <p>Writes problems in the representation and language negotiated from the Accept and Accept-Language request
+ * headers. Titles which are the status phrase of the problem are written in the negotiated language.</p>
+ *
+ * <pre>
+ * ProblemWriter writer = ProblemWriter.negotiate(request.getHeader("Accept"), request.getHeader("Accept-Language"));
+ * response.setStatus(problem.getStatusAsInt());
+ * response.setContentType(writer.getMediaType());
+ * response.setHeader("Content-Language", writer.getLocale().toLanguageTag());
+ * response.setHeader("Vary", "Accept, Accept-Language");
+ * writer.write(problem, response.getOutputStream());
+ * </pre>
+ *
+ * <p>Among equally acceptable representations the cheapest is chosen, CBOR before JSON before XML. CBOR is only
+ * chosen if it is named in the Accept header, as wildcards are usually sent by clients which expect text. If no
+ * representation is acceptable, JSON is written anyway (RFC 9110 - 12.1.).</p>
+ *
+ * <p>Negotiation results are cached by header value, so repeated headers are a map lookup. Writers are immutable
+ * and may be shared.</p>
+ */
+public final class ProblemWriter {
+
+    /** Upper bound for each header cache, so that arbitrary client supplied headers cannot grow it forever. */
+    private static final int MAX_CACHED_HEADERS = 256;
+
+    private static final Map<String, Format> FORMATS_BY_ACCEPT = new ConcurrentHashMap<>();
+
+    private static final Map<String, Locale> LOCALES_BY_ACCEPT_LANGUAGE = new ConcurrentHashMap<>();
+
+    /** Writers by locale, indexed by format. Only locales with their own phrases are negotiated, so this stays small. */
+    private static final Map<Locale, ProblemWriter[]> WRITERS = new ConcurrentHashMap<>();
+
+    /** Formats in the order they are preferred, if equally acceptable. */
+    private static final Format[] BY_COST = { Format.CBOR, Format.JSON, Format.XML };
+
+    /**
+     * The representations a {@link ProblemWriter} can write.
+     */
+    public enum Format {
+
+        /** RFC 9457 JSON, in UTF-8. */
+        JSON(Problem.MEDIA_TYPE_JSON, "application/json"),
+
+        /** RFC 9457 XML, in UTF-8 and with an XML declaration. */
+        XML(Problem.MEDIA_TYPE_XML, "application/xml", "text/xml"),
+
+        /** CBOR, as written by {@link Problem#toCbor(OutputStream)}. */
+        CBOR(Problem.MEDIA_TYPE_CBOR, "application/cbor");
+
+        private final String mediaType;
+
+        private final String[] genericMediaTypes;
+
+        Format(String mediaType, String... genericMediaTypes) {
+            this.mediaType = mediaType;
+            this.genericMediaTypes = genericMediaTypes;
+        }
+
+        /**
+         * Gets the media type of this representation.
+         * @return the media type.
+         */
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * Rates how specifically a media range of an Accept header names this representation.
+         * @param range the lower case media range, without parameters.
+         * @return 3 for the problem media type, 2 for the generic media type, 1 for all application types, 0 for all
+         * types, and -1 if the range does not match.
+         */
+        private int specificity(String range) {
+            if(mediaType.equals(range)) {
+                return 3;
+            }
+            for(String genericMediaType : genericMediaTypes) {
+                if(genericMediaType.equals(range)) {
+                    return 2;
+                }
+            }
+            if(this == CBOR) {
+                return -1;
+            }
+            if("application/*".equals(range)) {
+                return 1;
+            }
+            return "*/*".equals(range) ? 0 : -1;
+        }
+
+    }
+
+    private final Format format;
+
+    private final Locale locale;
+
+    private ProblemWriter(Format format, Locale locale) {
+        this.format = format;
+        this.locale = locale;
+    }
+
+    /**
+     * Negotiates the representation and language from request headers.
+     * @param accept the value of the Accept header, may be null.
+     * @param acceptLanguage the value of the Accept-Language header, may be null.
+     * @return a writer for the negotiated representation and language.
+     */
+    public static ProblemWriter negotiate(String accept, String acceptLanguage) {
+        Format format = accept == null ? Format.JSON : FORMATS_BY_ACCEPT.get(accept);
+        if(format == null) {
+            format = negotiateFormat(accept);
+            if(FORMATS_BY_ACCEPT.size() < MAX_CACHED_HEADERS) {
+                FORMATS_BY_ACCEPT.put(accept, format);
+            }
+        }
+        Locale locale = acceptLanguage == null ? Locale.ENGLISH : LOCALES_BY_ACCEPT_LANGUAGE.get(acceptLanguage);
+        if(locale == null) {
+            locale = negotiateLocale(acceptLanguage);
+            if(LOCALES_BY_ACCEPT_LANGUAGE.size() < MAX_CACHED_HEADERS) {
+                LOCALES_BY_ACCEPT_LANGUAGE.put(acceptLanguage, locale);
+            }
+        }
+        return writers(locale)[format.ordinal()];
+    }
+
+    private static ProblemWriter[] writers(Locale locale) {
+        ProblemWriter[] writers = WRITERS.get(locale);
+        if(writers == null) {
+            Format[] formats = Format.values();
+            ProblemWriter[] created = new ProblemWriter[formats.length];
+            for(Format format : formats) {
+                created[format.ordinal()] = new ProblemWriter(format, locale);
+            }
+            writers = WRITERS.putIfAbsent(locale, created);
+            if(writers == null) {
+                writers = created;
+            }
+        }
+        return writers;
+    }
+
+    private static Format negotiateFormat(String accept) {
+        Format[] formats = Format.values();
+        int[] specificities = new int[formats.length];
+        double[] qualities = new double[formats.length];
+        Arrays.fill(specificities, -1);
+        for(String element : accept.split(",")) {
+            String[] parts = element.split(";");
+            String range = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if(range.isEmpty() || Double.isNaN(quality)) {
+                continue;
+            }
+            for(Format format : formats) {
+                // The most specific matching range decides (RFC 9110 - 12.5.1.)
+                int specificity = format.specificity(range);
+                int i = format.ordinal();
+                if(specificity > specificities[i] || (specificity == specificities[i] && specificity >= 0 && quality > qualities[i])) {
+                    specificities[i] = specificity;
+                    qualities[i] = quality;
+                }
+            }
+        }
+        Format best = Format.JSON;
+        double bestQuality = 0;
+        for(Format format : BY_COST) {
+            if(qualities[format.ordinal()] > bestQuality) {
+                best = format;
+                bestQuality = qualities[format.ordinal()];
+            }
+        }
+        return best;
+    }
+
+    private static Locale negotiateLocale(String acceptLanguage) {
+        String best = Locale.ENGLISH.getLanguage();
+        double bestQuality = 0;
+        for(String element : acceptLanguage.split(",")) {
+            String[] parts = element.split(";");
+            String range = parts[0].trim().toLowerCase(Locale.ROOT);
+            int dash = range.indexOf('-');
+            String language = dash < 0 ? range : range.substring(0, dash);
+            double quality = quality(parts);
+            if(quality > bestQuality && !language.isEmpty()) {
+                if("*".equals(language)) {
+                    best = Locale.ENGLISH.getLanguage();
+                    bestQuality = quality;
+                } else if(isLanguage(language) && StatusPhrases.supports(language)) {
+                    best = language;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return Locale.ENGLISH.getLanguage().equals(best) ? Locale.ENGLISH : new Locale(best);
+    }
+
+    private static boolean isLanguage(String language) {
+        if(language.length() < 2 || language.length() > 8) {
+            return false;
+        }
+        for(int i = 0; i < language.length(); i++) {
+            char c = language.charAt(i);
+            if(c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the weight of an element of an Accept or Accept-Language header.
+     * @param parts the element, split at semicolons.
+     * @return the weight, 1 if there is none, NaN if it is malformed.
+     */
+    private static double quality(String[] parts) {
+        for(int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if(parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q') && parameter.charAt(1) == '=') {
+                try {
+                    double quality = Double.parseDouble(parameter.substring(2));
+                    return quality >= 0 && quality <= 1 ? quality : Double.NaN;
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Gets the negotiated representation.
+     * @return the representation.
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the media type of the negotiated representation, for the Content-Type header.
+     * @return the media type.
+     */
+    public String getMediaType() {
+        return format.getMediaType();
+    }
+
+    /**
+     * Gets the negotiated language, for the Content-Language header. This is English, if none of the requested
+     * languages has status phrases.
+     * @return the locale.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Gets the title which is written for the supplied problem. If the problem has a status and its title is the
+     * English status phrase, or it has no title and the type "about:blank", the status phrase in the negotiated
+     * language is used. Otherwise the title of the problem is used as is.
+     * @param problem the problem.
+     * @return the title, may be null.
+     */
+    public String getTitle(Problem problem) {
+        String title = problem.getTitle();
+        int status = problem.getStatusAsInt();
+        if(status == Problem.NO_STATUS) {
+            return title;
+        }
+        boolean isPhrase = title == null ? Problem.ABOUT_BLANK.equals(problem.getType()) : title.equals(Problem.findStatusPhrase(status));
+        if(!isPhrase) {
+            return title;
+        }
+        String phrase = Problem.findStatusPhrase(status, locale);
+        return phrase == null ? title : phrase;
+    }
+
+    /**
+     * Writes the problem in the negotiated representation and language. The problem is not modified, and the
+     * stream is not closed.
+     * @param problem the problem to write.
+     * @param outputStream the stream to write to.
+     * @throws IOException if the stream throws, or there are problems with extending the problem.
+     */
+    public void write(Problem problem, OutputStream outputStream) throws IOException {
+        switch(format) {
+            case XML: {
+                XmlEncoder encoder = XmlEncoder.acquire(outputStream, StandardCharsets.UTF_8);
+                writeXml(problem, encoder);
+                break;
+            }
+            case CBOR: {
+                CborEncoder encoder = CborEncoder.acquire();
+                encoder.target(outputStream);
+                problem.writeCbor(encoder, getTitle(problem));
+                break;
+            }
+            default:
+                problem.writeJson(JsonEncoder.acquire(outputStream, StandardCharsets.UTF_8), getTitle(problem));
+        }
+    }
+
+    /**
+     * Computes the exact number of bytes {@link #write(Problem, OutputStream)} writes, e.g. for a Content-Length
+     * header.
+     * @param problem the problem to measure.
+     * @return the number of bytes.
+     * @throws IOException if there are problems with extending the problem.
+     */
+    public long length(Problem problem) throws IOException {
+        switch(format) {
+            case XML:
+                return writeXml(problem, XmlEncoder.acquire(StandardCharsets.UTF_8));
+            case CBOR:
+                return problem.writeCbor(CborEncoder.acquire(), getTitle(problem));
+            default:
+                return problem.writeJson(JsonEncoder.acquire(StandardCharsets.UTF_8), getTitle(problem));
+        }
+    }
+
+    private long writeXml(Problem problem, XmlEncoder encoder) throws IOException {
+        try {
+            return problem.writeXml(encoder, true, getTitle(problem));
+        } catch (XMLStreamException e) {
+            if(e.getNestedException() instanceof IOException) {
+                throw (IOException) e.getNestedException();
+            }
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProblemWriter [format=" + format + ", locale=" + locale + "]";
+    }
+
+}
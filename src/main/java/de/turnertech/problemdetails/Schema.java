@@ -0,0 +1,306 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The bundled RFC-9457.json and RFC-9457.xsd, compiled into one {@link Rule} per RFC 9457 member. The schemas are
+ * read once, on first use, with the decoders of this library. Only the keywords the bundled schemas use are
+ * understood, anything else fails loudly rather than being ignored.
+ */
+final class Schema {
+
+    static final String JSON_RESOURCE = "RFC-9457.json";
+
+    static final String XSD_RESOURCE = "RFC-9457.xsd";
+
+    static final int STRING = 0;
+
+    static final int URI_REFERENCE = 1;
+
+    static final int INTEGER = 2;
+
+    private static final String XS = XMLConstants.W3C_XML_SCHEMA_NS_URI;
+
+    /** The properties of RFC-9457.json, in document order. */
+    final Rule[] members;
+
+    /** The elements of the sequence in RFC-9457.xsd, in schema order. */
+    final Rule[] elements;
+
+    /** The maxOccurs of the xs:any particle, which matches extension elements. */
+    final int extensionMaxOccurs;
+
+    private Schema(Rule[] members, Rule[] elements, int extensionMaxOccurs) {
+        this.members = members;
+        this.elements = elements;
+        this.extensionMaxOccurs = extensionMaxOccurs;
+    }
+
+    /**
+     * Gets the compiled schemas, compiling them on first use.
+     * @return the schemas.
+     */
+    static Schema get() {
+        return Holder.SCHEMA;
+    }
+
+    private static final class Holder {
+
+        private static final Schema SCHEMA = compile();
+
+    }
+
+    /**
+     * Constraints of one RFC 9457 member or element.
+     */
+    static final class Rule {
+
+        final String name;
+
+        final int kind;
+
+        final long minimum;
+
+        final long maximum;
+
+        final int minOccurs;
+
+        final int maxOccurs;
+
+        private Rule(String name, int kind, long minimum, long maximum, int minOccurs, int maxOccurs) {
+            this.name = name;
+            this.kind = kind;
+            this.minimum = minimum;
+            this.maximum = maximum;
+            this.minOccurs = minOccurs;
+            this.maxOccurs = maxOccurs;
+        }
+
+        /**
+         * Checks a value against this rule.
+         * @param text the text of the value, without quotes.
+         * @return the value as String, URI or Long, or null if it does not match.
+         */
+        Object check(CharSequence text) {
+            switch(kind) {
+                case URI_REFERENCE:
+                    try {
+                        return new URI(text.toString());
+                    } catch (URISyntaxException e) {
+                        return null;
+                    }
+                case INTEGER:
+                    return checkInteger(text);
+                default:
+                    return text.toString();
+            }
+        }
+
+        private Long checkInteger(CharSequence text) {
+            int start = text.length() > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+            // 18 digits always fit into a long
+            if(text.length() == start || text.length() - start > 18) {
+                return null;
+            }
+            long value = 0;
+            for(int i = start; i < text.length(); i++) {
+                char digit = text.charAt(i);
+                if(digit < '0' || digit > '9') {
+                    return null;
+                }
+                value = value * 10 + digit - '0';
+            }
+            if(text.charAt(0) == '-') {
+                value = -value;
+            }
+            return value >= minimum && value <= maximum ? Long.valueOf(value) : null;
+        }
+
+        /**
+         * Sets a checked value on a problem. A status which is not an HTTP status code is valid in XML, but skipped
+         * as by the lenient decoders.
+         * @param problem the problem to populate.
+         * @param value the result of {@link #check(CharSequence)}.
+         */
+        void set(Problem problem, Object value) {
+            switch(name) {
+                case "type":
+                    problem.setType((URI) value);
+                    break;
+                case "title":
+                    problem.setTitle((String) value);
+                    break;
+                case "detail":
+                    problem.setDetail((String) value);
+                    break;
+                case "status":
+                    long status = (Long) value;
+                    if(status >= 100 && status <= 599) {
+                        problem.setStatus((int) status);
+                    }
+                    break;
+                case "instance":
+                    problem.setInstance((URI) value);
+                    break;
+                default:
+                    throw new IllegalStateException(name);
+            }
+        }
+
+    }
+
+    /**
+     * Finds the member rule for a name.
+     * @param name the member name.
+     * @return the rule, or null if the name is not a property of the schema.
+     */
+    Rule member(CharSequence name) {
+        for(Rule rule : members) {
+            if(rule.name.contentEquals(name)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the element rule for the current start element of a reader.
+     * @param xmlStreamReader the reader, positioned at a start element.
+     * @return the index of the rule in {@link #elements}, or -1 if the element is an extension.
+     */
+    int element(XMLStreamReader xmlStreamReader) {
+        if(!Problem.NAMESPACE.equals(xmlStreamReader.getNamespaceURI())) {
+            return -1;
+        }
+        String localName = xmlStreamReader.getLocalName();
+        for(int i = 0; i < elements.length; i++) {
+            if(elements[i].name.equals(localName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Schema compile() {
+        try {
+            List<Rule> elements = new ArrayList<>();
+            int extensionMaxOccurs = compileXsd(elements);
+            return new Schema(compileJson(), elements.toArray(new Rule[0]), extensionMaxOccurs);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Rule[] compileJson() throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        try(InputStream inputStream = resource(JSON_RESOURCE)) {
+            // The schema is itself a JSON object, its keywords arrive as extension members
+            Problem.fromJson(inputStream, () -> new Problem() {
+                @Override
+                protected void readJsonExtension(String name, Object value) {
+                    if("properties".equals(name)) {
+                        for(Map.Entry<?, ?> property : ((Map<?, ?>) value).entrySet()) {
+                            rules.add(compileProperty((String) property.getKey(), (Map<?, ?>) property.getValue()));
+                        }
+                    }
+                }
+            });
+        }
+        return rules.toArray(new Rule[0]);
+    }
+
+    private static Rule compileProperty(String name, Map<?, ?> property) {
+        Object type = property.get("type");
+        if("integer".equals(type)) {
+            long minimum = property.get("minimum") instanceof Long ? (Long) property.get("minimum") : Long.MIN_VALUE;
+            long maximum = property.get("maximum") instanceof Long ? (Long) property.get("maximum") : Long.MAX_VALUE;
+            return new Rule(name, INTEGER, minimum, maximum, 0, 1);
+        } else if("string".equals(type)) {
+            Object format = property.get("format");
+            if(format == null) {
+                return new Rule(name, STRING, 0, 0, 0, 1);
+            } else if("uri-reference".equals(format)) {
+                return new Rule(name, URI_REFERENCE, 0, 0, 0, 1);
+            }
+        }
+        throw new IllegalStateException(JSON_RESOURCE + ": " + name);
+    }
+
+    /**
+     * Compiles the xs:element declarations with a simple type, which are the members of the problem sequence.
+     * @param rules receives the rules, in schema order.
+     * @return the maxOccurs of the xs:any particle, 0 if there is none.
+     */
+    private static int compileXsd(List<Rule> rules) throws IOException, XMLStreamException {
+        int extensionMaxOccurs = 0;
+        try(InputStream inputStream = resource(XSD_RESOURCE)) {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader xmlStreamReader = factory.createXMLStreamReader(inputStream);
+            try {
+                while(xmlStreamReader.hasNext()) {
+                    if(xmlStreamReader.next() != XMLStreamConstants.START_ELEMENT || !XS.equals(xmlStreamReader.getNamespaceURI())) {
+                        continue;
+                    }
+                    if("any".equals(xmlStreamReader.getLocalName())) {
+                        extensionMaxOccurs = occurs(xmlStreamReader, "maxOccurs");
+                    } else if("element".equals(xmlStreamReader.getLocalName()) && xmlStreamReader.getAttributeValue(null, "type") != null) {
+                        rules.add(compileElement(xmlStreamReader));
+                    }
+                }
+            } finally {
+                xmlStreamReader.close();
+            }
+        }
+        return extensionMaxOccurs;
+    }
+
+    private static Rule compileElement(XMLStreamReader xmlStreamReader) {
+        String name = xmlStreamReader.getAttributeValue(null, "name");
+        String type = xmlStreamReader.getAttributeValue(null, "type");
+        int minOccurs = occurs(xmlStreamReader, "minOccurs");
+        int maxOccurs = occurs(xmlStreamReader, "maxOccurs");
+        switch(type.substring(type.indexOf(':') + 1)) {
+            case "string":
+                return new Rule(name, STRING, 0, 0, minOccurs, maxOccurs);
+            case "anyURI":
+                return new Rule(name, URI_REFERENCE, 0, 0, minOccurs, maxOccurs);
+            case "positiveInteger":
+                return new Rule(name, INTEGER, 1, Long.MAX_VALUE, minOccurs, maxOccurs);
+            default:
+                throw new IllegalStateException(XSD_RESOURCE + ": " + name);
+        }
+    }
+
+    private static int occurs(XMLStreamReader xmlStreamReader, String attribute) {
+        String value = xmlStreamReader.getAttributeValue(null, attribute);
+        if(value == null) {
+            return 1;
+        }
+        return "unbounded".equals(value) ? Integer.MAX_VALUE : Integer.parseInt(value);
+    }
+
+    private static InputStream resource(String name) throws IOException {
+        InputStream inputStream = Schema.class.getResourceAsStream(name);
+        if(inputStream == null) {
+            throw new IOException(name);
+        }
+        return inputStream;
+    }
+
+}
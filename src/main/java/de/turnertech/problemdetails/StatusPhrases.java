@@ -0,0 +1,49 @@
+package de.turnertech.problemdetails;
+
+import java.util.Locale;
+
+/**
+ * Language indexed tables of HTTP Status Phrases. Each table is a dense array indexed by {@code status - 100},
+ * compiled from the i18n bundles at build time into {@link I18n}, and initialised when its language is first
+ * requested. No resource bundle is looked up at run time. Languages without their own phrases fall back to English,
+ * regardless of the default locale.
+ */
+final class StatusPhrases {
+
+    private static final int FIRST_STATUS = 100;
+
+    private static final int LAST_STATUS = 599;
+
+    private static final String ENGLISH = Locale.ENGLISH.getLanguage();
+
+    private StatusPhrases() {
+        // Static helper
+    }
+
+    /**
+     * Gets the phrase for the supplied status code.
+     * @param statusCode the HTTP Status Code.
+     * @param locale the desired language.
+     * @return the phrase, or null if the status code is unknown.
+     */
+    static String find(int statusCode, Locale locale) {
+        if(statusCode < FIRST_STATUS || statusCode > LAST_STATUS) {
+            return null;
+        }
+        String[] table = I18n.phrases(locale.getLanguage());
+        if(table == null) {
+            table = I18n.phrases(ENGLISH);
+        }
+        return table[statusCode - FIRST_STATUS];
+    }
+
+    /**
+     * Checks if phrases exist in the supplied language itself, rather than only through a fallback.
+     * @param language the ISO 639 language code.
+     * @return true if the language has its own phrases.
+     */
+    static boolean supports(String language) {
+        return I18n.phrases(language) != null;
+    }
+
+}
@@ -0,0 +1,129 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * {@link MemberWriter} which writes extension members as elements in the problem namespace to an
+ * {@link XMLStreamWriter}. Used by {@link Problem#toXml(XMLStreamWriter, java.nio.charset.Charset, boolean)}.
+ * Exceptions of the writer are wrapped in {@link StaxException}, so that they can be unwrapped by the caller.
+ */
+final class StaxMemberWriter implements MemberWriter {
+
+    private final XMLStreamWriter xmlStreamWriter;
+
+    /** For each open nested member, whether it is an array, whose items are written as i elements. */
+    private boolean[] arrays = new boolean[4];
+
+    private int nesting;
+
+    StaxMemberWriter(XMLStreamWriter xmlStreamWriter) {
+        this.xmlStreamWriter = xmlStreamWriter;
+    }
+
+    @Override
+    public void writeMember(String name, CharSequence value) throws IOException {
+        try {
+            xmlStreamWriter.writeStartElement(Problem.NAMESPACE, tag(name));
+            xmlStreamWriter.writeCharacters(value.toString());
+            xmlStreamWriter.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new StaxException(e);
+        }
+    }
+
+    @Override
+    public void writeMember(String name, long value) throws IOException {
+        writeMember(name, Long.toString(value));
+    }
+
+    @Override
+    public void writeMember(String name, double value) throws IOException {
+        writeMember(name, XmlEncoder.toXsDouble(value));
+    }
+
+    @Override
+    public void writeMember(String name, boolean value) throws IOException {
+        writeMember(name, Boolean.toString(value));
+    }
+
+    @Override
+    public void writeNullMember(String name) throws IOException {
+        try {
+            xmlStreamWriter.writeEmptyElement(Problem.NAMESPACE, tag(name));
+            xmlStreamWriter.writeNamespace("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+            xmlStreamWriter.writeAttribute("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil", "true");
+        } catch (XMLStreamException e) {
+            throw new StaxException(e);
+        }
+    }
+
+    @Override
+    public void writeStartObject(String name) throws IOException {
+        try {
+            xmlStreamWriter.writeStartElement(Problem.NAMESPACE, tag(name));
+        } catch (XMLStreamException e) {
+            throw new StaxException(e);
+        }
+        startNested(false);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        try {
+            xmlStreamWriter.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new StaxException(e);
+        }
+        nesting--;
+    }
+
+    @Override
+    public void writeStartArray(String name) throws IOException {
+        try {
+            xmlStreamWriter.writeStartElement(Problem.NAMESPACE, tag(name));
+        } catch (XMLStreamException e) {
+            throw new StaxException(e);
+        }
+        startNested(true);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        writeEndObject();
+    }
+
+    private String tag(String name) {
+        return nesting > 0 && arrays[nesting - 1] ? "i" : name;
+    }
+
+    private void startNested(boolean array) {
+        if(nesting == arrays.length) {
+            arrays = Arrays.copyOf(arrays, nesting * 2);
+        }
+        arrays[nesting++] = array;
+    }
+
+    /**
+     * Carries an {@link XMLStreamException} through the {@link MemberWriter} methods.
+     */
+    static final class StaxException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        StaxException(XMLStreamException cause) {
+            super(cause);
+        }
+
+        @Override
+        public XMLStreamException getCause() {
+            return (XMLStreamException) super.getCause();
+        }
+
+    }
+
+}
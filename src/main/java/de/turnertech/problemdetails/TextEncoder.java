@@ -0,0 +1,739 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Buffered text encoder which writes characters directly into the target {@link Charset}. UTF-8, ISO-8859-1 and
+ * US-ASCII are encoded by hand, every other charset is encoded using a cached {@link CharsetEncoder}. Instances are
+ * not thread safe. They are owned by one caller at a time and handed out from a lock-free {@link Pool} (see the
+ * acquire methods of the subclasses).
+ * The target is an {@link OutputStream}, a {@link ByteBuffer}, a {@link WritableByteChannel} or nothing at all,
+ * when only the encoded length is of interest. Targets are never flushed or closed.
+ */
+abstract class TextEncoder {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private static final int MODE_UTF_8 = 0;
+
+    private static final int MODE_LATIN_1 = 1;
+
+    private static final int MODE_ASCII = 2;
+
+    private static final int MODE_OTHER = 3;
+
+    /** The three ASCII digits of each status code from 100 to 599, in order. */
+    private static final byte[] STATUS_DIGITS = new byte[500 * 3];
+
+    static {
+        for(int status = 100, offset = 0; status < 600; status++) {
+            STATUS_DIGITS[offset++] = (byte) ('0' + status / 100);
+            STATUS_DIGITS[offset++] = (byte) ('0' + status / 10 % 10);
+            STATUS_DIGITS[offset++] = (byte) ('0' + status % 10);
+        }
+    }
+
+    final byte[] buffer = new byte[BUFFER_SIZE];
+
+    int position;
+
+    private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+
+    /** Second view of the buffer for channel writes, as byteBuffer is in use while encoding. */
+    private final ByteBuffer channelBuffer = ByteBuffer.wrap(buffer);
+
+    private final CharBuffer charBuffer = CharBuffer.allocate(BUFFER_SIZE / 4);
+
+    private OutputStream outputStream;
+
+    private ByteBuffer targetBuffer;
+
+    private WritableByteChannel channel;
+
+    /** Number of bytes handed to the target since the encoder was opened. */
+    private long written;
+
+    private OutputStream targetStream;
+
+    private Writer targetWriter;
+
+    private LazyAppender lazyAppender;
+
+    private Charset charset;
+
+    private int mode;
+
+    private int maxDirectCodePoint;
+
+    private CharsetEncoder charsetEncoder;
+
+    /** Whether the encoder was taken from the pool, and must be returned on close. */
+    boolean pooled;
+
+    /** For each open nested member, whether it is an array, whose items are written without names. */
+    private boolean[] arrays = new boolean[4];
+
+    private int nesting;
+
+    /**
+     * Converts a constant to the byte form expected by {@link #writeAscii(byte[])}.
+     * @param constant the constant, must only contain ASCII characters.
+     * @return the ASCII bytes.
+     */
+    static byte[] ascii(String constant) {
+        return constant.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Computes the hash code of text as {@link String#hashCode()} does, without converting it to a String.
+     * @param text the text to hash.
+     * @return the hash code, which is equal for equal characters in any CharSequence.
+     */
+    static int hash(CharSequence text) {
+        if(text instanceof String) {
+            return text.hashCode();
+        }
+        int hash = 0;
+        for(int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Compares the characters of two texts, without converting either to a String.
+     * @param a the first text, may be null.
+     * @param b the second text, may be null.
+     * @return true if both are null, or contain the same characters.
+     */
+    static boolean contentEquals(CharSequence a, CharSequence b) {
+        if(a == b) {
+            return true;
+        }
+        if(a == null || b == null) {
+            return false;
+        }
+        if(a instanceof String) {
+            return ((String) a).contentEquals(b);
+        }
+        if(b instanceof String) {
+            return ((String) b).contentEquals(a);
+        }
+        if(a.length() != b.length()) {
+            return false;
+        }
+        for(int i = 0; i < a.length(); i++) {
+            if(a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a nested object or array member was started.
+     * @param array true for an array.
+     */
+    final void startNested(boolean array) {
+        if(nesting == arrays.length) {
+            arrays = Arrays.copyOf(arrays, nesting * 2);
+        }
+        arrays[nesting++] = array;
+    }
+
+    /**
+     * Records that the nested member started last was ended.
+     */
+    final void endNested() {
+        nesting--;
+    }
+
+    /**
+     * Checks if members are currently written as the items of an array.
+     * @return true if the innermost open nested member is an array.
+     */
+    final boolean inArray() {
+        return nesting > 0 && arrays[nesting - 1];
+    }
+
+    /**
+     * Prepares this encoder for writing a new document in the supplied charset. Until a target is set, the output is
+     * only counted.
+     * @param charset the charset to encode with.
+     */
+    void open(Charset charset) {
+        this.outputStream = null;
+        this.targetBuffer = null;
+        this.channel = null;
+        this.written = 0;
+        this.position = 0;
+        this.nesting = 0;
+        if(!charset.equals(this.charset)) {
+            this.charset = charset;
+            this.charsetEncoder = null;
+            if(StandardCharsets.UTF_8.equals(charset)) {
+                mode = MODE_UTF_8;
+                maxDirectCodePoint = Character.MAX_CODE_POINT;
+            } else if(StandardCharsets.ISO_8859_1.equals(charset)) {
+                mode = MODE_LATIN_1;
+                maxDirectCodePoint = 0xFF;
+            } else if(StandardCharsets.US_ASCII.equals(charset)) {
+                mode = MODE_ASCII;
+                maxDirectCodePoint = 0x7F;
+            } else {
+                mode = MODE_OTHER;
+                // Charsets which cannot represent all of Unicode get everything beyond ASCII escaped.
+                maxDirectCodePoint = charset.contains(StandardCharsets.UTF_8) ? Character.MAX_CODE_POINT : 0x7F;
+                charsetEncoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+        }
+        if(charsetEncoder != null) {
+            charsetEncoder.reset();
+            charBuffer.clear();
+        }
+    }
+
+    /**
+     * Sets the target to a stream.
+     * @param outputStream the stream to write to.
+     */
+    final void target(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Sets the target to a buffer. The buffer position is advanced as bytes are written.
+     * @param byteBuffer the buffer to write to.
+     */
+    final void target(ByteBuffer byteBuffer) {
+        this.targetBuffer = byteBuffer;
+    }
+
+    /**
+     * Sets the target to a channel. Each write blocks until all bytes are written.
+     * @param channel the channel to write to.
+     */
+    final void target(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Checks whether output goes anywhere, or is only counted.
+     * @return true if a target is set.
+     */
+    final boolean hasTarget() {
+        return outputStream != null || targetBuffer != null || channel != null;
+    }
+
+    /**
+     * Gets the number of bytes written since the encoder was opened, including buffered bytes. Exact if the
+     * charset is {@link #isPreEncodable() pre-encodable}, as other charsets hold back pending characters.
+     * @return the number of bytes.
+     */
+    final long count() {
+        return written + position;
+    }
+
+    /**
+     * Gets a stream which writes bytes to the current target, behind all output which has been flushed. It is
+     * created once per encoder, and closing it has no effect.
+     * @return the stream.
+     * @see #flush()
+     */
+    final OutputStream targetStream() {
+        if(targetStream == null) {
+            targetStream = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    if(position == BUFFER_SIZE) {
+                        drain();
+                    }
+                    buffer[position++] = (byte) b;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    writeRaw(b, off, len);
+                }
+            };
+        }
+        return targetStream;
+    }
+
+    /**
+     * Gets a writer which encodes characters without escaping into the current target. Characters which cannot be
+     * represented in the charset are handed to {@link #writeUnmappable(int)}. It is created once per encoder, and
+     * closing it has no effect.
+     * @return the writer.
+     */
+    final Writer targetWriter() {
+        if(targetWriter == null) {
+            targetWriter = new Writer() {
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                    writeRawChars(CharBuffer.wrap(cbuf, off, len), 0, len);
+                }
+
+                @Override
+                public void write(String str, int off, int len) throws IOException {
+                    writeRawChars(str, off, off + len);
+                }
+
+                @Override
+                public void write(int c) throws IOException {
+                    if(c < 0x80) {
+                        writeAscii(c);
+                    } else {
+                        writeNonAscii(String.valueOf((char) c), 0);
+                    }
+                }
+
+                @Override
+                public void flush() {
+                    // Flushed on close of the encoder
+                }
+
+                @Override
+                public void close() {
+                    // The target belongs to the caller
+                }
+            };
+        }
+        return targetWriter;
+    }
+
+    /**
+     * Writes lazy text through {@link #writeEscaped(CharSequence, int, int)}, in the chunks it is appended in. A
+     * surrogate pair which is split between two chunks is joined.
+     * @param text the text to write.
+     * @throws IOException if the target or the text throws.
+     */
+    final void writeLazy(LazyText text) throws IOException {
+        LazyAppender appender = lazyAppender;
+        if(appender == null || appender.open) {
+            // Text which writes another problem to this encoder is not possible, but a leaked appender is
+            appender = new LazyAppender();
+            lazyAppender = appender;
+        }
+        appender.open = true;
+        try {
+            text.writeTo(appender);
+            appender.finish();
+        } finally {
+            appender.open = false;
+        }
+    }
+
+    /**
+     * Writes a chunk of text, escaped and encoded for the format of this encoder.
+     * @param s the sequence to write from.
+     * @param start the index of the first char to write.
+     * @param end the index after the last char to write.
+     * @throws IOException if the target throws.
+     */
+    abstract void writeEscaped(CharSequence s, int start, int end) throws IOException;
+
+    private void writeRawChars(CharSequence s, int start, int end) throws IOException {
+        for(int i = start; i < end;) {
+            char c = s.charAt(i);
+            if(c < 0x80) {
+                writeAscii(c);
+                i++;
+            } else {
+                i += writeNonAscii(s, i);
+            }
+        }
+    }
+
+    /**
+     * The appendable handed to {@link LazyText#writeTo(Appendable)}. A trailing high surrogate is held back until the
+     * next chunk, so that pairs are encoded as one code point.
+     */
+    private final class LazyAppender implements Appendable {
+
+        private final char[] pair = new char[2];
+
+        private final CharBuffer pairBuffer = CharBuffer.wrap(pair);
+
+        private final char[] single = new char[1];
+
+        private final CharBuffer singleBuffer = CharBuffer.wrap(single);
+
+        private char pendingHigh;
+
+        private boolean open;
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return csq == null ? append("null", 0, 4) : append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            if(csq == null) {
+                return append("null", start, end);
+            }
+            if(!open) {
+                throw new IllegalStateException();
+            }
+            Objects.checkFromToIndex(start, end, csq.length());
+            if(start == end) {
+                return this;
+            }
+            if(pendingHigh != 0) {
+                pair[0] = pendingHigh;
+                pendingHigh = 0;
+                if(Character.isLowSurrogate(csq.charAt(start))) {
+                    pair[1] = csq.charAt(start++);
+                    writeEscaped(pairBuffer, 0, 2);
+                } else {
+                    writeHeldBack();
+                }
+            }
+            if(start < end && Character.isHighSurrogate(csq.charAt(end - 1))) {
+                pendingHigh = csq.charAt(--end);
+            }
+            if(start < end) {
+                writeEscaped(csq, start, end);
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            single[0] = c;
+            return append(singleBuffer, 0, 1);
+        }
+
+        private void finish() throws IOException {
+            if(pendingHigh != 0) {
+                pair[0] = pendingHigh;
+                pendingHigh = 0;
+                writeHeldBack();
+            }
+        }
+
+        /**
+         * Writes an unpaired high surrogate on its own, so that the encoder escapes or replaces it.
+         */
+        private void writeHeldBack() throws IOException {
+            pair[1] = 0;
+            writeEscaped(pairBuffer, 0, 1);
+        }
+
+    }
+
+    /**
+     * Writes all pending output to the target and releases it. Pooled encoders are returned to their pool, and must
+     * not be used by the caller afterwards.
+     * @return the total number of bytes written since the encoder was opened.
+     * @throws IOException if the target throws.
+     * @throws java.nio.BufferOverflowException if the target is a buffer without enough space remaining.
+     */
+    long close() throws IOException {
+        try {
+            if(mode == MODE_OTHER) {
+                encodePending(true);
+            }
+            drain();
+            return written;
+        } finally {
+            outputStream = null;
+            targetBuffer = null;
+            channel = null;
+            if(pooled) {
+                pooled = false;
+                recycle();
+            }
+        }
+    }
+
+    /**
+     * Returns this encoder to the pool it was acquired from.
+     */
+    abstract void recycle();
+
+    /**
+     * Encodes all pending characters and writes all buffered bytes to the target, so that the target or
+     * {@link #targetStream()} may be written to directly.
+     * @throws IOException if the target throws.
+     */
+    void flush() throws IOException {
+        if(mode == MODE_OTHER) {
+            encodePending(false);
+        }
+        drain();
+    }
+
+    /**
+     * Gets the charset currently being encoded.
+     * @return the charset currently being encoded.
+     */
+    Charset charset() {
+        return charset;
+    }
+
+    /**
+     * Writes a single ASCII character.
+     * @param c the character, must be below 0x80.
+     * @throws IOException if the stream throws.
+     */
+    final void writeAscii(int c) throws IOException {
+        if(mode == MODE_OTHER) {
+            putChar((char) c);
+        } else {
+            if(position == BUFFER_SIZE) {
+                drain();
+            }
+            buffer[position++] = (byte) c;
+        }
+    }
+
+    /**
+     * Writes a sequence of bytes known to contain only ASCII characters.
+     * @param ascii the ASCII bytes.
+     * @throws IOException if the stream throws.
+     */
+    final void writeAscii(byte[] ascii) throws IOException {
+        if(mode == MODE_OTHER) {
+            for(int i = 0; i < ascii.length; i++) {
+                putChar((char) ascii[i]);
+            }
+        } else if(ascii.length > BUFFER_SIZE - position) {
+            for(int i = 0; i < ascii.length; i++) {
+                writeAscii(ascii[i]);
+            }
+        } else {
+            System.arraycopy(ascii, 0, buffer, position, ascii.length);
+            position += ascii.length;
+        }
+    }
+
+    /**
+     * Makes sure that at least the supplied number of bytes can be put into {@link #buffer} directly, for binary
+     * formats which write bytes at {@link #position} themselves. Only valid for charsets which are pre-encodable.
+     * @param length the number of bytes, at most {@link #BUFFER_SIZE}.
+     * @throws IOException if the target throws.
+     */
+    final void reserve(int length) throws IOException {
+        if(BUFFER_SIZE - position < length) {
+            drain();
+        }
+    }
+
+    /**
+     * Whether output in the current charset may be pre-encoded and spliced in using {@link #writeEncoded(byte[])}.
+     * This is the case for charsets without state, such as UTF-8, ISO-8859-1 and US-ASCII.
+     * @return true if pre-encoded bytes may be written.
+     */
+    final boolean isPreEncodable() {
+        return mode != MODE_OTHER;
+    }
+
+    /**
+     * Writes bytes which were previously encoded in the current charset.
+     * @param encoded the pre-encoded bytes.
+     * @throws IOException if the stream throws.
+     * @see #isPreEncodable()
+     */
+    final void writeEncoded(byte[] encoded) throws IOException {
+        writeRaw(encoded, 0, encoded.length);
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) throws IOException {
+        if(length > BUFFER_SIZE - position) {
+            drain();
+            if(length > BUFFER_SIZE) {
+                write(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Writes a status code between 100 and 599 from a precomputed digit table.
+     * @param status the status code.
+     * @throws IOException if the stream throws.
+     */
+    final void writeStatusCode(int status) throws IOException {
+        int offset = (status - 100) * 3;
+        if(mode == MODE_OTHER) {
+            putChar((char) STATUS_DIGITS[offset]);
+            putChar((char) STATUS_DIGITS[offset + 1]);
+            putChar((char) STATUS_DIGITS[offset + 2]);
+        } else {
+            if(BUFFER_SIZE - position < 3) {
+                drain();
+            }
+            buffer[position++] = STATUS_DIGITS[offset];
+            buffer[position++] = STATUS_DIGITS[offset + 1];
+            buffer[position++] = STATUS_DIGITS[offset + 2];
+        }
+    }
+
+    /**
+     * Writes a non negative int in decimal notation.
+     * @param value the value to write.
+     * @throws IOException if the stream throws.
+     */
+    final void writeDigits(int value) throws IOException {
+        if(value >= 10) {
+            writeDigits(value / 10);
+        }
+        writeAscii('0' + (value % 10));
+    }
+
+    /**
+     * Writes a long in decimal notation.
+     * @param value the value to write.
+     * @throws IOException if the stream throws.
+     */
+    final void writeLong(long value) throws IOException {
+        if(value < 0) {
+            writeAscii('-');
+            if(value == Long.MIN_VALUE) {
+                writeLong(-(value / 10));
+                writeAscii('8');
+                return;
+            }
+            value = -value;
+        }
+        if(value >= 10) {
+            writeLong(value / 10);
+        }
+        writeAscii('0' + (int) (value % 10));
+    }
+
+    /**
+     * Writes the character at index i of the supplied sequence, which must not be ASCII. Characters which cannot be
+     * represented in the target charset are handed to {@link #writeUnmappable(int)}.
+     * @param s the sequence being written.
+     * @param i the index of the character to write.
+     * @return the number of chars consumed (2 for a surrogate pair, otherwise 1).
+     * @throws IOException if the stream throws.
+     */
+    final int writeNonAscii(CharSequence s, int i) throws IOException {
+        char c = s.charAt(i);
+        int codePoint = c;
+        int consumed = 1;
+        if(Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+            codePoint = Character.toCodePoint(c, s.charAt(i + 1));
+            consumed = 2;
+        } else if(Character.isSurrogate(c)) {
+            writeUnmappable(c);
+            return 1;
+        }
+
+        if(maxDirectCodePoint < codePoint) {
+            writeUnmappable(codePoint);
+        } else if(mode == MODE_UTF_8) {
+            writeUtf8(codePoint);
+        } else if(mode == MODE_OTHER) {
+            putChar(c);
+            if(consumed == 2) {
+                putChar(s.charAt(i + 1));
+            }
+        } else {
+            if(position == BUFFER_SIZE) {
+                drain();
+            }
+            buffer[position++] = (byte) codePoint;
+        }
+        return consumed;
+    }
+
+    /**
+     * Called for code points (or unpaired surrogates) which cannot be written directly in the target charset.
+     * Implementations are expected to write an ASCII escape sequence.
+     * @param codePoint the code point to escape.
+     * @throws IOException if the stream throws.
+     */
+    abstract void writeUnmappable(int codePoint) throws IOException;
+
+    private void writeUtf8(int codePoint) throws IOException {
+        if(BUFFER_SIZE - position < 4) {
+            drain();
+        }
+        if(codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (codePoint >> 6));
+        } else if(codePoint < 0x10000) {
+            buffer[position++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void putChar(char c) throws IOException {
+        if(!charBuffer.hasRemaining()) {
+            encodePending(false);
+        }
+        charBuffer.put(c);
+    }
+
+    private void encodePending(boolean endOfInput) throws IOException {
+        charBuffer.flip();
+        byteBuffer.limit(BUFFER_SIZE).position(position);
+        CoderResult result;
+        do {
+            result = charsetEncoder.encode(charBuffer, byteBuffer, endOfInput);
+            if(result.isOverflow()) {
+                position = byteBuffer.position();
+                drain();
+                byteBuffer.position(0);
+            }
+        } while(result.isOverflow());
+        if(endOfInput) {
+            while(charsetEncoder.flush(byteBuffer).isOverflow()) {
+                position = byteBuffer.position();
+                drain();
+                byteBuffer.position(0);
+            }
+        }
+        position = byteBuffer.position();
+        charBuffer.compact();
+    }
+
+    private void drain() throws IOException {
+        if(position > 0) {
+            write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        if(outputStream != null) {
+            outputStream.write(bytes, offset, length);
+        } else if(targetBuffer != null) {
+            targetBuffer.put(bytes, offset, length);
+        } else if(channel != null) {
+            ByteBuffer source = bytes == buffer ? channelBuffer : ByteBuffer.wrap(bytes);
+            source.limit(offset + length).position(offset);
+            while(source.hasRemaining()) {
+                channel.write(source);
+            }
+            source.clear();
+        }
+        written += length;
+    }
+
+}
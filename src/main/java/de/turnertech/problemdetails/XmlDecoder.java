@@ -0,0 +1,301 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Single pass XML decoder used by {@link Problem#fromXml(XMLStreamReader)}. The RFC 9457 elements are decoded
+ * directly into the problem, all other child elements are handed to
+ * {@link Problem#readXmlExtension(XMLStreamReader)}. Validation against the {@link Schema} happens in the same
+ * pass.
+ */
+final class XmlDecoder {
+
+    /** Element name of array items, see {@link XmlEncoder}. */
+    private static final String ITEM = "i";
+
+    private XmlDecoder() {
+        // Static helper
+    }
+
+    /**
+     * Decodes a problem element. The reader must be positioned at the start of the document, at the problem start
+     * element, or before it. On return it is positioned at the problem end element.
+     * @param xmlStreamReader the reader to read from.
+     * @param problem the problem to populate.
+     * @throws XMLStreamException if the reader throws or no problem element is found.
+     */
+    static void decode(XMLStreamReader xmlStreamReader, Problem problem) throws XMLStreamException {
+        findProblem(xmlStreamReader);
+        while(xmlStreamReader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if(isProblemElement(xmlStreamReader, "type") || isProblemElement(xmlStreamReader, "problem")) {
+                // Version 1.0 of this library wrote the type as a problem element
+                URI type = toUri(xmlStreamReader.getElementText());
+                if(type != null) {
+                    problem.setType(type);
+                }
+            } else if(isProblemElement(xmlStreamReader, "title")) {
+                problem.setTitle(xmlStreamReader.getElementText());
+            } else if(isProblemElement(xmlStreamReader, "detail")) {
+                Appendable sink = problem.detailSink();
+                if(sink == null) {
+                    problem.setDetail(xmlStreamReader.getElementText());
+                } else {
+                    readElementText(xmlStreamReader, sink);
+                }
+            } else if(isProblemElement(xmlStreamReader, "status")) {
+                JsonDecoder.setStatus(problem, xmlStreamReader.getElementText().trim());
+            } else if(isProblemElement(xmlStreamReader, "instance")) {
+                problem.setInstance(toUri(xmlStreamReader.getElementText()));
+            } else {
+                problem.readXmlExtension(xmlStreamReader);
+            }
+        }
+    }
+
+    /**
+     * Decodes a problem element and validates it against the bundled RFC-9457.xsd in the same pass. The elements of
+     * RFC 9457 must appear in schema order, before any extension element, and carry no attributes other than those
+     * of XML Schema instances.
+     * @param xmlStreamReader the reader to read from.
+     * @param problem the problem to populate.
+     * @param schema the compiled schema.
+     * @param maxExtensions the number of extension elements allowed.
+     * @throws XMLStreamException if the reader throws, no problem element is found or it does not match the schema.
+     */
+    static void decode(XMLStreamReader xmlStreamReader, Problem problem, Schema schema, int maxExtensions) throws XMLStreamException {
+        findProblem(xmlStreamReader);
+        checkAttributes(xmlStreamReader);
+        Schema.Rule[] rules = schema.elements;
+        // The rule the last element matched, and how often it matched
+        int current = 0;
+        int occurs = 0;
+        int extensions = 0;
+        while(xmlStreamReader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            int index = schema.element(xmlStreamReader);
+            if(index < 0) {
+                if(extensions == 0) {
+                    checkRequired(xmlStreamReader, rules, current, occurs, rules.length);
+                }
+                if(++extensions > maxExtensions) {
+                    throw schemaError(xmlStreamReader);
+                }
+                problem.readXmlExtension(xmlStreamReader);
+                continue;
+            }
+            if(extensions > 0 || index < current || (index == current && occurs >= rules[index].maxOccurs)) {
+                throw schemaError(xmlStreamReader);
+            }
+            checkRequired(xmlStreamReader, rules, current, occurs, index);
+            if(index > current) {
+                current = index;
+                occurs = 0;
+            }
+            occurs++;
+            checkAttributes(xmlStreamReader);
+            Schema.Rule rule = rules[index];
+            Appendable sink = "detail".equals(rule.name) ? problem.detailSink() : null;
+            if(sink != null) {
+                // Every string is a valid detail
+                readElementText(xmlStreamReader, sink);
+                continue;
+            }
+            String text = xmlStreamReader.getElementText();
+            // Except for xs:string, simple types collapse their whitespace
+            Object value = rule.check(rule.kind == Schema.STRING ? text : text.trim());
+            if(value == null) {
+                // Positioned at the end element, which has the same name
+                throw schemaError(xmlStreamReader);
+            }
+            rule.set(problem, value);
+        }
+        if(extensions == 0) {
+            checkRequired(xmlStreamReader, rules, current, occurs, rules.length);
+        }
+    }
+
+    /**
+     * Reads the text of the detail element into a sink, as the reader reports it, instead of concatenating it as
+     * {@link XMLStreamReader#getElementText()} does. On return the reader is positioned at the end element.
+     */
+    private static void readElementText(XMLStreamReader xmlStreamReader, Appendable sink) throws XMLStreamException {
+        try {
+            while(true) {
+                switch(xmlStreamReader.next()) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        sink.append(CharBuffer.wrap(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength()));
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    case XMLStreamConstants.COMMENT:
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        return;
+                    default:
+                        throw new XMLStreamException(Problem.message("error.xml.text", "detail"), xmlStreamReader.getLocation());
+                }
+            }
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private static void findProblem(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        while(!xmlStreamReader.isStartElement()) {
+            if(!xmlStreamReader.hasNext()) {
+                throw new XMLStreamException(Problem.message("error.xml.root", "EOF"), xmlStreamReader.getLocation());
+            }
+            xmlStreamReader.next();
+        }
+        if(!isProblemElement(xmlStreamReader, "problem")) {
+            throw new XMLStreamException(Problem.message("error.xml.root", xmlStreamReader.getName()), xmlStreamReader.getLocation());
+        }
+    }
+
+    /**
+     * Fails if a required element between the current rule and the end index is missing.
+     */
+    private static void checkRequired(XMLStreamReader xmlStreamReader, Schema.Rule[] rules, int current, int occurs, int end) throws XMLStreamException {
+        for(int i = current; i < end; i++) {
+            if((i == current ? occurs : 0) < rules[i].minOccurs) {
+                throw new XMLStreamException(Problem.message("error.schema.xml", rules[i].name), xmlStreamReader.getLocation());
+            }
+        }
+    }
+
+    private static void checkAttributes(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        for(int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+            if(!XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(xmlStreamReader.getAttributeNamespace(i))) {
+                throw schemaError(xmlStreamReader);
+            }
+        }
+    }
+
+    private static XMLStreamException schemaError(XMLStreamReader xmlStreamReader) {
+        return new XMLStreamException(Problem.message("error.schema.xml", xmlStreamReader.getLocalName()), xmlStreamReader.getLocation());
+    }
+
+    /**
+     * Skips the current element, including all of its children. The reader must be positioned at a start element,
+     * and is positioned at the matching end element on return.
+     * @param xmlStreamReader the reader to skip with.
+     * @throws XMLStreamException if the reader throws.
+     */
+    static void skipElement(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        int depth = 1;
+        while(depth > 0) {
+            int event = xmlStreamReader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if(event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads the current element into the supplied extension members. Elements whose child elements are all named
+     * "i" are read as arrays, elements with other child elements as nested objects, elements marked with
+     * xsi:nil="true" as null, and all others as strings. The reader must be positioned at a start element, and is
+     * positioned at the matching end element on return.
+     * @param xmlStreamReader the reader to read from.
+     * @param extensions the members to add to.
+     * @throws XMLStreamException if the reader throws.
+     */
+    static void readExtension(XMLStreamReader xmlStreamReader, ExtensionMembers extensions) throws XMLStreamException {
+        String name = xmlStreamReader.getLocalName();
+        put(extensions, name, readValue(xmlStreamReader));
+    }
+
+    /**
+     * Reads the content of the current element as a String, ExtensionMembers or List, or null if it is marked with
+     * xsi:nil.
+     */
+    private static Object readValue(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        String nil = xmlStreamReader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil");
+        if(nil != null && ("true".equals(nil.trim()) || "1".equals(nil.trim()))) {
+            skipElement(xmlStreamReader);
+            return null;
+        }
+        StringBuilder text = null;
+        ExtensionMembers nested = null;
+        // The values of the child elements, as long as all of them are array items
+        List<Object> items = null;
+        while(true) {
+            int event = xmlStreamReader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) {
+                String name = xmlStreamReader.getLocalName();
+                boolean known = Problem.NAMESPACE.equals(xmlStreamReader.getNamespaceURI()) && ExtensionMembers.isXmlName(name);
+                if(known && nested == null && ITEM.equals(name)) {
+                    if(items == null) {
+                        items = new ArrayList<>();
+                    }
+                    items.add(readValue(xmlStreamReader));
+                    continue;
+                }
+                if(nested == null) {
+                    nested = new ExtensionMembers();
+                    if(items != null) {
+                        // Repeated elements replace each other, as for any other name
+                        put(nested, ITEM, items.get(items.size() - 1));
+                        items = null;
+                    }
+                }
+                if(known) {
+                    readExtension(xmlStreamReader, nested);
+                } else {
+                    skipElement(xmlStreamReader);
+                }
+            } else if(event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            } else if(nested == null && items == null && (event == XMLStreamConstants.CHARACTERS
+                    || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE)) {
+                if(text == null) {
+                    text = new StringBuilder();
+                }
+                text.append(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+            }
+        }
+        if(nested != null) {
+            return nested;
+        }
+        if(items != null) {
+            return items;
+        }
+        return text == null ? "" : text.toString();
+    }
+
+    private static void put(ExtensionMembers extensions, String name, Object value) {
+        if(value instanceof ExtensionMembers) {
+            extensions.put(name, (ExtensionMembers) value);
+        } else if(value instanceof List) {
+            extensions.put(name, (List<?>) value);
+        } else {
+            extensions.put(name, (String) value);
+        }
+    }
+
+    private static boolean isProblemElement(XMLStreamReader xmlStreamReader, String localName) {
+        return localName.equals(xmlStreamReader.getLocalName()) && Problem.NAMESPACE.equals(xmlStreamReader.getNamespaceURI());
+    }
+
+    private static URI toUri(String value) {
+        try {
+            return new URI(value.trim());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+}
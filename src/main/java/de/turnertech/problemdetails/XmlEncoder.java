@@ -0,0 +1,435 @@
+package de.turnertech.problemdetails;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import javax.xml.XMLConstants;
+
+/**
+ * Streaming XML encoder for the fixed RFC 9457 element set. Text is escaped and encoded directly into the target
+ * charset. Encoders and their buffers are reused through a lock-free {@link Pool}, unless created with
+ * {@link #unshared(OutputStream, Charset)}.
+ */
+final class XmlEncoder extends TextEncoder implements MemberWriter {
+
+    private static final Pool<XmlEncoder> POOL = new Pool<>(XmlEncoder::new);
+
+    static final byte[] PROBLEM_START = ascii("<problem xmlns=\"" + Problem.NAMESPACE + "\">");
+
+    static final byte[] PROBLEM_END = ascii("</problem>");
+
+    static final byte[] TYPE_START = ascii("<type>");
+
+    static final byte[] TYPE_END = ascii("</type>");
+
+    static final byte[] TITLE_START = ascii("<title>");
+
+    static final byte[] TITLE_END = ascii("</title>");
+
+    static final byte[] DETAIL_START = ascii("<detail>");
+
+    static final byte[] DETAIL_END = ascii("</detail>");
+
+    static final byte[] STATUS_START = ascii("<status>");
+
+    static final byte[] STATUS_END = ascii("</status>");
+
+    static final byte[] INSTANCE_START = ascii("<instance>");
+
+    static final byte[] INSTANCE_END = ascii("</instance>");
+
+    private static final byte[] DECLARATION_START = ascii("<?xml version=\"1.0\" encoding=\"");
+
+    private static final byte[] DECLARATION_END = ascii("\"?>");
+
+    private static final byte[] AMP = ascii("&amp;");
+
+    private static final byte[] LT = ascii("&lt;");
+
+    private static final byte[] GT = ascii("&gt;");
+
+    /** Ends the empty element of a null member, which is marked as nil so that it is not read back as "". */
+    static final String NIL = " xmlns:xsi=\"" + XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI + "\" xsi:nil=\"true\"/>";
+
+    private static final byte[] NIL_END = ascii(NIL);
+
+    private static final byte[] TRUE = ascii("true");
+
+    private static final byte[] FALSE = ascii("false");
+
+    /** Element name of array items, as in the XML example of RFC 9457 - Appendix B. */
+    private static final String ITEM = "i";
+
+    /** Names of the open nested object and array members, for their end tags. */
+    private String[] openObjects = new String[4];
+
+    private int depth;
+
+    private XmlEncoder() {
+        // Use acquire
+    }
+
+    /**
+     * Gets an encoder from the pool which writes to the supplied stream. The encoder must be closed after
+     * use, so that it may be reused.
+     * @param outputStream the stream to write to.
+     * @param charset the charset to encode with.
+     * @return an open encoder.
+     */
+    static XmlEncoder acquire(OutputStream outputStream, Charset charset) {
+        XmlEncoder encoder = acquire(charset);
+        encoder.target(outputStream);
+        return encoder;
+    }
+
+    /**
+     * Creates an encoder which is not pooled, for writers which keep it open across calls.
+     * @param outputStream the stream to write to.
+     * @param charset the charset to encode with.
+     * @return an open encoder.
+     */
+    static XmlEncoder unshared(OutputStream outputStream, Charset charset) {
+        XmlEncoder encoder = new XmlEncoder();
+        encoder.open(charset);
+        encoder.target(outputStream);
+        return encoder;
+    }
+
+    /**
+     * Gets an encoder from the pool without a target, which only counts the encoded bytes until a target
+     * is set. The encoder must be closed after use, so that it may be reused.
+     * @param charset the charset to encode with.
+     * @return an open encoder.
+     */
+    static XmlEncoder acquire(Charset charset) {
+        XmlEncoder encoder = POOL.acquire();
+        encoder.pooled = true;
+        encoder.open(charset);
+        encoder.depth = 0;
+        return encoder;
+    }
+
+    /**
+     * Writes the XML declaration for the current charset.
+     * @throws IOException if the stream throws.
+     */
+    void writeStartDocument() throws IOException {
+        writeAscii(DECLARATION_START);
+        String name = charset().name();
+        for(int i = 0; i < name.length(); i++) {
+            writeAscii(name.charAt(i));
+        }
+        writeAscii(DECLARATION_END);
+    }
+
+    /**
+     * Opens the problem element and writes the elements which are usually constant for a problem type. The order
+     * of the elements follows the bundled RFC-9457.xsd.
+     * @param type the problem type, may not be null.
+     * @param title the problem title, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeHead(URI type, String title) throws IOException {
+        writeHead(type.toString(), title);
+    }
+
+    /**
+     * Opens the problem element and writes the elements which are usually constant for a problem type.
+     * @param type the problem type as text, may not be null.
+     * @param title the problem title, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeHead(CharSequence type, String title) throws IOException {
+        writeAscii(PROBLEM_START);
+        writeAscii(TYPE_START);
+        writeText(type);
+        writeAscii(TYPE_END);
+        if(title != null) {
+            writeAscii(TITLE_START);
+            writeText(title);
+            writeAscii(TITLE_END);
+        }
+    }
+
+    /**
+     * Writes the detail element, if present.
+     * @param detail the problem detail, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeDetail(String detail) throws IOException {
+        if(detail != null) {
+            writeAscii(DETAIL_START);
+            writeText(detail);
+            writeAscii(DETAIL_END);
+        }
+    }
+
+    /**
+     * Writes the detail element from lazy text.
+     * @param detail the problem detail.
+     * @throws IOException if the stream or the text throws.
+     */
+    void writeDetail(LazyText detail) throws IOException {
+        writeAscii(DETAIL_START);
+        writeLazy(detail);
+        writeAscii(DETAIL_END);
+    }
+
+    /**
+     * Writes the status element, if present.
+     * @param status the problem status, may be {@link Problem#NO_STATUS}.
+     * @throws IOException if the stream throws.
+     */
+    void writeStatus(int status) throws IOException {
+        if(status != Problem.NO_STATUS) {
+            writeAscii(STATUS_START);
+            writeStatusCode(status);
+            writeAscii(STATUS_END);
+        }
+    }
+
+    /**
+     * Writes the instance element, if present.
+     * @param instance the problem instance, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeInstance(URI instance) throws IOException {
+        writeInstance(instance == null ? null : instance.toString());
+    }
+
+    /**
+     * Writes the instance element, if present.
+     * @param instance the problem instance as text, may be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeInstance(CharSequence instance) throws IOException {
+        if(instance != null) {
+            writeAscii(INSTANCE_START);
+            writeText(instance);
+            writeAscii(INSTANCE_END);
+        }
+    }
+
+    /**
+     * Writes the supplied sequence as escaped character data.
+     * @param value the value to write, may not be null.
+     * @throws IOException if the stream throws.
+     */
+    void writeText(CharSequence value) throws IOException {
+        writeEscaped(value, 0, value.length());
+    }
+
+    @Override
+    void writeEscaped(CharSequence value, int start, int end) throws IOException {
+        for(int i = start; i < end;) {
+            char c = value.charAt(i);
+            if(c < 0x80) {
+                if(c == '&') {
+                    writeAscii(AMP);
+                } else if(c == '<') {
+                    writeAscii(LT);
+                } else if(c == '>') {
+                    writeAscii(GT);
+                } else if(c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+                    // Not allowed in XML 1.0, not even as a character reference
+                    writeAscii('?');
+                } else {
+                    writeAscii(c);
+                }
+                i++;
+            } else {
+                i += writeNonAscii(value, i);
+            }
+        }
+    }
+
+    @Override
+    public void writeMember(String name, CharSequence value) throws IOException {
+        writeStartTag(name);
+        writeText(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeLazyMember(String name, LazyText value) throws IOException {
+        writeStartTag(name);
+        writeLazy(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeMember(String name, long value) throws IOException {
+        writeStartTag(name);
+        writeLong(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeMember(String name, double value) throws IOException {
+        writeStartTag(name);
+        writeDouble(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeMember(String name, boolean value) throws IOException {
+        writeStartTag(name);
+        writeAscii(value ? TRUE : FALSE);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeNullMember(String name) throws IOException {
+        writeAscii('<');
+        writeText(inArray() ? ITEM : name);
+        writeAscii(NIL_END);
+    }
+
+    @Override
+    public void writeMember(MemberName name, CharSequence value) throws IOException {
+        writeStartTag(name);
+        writeText(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeMember(MemberName name, long value) throws IOException {
+        writeStartTag(name);
+        writeLong(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeMember(MemberName name, double value) throws IOException {
+        writeStartTag(name);
+        writeDouble(value);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeMember(MemberName name, boolean value) throws IOException {
+        writeStartTag(name);
+        writeAscii(value ? TRUE : FALSE);
+        writeEndTag(name);
+    }
+
+    @Override
+    public void writeNullMember(MemberName name) throws IOException {
+        if(isPreEncodable() && !inArray()) {
+            writeEncoded(name.xmlEmpty);
+        } else {
+            writeNullMember(name.toString());
+        }
+    }
+
+    @Override
+    public void writeStartObject(String name) throws IOException {
+        startElement(name);
+        startNested(false);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        endNested();
+        endElement();
+    }
+
+    @Override
+    public void writeStartArray(String name) throws IOException {
+        startElement(name);
+        startNested(true);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        endNested();
+        endElement();
+    }
+
+    private void startElement(String name) throws IOException {
+        String tag = inArray() ? ITEM : name;
+        if(depth == openObjects.length) {
+            openObjects = Arrays.copyOf(openObjects, depth * 2);
+        }
+        openObjects[depth++] = tag;
+        writeStartTag(tag);
+    }
+
+    private void endElement() throws IOException {
+        String tag = openObjects[--depth];
+        openObjects[depth] = null;
+        writeEndTag(tag);
+    }
+
+    private void writeStartTag(String name) throws IOException {
+        writeAscii('<');
+        writeText(inArray() ? ITEM : name);
+        writeAscii('>');
+    }
+
+    private void writeEndTag(String name) throws IOException {
+        writeAscii('<');
+        writeAscii('/');
+        writeText(inArray() ? ITEM : name);
+        writeAscii('>');
+    }
+
+    private void writeStartTag(MemberName name) throws IOException {
+        if(isPreEncodable() && !inArray()) {
+            writeEncoded(name.xmlStart);
+        } else {
+            writeStartTag(name.toString());
+        }
+    }
+
+    private void writeEndTag(MemberName name) throws IOException {
+        if(isPreEncodable() && !inArray()) {
+            writeEncoded(name.xmlEnd);
+        } else {
+            writeEndTag(name.toString());
+        }
+    }
+
+    private void writeDouble(double value) throws IOException {
+        String digits = toXsDouble(value);
+        for(int i = 0; i < digits.length(); i++) {
+            writeAscii(digits.charAt(i));
+        }
+    }
+
+    /**
+     * Formats a floating point number in the lexical space of xs:double, which spells infinity as INF.
+     * @param value the value.
+     * @return the text of the value.
+     */
+    static String toXsDouble(double value) {
+        if(value == Double.POSITIVE_INFINITY) {
+            return "INF";
+        }
+        if(value == Double.NEGATIVE_INFINITY) {
+            return "-INF";
+        }
+        return Double.toString(value);
+    }
+
+    @Override
+    void recycle() {
+        POOL.release(this);
+    }
+
+    @Override
+    void writeUnmappable(int codePoint) throws IOException {
+        if(codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            writeAscii('?');
+            return;
+        }
+        writeAscii('&');
+        writeAscii('#');
+        writeDigits(codePoint);
+        writeAscii(';');
+    }
+
+}
@@ -1,4 +1,22 @@
 /**
- * The single, contained package in this module.
+ * <p>The single, contained package in this module.</p>
+ *
+ * <p><b>Thread safety.</b> {@link de.turnertech.problemdetails.Problem} and
+ * {@link de.turnertech.problemdetails.ExtensionMembers} are mutable and must not be modified while another thread
+ * reads or writes them. Writing or reading distinct problems is safe from any number of threads at once, including
+ * virtual threads. {@link de.turnertech.problemdetails.ProblemRecord},
+ * {@link de.turnertech.problemdetails.ProblemTemplate}, {@link de.turnertech.problemdetails.ProblemRegistry},
+ * {@link de.turnertech.problemdetails.ProblemWriter}, {@link de.turnertech.problemdetails.ProblemMapper},
+ * {@link de.turnertech.problemdetails.ProblemAggregator}, {@link de.turnertech.problemdetails.ProblemStatistics},
+ * {@link de.turnertech.problemdetails.ProblemValidator}, {@link de.turnertech.problemdetails.MemberName},
+ * {@link de.turnertech.problemdetails.ProblemPool} and all static methods may be shared freely. An installed
+ * {@link de.turnertech.problemdetails.ProblemInstrumentation} is called from every writing thread. A
+ * {@link de.turnertech.problemdetails.ProblemBatchWriter} belongs to one thread at a time.</p>
+ *
+ * <p>Shared state is either immutable, held in concurrent maps which are never locked while computing, or pooled
+ * with compare-and-set. Encoders, decoders and XML factories are taken from lock-free pools instead of thread
+ * locals, so their number does not grow with the number of threads. No lock is held while reading from or writing
+ * to a stream, so rendering never pins the carrier of a virtual thread. The only monitors are taken by the JDK when
+ * a resource bundle or a subclass is seen for the first time.</p>
  */
-package de.turnertech.problemdetails;
\ No newline at end of file
+package de.turnertech.problemdetails;
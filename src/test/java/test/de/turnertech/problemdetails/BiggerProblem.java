@@ -5,6 +5,7 @@ import java.io.PrintWriter;
 import java.nio.charset.Charset;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
 import de.turnertech.problemdetails.Problem;
@@ -15,6 +16,10 @@ public class BiggerProblem extends Problem {
 
     private String solution = "Moar Hugs";
 
+    public String getSolution() {
+        return solution;
+    }
+
     @Override
     protected boolean extendJson(OutputStream outputStream, Charset charset) {
         try(PrintWriter printWriter = new PrintWriter(outputStream)) {
@@ -36,4 +41,20 @@ public class BiggerProblem extends Problem {
         xmlStreamWriter.writeEndElement();
     }
 
+    @Override
+    protected void readJsonExtension(String name, Object value) {
+        if("solution".equals(name) && value instanceof String) {
+            solution = (String)value;
+        }
+    }
+
+    @Override
+    protected void readXmlExtension(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        if(NAMESPACE.equals(xmlStreamReader.getNamespaceURI()) && "solution".equals(xmlStreamReader.getLocalName())) {
+            solution = xmlStreamReader.getElementText();
+        } else {
+            super.readXmlExtension(xmlStreamReader);
+        }
+    }
+
 }
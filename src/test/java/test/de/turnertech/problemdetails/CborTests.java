@@ -0,0 +1,177 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.ExtensionMembers;
+import de.turnertech.problemdetails.Problem;
+
+class CborTests {
+
+    private static Problem problem() {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Größe € 😀 \n\t <&>");
+        problem.getExtensions()
+            .put("balance", 30)
+            .put("debt", -1234567890123L)
+            .put("rate", 0.5)
+            .put("precise", 0.1)
+            .put("active", true)
+            .putNull("nothing");
+        problem.getExtensions().putObject("account").put("currency", "EUR").put("id", 12345);
+        return problem;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for(int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for(byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int position = 0;
+        for(byte[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void simple_bytes() throws IOException {
+        Problem problem = new Problem();
+        problem.setStatus(404);
+        problem.setTitle("Not Found");
+
+        byte[] expected = concat(
+            bytes(0xBF, 0x01, 0xD8, 0x20, 0x6B), ascii("about:blank"),
+            bytes(0x02, 0x69), ascii("Not Found"),
+            bytes(0x03, 0x19, 0x01, 0x94, 0xFF));
+        assertArrayEquals(expected, problem.toCbor());
+        assertEquals(expected.length, problem.cborLength());
+    }
+
+    @Test
+    void round_trip() throws IOException {
+        Problem problem = problem();
+        byte[] cbor = problem.toCbor();
+        assertEquals(cbor.length, problem.cborLength());
+
+        Problem read = Problem.fromCbor(new ByteArrayInputStream(cbor));
+        assertEquals(problem, read);
+        assertEquals(-1234567890123L, read.getExtensions().get("debt"));
+        assertEquals(0.1, read.getExtensions().get("precise"));
+        assertEquals("EUR", ((ExtensionMembers) read.getExtensions().get("account")).get("currency"));
+    }
+
+    @Test
+    void round_trip_buffers() throws IOException {
+        Problem problem = problem();
+        byte[] cbor = problem.toCbor();
+        for(ByteBuffer byteBuffer : new ByteBuffer[] { ByteBuffer.allocate(cbor.length + 3), ByteBuffer.allocateDirect(cbor.length + 3) }) {
+            problem.toCbor(byteBuffer);
+            assertEquals(cbor.length, byteBuffer.position());
+            byteBuffer.put(bytes(1, 2, 3)).flip();
+
+            assertEquals(problem, Problem.fromCbor(byteBuffer));
+            assertEquals(cbor.length, byteBuffer.position());
+        }
+        assertThrows(BufferOverflowException.class, () -> problem.toCbor(ByteBuffer.allocate(cbor.length - 1)));
+    }
+
+    @Test
+    void long_text() throws IOException {
+        StringBuilder detail = new StringBuilder();
+        for(int i = 0; i < 5000; i++) {
+            detail.append("ä😀x");
+        }
+        detail.append('\uD800');
+        Problem problem = new Problem();
+        problem.setDetail(detail.toString());
+
+        byte[] cbor = problem.toCbor();
+        assertEquals(cbor.length, problem.cborLength());
+        detail.setCharAt(detail.length() - 1, '\uFFFD');
+        assertEquals(detail.toString(), Problem.fromCbor(new ByteArrayInputStream(cbor)).getDetail());
+    }
+
+    @Test
+    void definite_map_with_foreign_values() throws IOException {
+        byte[] cbor = concat(
+            bytes(0xA6),
+            // type, untagged
+            bytes(0x01, 0x6B), ascii("about:blank"),
+            // status out of range is ignored
+            bytes(0x03, 0x19, 0x03, 0xE8),
+            // title of the wrong type is ignored
+            bytes(0x02, 0x18, 0x2A),
+            // half precision 1.5
+            bytes(0x64), ascii("half"), bytes(0xF9, 0x3E, 0x00),
+            // indefinite text
+            bytes(0x64), ascii("text"), bytes(0x7F, 0x62), ascii("ab"), bytes(0x61), ascii("c"), bytes(0xFF),
+            // unknown integer key with an array value
+            bytes(0x18, 0x63, 0x82, 0x01, 0x02));
+        Problem problem = Problem.fromCbor(ByteBuffer.wrap(cbor));
+        assertEquals(URI.create("about:blank"), problem.getType());
+        assertNull(problem.getTitle());
+        assertEquals(Problem.NO_STATUS, problem.getStatusAsInt());
+        assertEquals(1.5, problem.getExtensions().get("half"));
+        assertEquals("abc", problem.getExtensions().get("text"));
+        assertEquals(2, problem.getExtensions().size());
+    }
+
+    @Test
+    void syntax_errors() {
+        assertThrows(IOException.class, () -> Problem.fromCbor(new ByteArrayInputStream(new byte[0])));
+        assertThrows(IOException.class, () -> Problem.fromCbor(new ByteArrayInputStream(bytes(0x82, 0x01, 0x02))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(new ByteArrayInputStream(bytes(0xBF, 0x02, 0x63, 0x61))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(bytes(0xA1, 0x04, 0x7B, 0x7F, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(bytes(0xA1, 0x04, 0xFF))));
+    }
+
+    @Test
+    void malformed_strings() {
+        byte[] key = concat(bytes(0xA1, 0x64), ascii("text"));
+        // Nested indefinite chunks, deep enough to overflow the stack if they were followed
+        byte[] nested = new byte[100000];
+        Arrays.fill(nested, (byte) 0x7F);
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, nested))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x5F, 0x5F, 0x41, 0x00, 0xFF, 0xFF)))));
+        // Chunks of the other string type
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x7F, 0x41, 0x61, 0xFF)))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x5F, 0x61, 0x61, 0xFF)))));
+        // Lengths above Long.MAX_VALUE, which are negative as a long, and above Integer.MAX_VALUE
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x7B, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFE)))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x5B, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFE)))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(new ByteArrayInputStream(concat(key, bytes(0x7B, 0x80, 0, 0, 0, 0, 0, 0, 0)))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x5A, 0x80, 0, 0, 0)))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(concat(key, bytes(0x9B, 0x80, 0, 0, 0, 0, 0, 0, 0)))));
+        assertThrows(IOException.class, () -> Problem.fromCbor(ByteBuffer.wrap(bytes(0xBB, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFE))));
+    }
+
+}
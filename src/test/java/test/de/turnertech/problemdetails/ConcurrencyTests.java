@@ -0,0 +1,112 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemTemplate;
+
+class ConcurrencyTests {
+
+    private static final int TASKS = 5000;
+
+    private static final Charset[] CHARSETS = { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16 };
+
+    private static final Locale[] LOCALES = { Locale.ENGLISH, Locale.GERMAN, Locale.FRENCH, Locale.JAPANESE };
+
+    /**
+     * Virtual threads where the runtime has them (Java 21+), otherwise a large platform thread pool. Reflection keeps
+     * the tests compiling for Java 11.
+     */
+    private static ExecutorService executor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(64);
+        }
+    }
+
+    private static Problem problem(int i) {
+        Problem problem = new Problem(URI.create("https://example.com/probs/" + i), URI.create("/requests/" + i));
+        problem.setStatus(400 + i % 100);
+        problem.setTitle(Problem.findStatusPhrase(problem.getStatusAsInt(), LOCALES[i % LOCALES.length]));
+        problem.setDetail("Détail " + i + " 😀 <&>");
+        problem.getExtensions().put("index", i);
+        return problem;
+    }
+
+    @Test
+    void render_and_parse_from_many_threads() throws Exception {
+        // Expected output is rendered sequentially first
+        List<String> expectedJson = new ArrayList<>();
+        List<String> expectedXml = new ArrayList<>();
+        List<Problem> bigger = new ArrayList<>();
+        for(int i = 0; i < TASKS; i++) {
+            Problem problem = i % 10 == 0 ? new BiggerProblem() : problem(i);
+            if(i % 10 == 0) {
+                problem.setStatus(500);
+            }
+            bigger.add(problem);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            problem.toJson(outputStream, CHARSETS[i % CHARSETS.length]);
+            expectedJson.add(outputStream.toString(CHARSETS[i % CHARSETS.length]));
+            expectedXml.add(i % 10 == 0 ? null : problem.toXml());
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for(int i = 0; i < TASKS; i++) {
+            final int index = i;
+            tasks.add(() -> {
+                Problem problem = bigger.get(index);
+                Charset charset = CHARSETS[index % CHARSETS.length];
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                problem.toJson(outputStream, charset);
+                assertEquals(expectedJson.get(index), outputStream.toString(charset));
+
+                if(index % 10 != 0) {
+                    String xml = problem.toXml();
+                    assertEquals(expectedXml.get(index), xml);
+                    // XML extensions are read back as strings, so only the RFC 9457 members are compared
+                    Problem parsed = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(xml)));
+                    assertEquals(problem.getDetail(), parsed.getDetail());
+                    assertEquals(problem.getInstance(), parsed.getInstance());
+                    assertEquals(problem, Problem.fromJson(new ByteArrayInputStream(problem.toJson().getBytes(StandardCharsets.UTF_8))));
+                } else {
+                    problem.toXml();
+                }
+
+                ProblemTemplate template = ProblemTemplate.of(problem);
+                outputStream.reset();
+                template.toJson(outputStream, charset, problem.getDetail(), problem.getInstance());
+                return null;
+            });
+        }
+
+        ExecutorService executor = executor();
+        try {
+            for(Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.ExtensionMembers;
+import de.turnertech.problemdetails.LazyText;
+import de.turnertech.problemdetails.MemberWriter;
+import de.turnertech.problemdetails.Problem;
+
+class ExtensionTests {
+
+    private static Problem outOfCredit() {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"));
+        problem.setStatus(403);
+        problem.getExtensions()
+            .put("balance", 30)
+            .put("ratio", 0.5)
+            .put("blocked", true)
+            .putNull("reason")
+            .put("note", "\"<ä>\"");
+        problem.getExtensions().putObject("account").put("id", "12345").put("owner", "me");
+        return problem;
+    }
+
+    @Test
+    void json_members() throws IOException {
+        assertEquals("{\"type\":\"https://example.com/probs/out-of-credit\",\"status\":403,\"balance\":30,\"ratio\":0.5,"
+            + "\"blocked\":true,\"reason\":null,\"note\":\"\\\"<ä>\\\"\",\"account\":{\"id\":\"12345\",\"owner\":\"me\"}}",
+            outOfCredit().toJson());
+    }
+
+    @Test
+    void json_special_numbers() throws IOException {
+        Problem problem = new Problem();
+        problem.getExtensions().put("min", Long.MIN_VALUE).put("nan", Double.NaN).put("big", 1e300);
+        assertEquals("{\"type\":\"about:blank\",\"min\":-9223372036854775808,\"nan\":null,\"big\":1.0E300}", problem.toJson());
+    }
+
+    @Test
+    void xml_members() throws XMLStreamException {
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>https://example.com/probs/out-of-credit</type><status>403</status><balance>30</balance>"
+            + "<ratio>0.5</ratio><blocked>true</blocked>"
+            + "<reason xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:nil=\"true\"/><note>\"&lt;ä&gt;\"</note>"
+            + "<account><id>12345</id><owner>me</owner></account></problem>", outOfCredit().toXml());
+    }
+
+    @Test
+    void xml_members_with_stax() throws XMLStreamException {
+        StringWriter stringWriter = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(stringWriter);
+        outOfCredit().toXml(writer, StandardCharsets.UTF_8, false);
+        writer.close();
+        Problem problem = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(stringWriter.toString())));
+        assertEquals("30", problem.getExtensions().get("balance"));
+        assertEquals("12345", ((ExtensionMembers) problem.getExtensions().get("account")).get("id"));
+        assertTrue(problem.getExtensions().contains("reason"));
+        assertNull(problem.getExtensions().get("reason"));
+    }
+
+    @Test
+    void xml_special_numbers() throws XMLStreamException {
+        Problem problem = new Problem();
+        problem.getExtensions().put("nan", Double.NaN).put("inf", Double.POSITIVE_INFINITY).put("ninf", Double.NEGATIVE_INFINITY);
+        problem.getExtensions().put("items", Arrays.asList(null, "", 1.5));
+        String xml = problem.toXml();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>about:blank</type><nan>NaN</nan><inf>INF</inf><ninf>-INF</ninf><items>"
+            + "<i xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:nil=\"true\"/><i></i><i>1.5</i></items></problem>", xml);
+        ExtensionMembers extensions = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(xml))).getExtensions();
+        assertEquals("INF", extensions.get("inf"));
+        assertEquals(Arrays.asList(null, "", "1.5"), extensions.get("items"));
+
+        StringWriter stringWriter = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(stringWriter);
+        problem.toXml(writer, StandardCharsets.UTF_8, false);
+        writer.close();
+        extensions = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(stringWriter.toString()))).getExtensions();
+        assertEquals("-INF", extensions.get("ninf"));
+        assertEquals(Arrays.asList(null, "", "1.5"), extensions.get("items"));
+    }
+
+    @Test
+    void json_round_trip() throws IOException {
+        Problem expected = outOfCredit();
+        byte[] json = expected.toJson().getBytes(StandardCharsets.UTF_8);
+        Problem actual = Problem.fromJson(new ByteArrayInputStream(json));
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test
+    void xml_round_trip_as_strings() throws XMLStreamException {
+        Problem problem = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(outOfCredit().toXml())));
+        ExtensionMembers extensions = problem.getExtensions();
+        assertEquals("30", extensions.get("balance"));
+        assertEquals("true", extensions.get("blocked"));
+        assertTrue(extensions.contains("reason"));
+        assertNull(extensions.get("reason"));
+        assertEquals("\"<ä>\"", extensions.get("note"));
+        assertEquals("me", ((ExtensionMembers) extensions.get("account")).get("owner"));
+    }
+
+    @Test
+    void members_are_ordered_and_replaced() {
+        ExtensionMembers members = new ExtensionMembers().put("a", 1).put("b", 2).put("a", "one");
+        assertEquals(2, members.size());
+        assertEquals("a", members.getName(0));
+        assertEquals("one", members.get(0));
+        assertTrue(members.remove("a"));
+        assertFalse(members.contains("a"));
+        assertEquals(2L, members.get("b"));
+        assertNull(members.get("a"));
+    }
+
+    @Test
+    void invalid_names_are_rejected() {
+        ExtensionMembers members = new ExtensionMembers();
+        assertThrows(InvalidParameterException.class, () -> new Problem().getExtensions().put("status", 1));
+        assertThrows(InvalidParameterException.class, () -> new Problem().getExtensions().putObject("detail"));
+        assertThrows(InvalidParameterException.class, () -> members.put("1st", 1));
+        assertThrows(InvalidParameterException.class, () -> members.put("a b", 1));
+        assertThrows(InvalidParameterException.class, () -> members.put("xmlns", 1));
+        assertThrows(InvalidParameterException.class, () -> members.put("größe", 1));
+    }
+
+    @Test
+    void nested_members_may_use_reserved_names() throws IOException, XMLStreamException {
+        Problem problem = new Problem();
+        problem.getExtensions().putObject("cause").put("type", "timeout").put("status", 504);
+        String json = "{\"type\":\"about:blank\",\"cause\":{\"type\":\"timeout\",\"status\":504}}";
+        assertEquals(json, problem.toJson());
+        assertEquals(problem, Problem.fromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+        Problem xml = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(problem.toXml())));
+        assertEquals("504", ((ExtensionMembers) xml.getExtensions().get("cause")).get("status"));
+    }
+
+    /**
+     * The invalid-params example of RFC 9457 - 3.
+     */
+    private static Problem invalidParams() {
+        Problem problem = new Problem(URI.create("https://example.net/validation-error"));
+        problem.setTitle("Your request is not valid.");
+        ExtensionMembers age = new ExtensionMembers().put("name", "age").put("reason", "must be a positive integer");
+        ExtensionMembers color = new ExtensionMembers().put("name", "color").put("reason", "must be 'green', 'red' or 'blue'");
+        problem.getExtensions().put("invalid-params", Arrays.asList(age, color));
+        return problem;
+    }
+
+    @Test
+    void json_arrays() throws IOException {
+        Problem expected = invalidParams();
+        expected.getExtensions().put("matrix", Arrays.asList(Arrays.asList(1, 2.5), Collections.emptyList(), null, true));
+        String json = expected.toJson();
+        assertEquals("{\"type\":\"https://example.net/validation-error\",\"title\":\"Your request is not valid.\","
+            + "\"invalid-params\":[{\"name\":\"age\",\"reason\":\"must be a positive integer\"},"
+            + "{\"name\":\"color\",\"reason\":\"must be 'green', 'red' or 'blue'\"}],"
+            + "\"matrix\":[[1,2.5],[],null,true]}", json);
+        Problem actual = Problem.fromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test
+    void xml_arrays() throws XMLStreamException {
+        String xml = invalidParams().toXml();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>https://example.net/validation-error</type><title>Your request is not valid.</title>"
+            + "<invalid-params><i><name>age</name><reason>must be a positive integer</reason></i>"
+            + "<i><name>color</name><reason>must be 'green', 'red' or 'blue'</reason></i></invalid-params></problem>", xml);
+        Problem problem = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(xml)));
+        assertEquals(invalidParams(), problem);
+
+        StringWriter stringWriter = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(stringWriter);
+        invalidParams().toXml(writer, StandardCharsets.UTF_8, false);
+        writer.close();
+        problem = Problem.fromXml(XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(stringWriter.toString())));
+        assertEquals(invalidParams(), problem);
+    }
+
+    @Test
+    void cbor_arrays() throws IOException {
+        Problem expected = invalidParams();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expected.toCbor(out);
+        assertEquals(expected, Problem.fromCbor(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void arrays_are_copied() {
+        List<Object> items = new ArrayList<>(Arrays.asList(new StringBuilder("a"), 1, 1f));
+        ExtensionMembers members = new ExtensionMembers().put("items", items);
+        items.clear();
+        assertEquals(Arrays.asList("a", 1L, 1.0), members.get("items"));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) members.get("items")).clear());
+        assertThrows(IllegalArgumentException.class, () -> members.put("items", Arrays.asList(new Object())));
+    }
+
+    @Test
+    void copies_and_equality() {
+        Problem problem = outOfCredit();
+        Problem copy = new Problem(problem);
+        assertEquals(problem, copy);
+        copy.getExtensions().putObject("account").put("id", "54321");
+        assertNotEquals(problem, copy);
+
+        Problem empty = new Problem();
+        empty.getExtensions();
+        assertEquals(new Problem(), empty);
+        assertEquals(new Problem().hashCode(), empty.hashCode());
+    }
+
+    @Test
+    void equality_does_not_render_values() {
+        ExtensionMembers string = new ExtensionMembers().put("note", "abc");
+        ExtensionMembers builder = new ExtensionMembers().put("note", new StringBuilder("abc"));
+        assertEquals(string, builder);
+        assertEquals(string.hashCode(), builder.hashCode());
+        assertNotEquals(string, new ExtensionMembers().put("note", new StringBuilder("abd")));
+
+        LazyText lazy = out -> {
+            throw new AssertionError("Lazy text must only be produced when written");
+        };
+        ExtensionMembers members = new ExtensionMembers().putLazy("report", lazy);
+        members.putObject("account").put("id", "12345");
+        assertEquals(members.hashCode(), new ExtensionMembers(members).hashCode());
+        assertEquals(members, new ExtensionMembers(members));
+    }
+
+    @Test
+    void subclass_writes_fields() throws IOException, XMLStreamException {
+        Problem problem = new Problem() {
+            private final int balance = 30;
+
+            @Override
+            protected void writeExtensions(MemberWriter memberWriter) throws IOException {
+                memberWriter.writeMember("balance", balance);
+                super.writeExtensions(memberWriter);
+            }
+        };
+        problem.getExtensions().put("currency", "EUR");
+        assertEquals("{\"type\":\"about:blank\",\"balance\":30,\"currency\":\"EUR\"}", problem.toJson());
+        assertTrue(problem.toXml().endsWith("<type>about:blank</type><balance>30</balance><currency>EUR</currency></problem>"));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, StandardCharsets.UTF_16);
+        assertEquals(problem.toJson(), outputStream.toString(StandardCharsets.UTF_16));
+    }
+
+}
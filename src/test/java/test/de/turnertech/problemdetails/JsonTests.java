@@ -0,0 +1,115 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+
+class JsonTests {
+
+    @Test
+    void status_is_a_number() throws IOException {
+        Problem problem = new Problem();
+        problem.setStatus(404);
+        problem.setTitle(Problem.findStatusPhrase(404));
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404}", problem.toJson());
+    }
+
+    @Test
+    void all_members_are_written() throws IOException {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        assertEquals("{\"type\":\"https://example.com/probs/out-of-credit\",\"title\":\"You do not have enough credit.\",\"status\":403,"
+            + "\"detail\":\"Your current balance is 30, but that costs 50.\",\"instance\":\"/account/12345/msgs/abc\"}", problem.toJson());
+    }
+
+    @Test
+    void strings_are_escaped() throws IOException {
+        Problem problem = new Problem();
+        problem.setDetail("Quote \" Backslash \\ Newline \n Tab \t Bell \u0007");
+        assertEquals("{\"type\":\"about:blank\",\"detail\":\"Quote \\\" Backslash \\\\ Newline \\n Tab \\t Bell \\u0007\"}", problem.toJson());
+    }
+
+    @Test
+    void non_ascii_is_encoded_in_utf_8() throws IOException {
+        Problem problem = new Problem();
+        problem.setTitle("Größe \u20ac \ud83d\ude00");
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Größe \u20ac \ud83d\ude00\"}", problem.toJson());
+    }
+
+    @Test
+    void unmappable_characters_are_escaped() throws IOException {
+        Problem problem = new Problem();
+        problem.setTitle("Größe \u20ac \ud83d\ude00");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, StandardCharsets.ISO_8859_1);
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Größe \\u20ac \\ud83d\\ude00\"}", outputStream.toString(StandardCharsets.ISO_8859_1));
+
+        outputStream.reset();
+        problem.toJson(outputStream, StandardCharsets.US_ASCII);
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Gr\\u00f6\\u00dfe \\u20ac \\ud83d\\ude00\"}", outputStream.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void other_charsets_are_respected() throws IOException {
+        Problem problem = new Problem();
+        problem.setTitle("Größe \u20ac");
+        for(Charset charset : new Charset[] { StandardCharsets.UTF_16, StandardCharsets.UTF_16LE, Charset.forName("UTF-32") }) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            problem.toJson(outputStream, charset);
+            assertEquals(problem.toJson(), outputStream.toString(charset));
+        }
+
+        Charset windows1252 = Charset.forName("windows-1252");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, windows1252);
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Gr\\u00f6\\u00dfe \\u20ac\"}", outputStream.toString(windows1252));
+    }
+
+    @Test
+    void large_values_are_written() throws IOException {
+        StringBuilder detail = new StringBuilder();
+        for(int i = 0; i < 10000; i++) {
+            detail.append("ä\"").append(i);
+        }
+        Problem problem = new Problem();
+        problem.setDetail(detail.toString());
+        String expected = "{\"type\":\"about:blank\",\"detail\":\"" + detail.toString().replace("\"", "\\\"") + "\"}";
+        assertEquals(expected, problem.toJson());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, StandardCharsets.UTF_16BE);
+        assertEquals(expected, outputStream.toString(StandardCharsets.UTF_16BE));
+    }
+
+    @Test
+    void stream_is_not_closed() throws IOException {
+        CloseTrackingOutputStream outputStream = new CloseTrackingOutputStream();
+        new Problem().toJson(outputStream);
+        assertFalse(outputStream.closed);
+        assertEquals("{\"type\":\"about:blank\"}", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    private static class CloseTrackingOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed = false;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+
+    }
+
+}
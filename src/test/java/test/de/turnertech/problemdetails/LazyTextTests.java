@@ -0,0 +1,142 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.LazyText;
+import de.turnertech.problemdetails.Problem;
+
+class LazyTextTests {
+
+    private static final Charset[] CHARSETS = { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII, StandardCharsets.UTF_16 };
+
+    /** Contains escapes, non ASCII characters and surrogate pairs, split between chunks. */
+    private static final String[] CHUNKS = { "Größe \"", "€ \uD83D", "\uDE00 <&>\n", "", "\uD83D", "\uDE01\t", "\uD800", "x", "\uDC00" };
+
+    private static final LazyText CHUNKED = appendable -> {
+        for(String chunk : CHUNKS) {
+            appendable.append(chunk);
+        }
+        appendable.append('\uD83D').append('\uDE02').append("a😃b", 1, 3);
+    };
+
+    private static final String TEXT = String.join("", CHUNKS) + "😂😃";
+
+    private static Problem eager() {
+        Problem problem = new Problem();
+        problem.setStatus(400);
+        problem.setDetail(TEXT);
+        problem.getExtensions().put("report", TEXT).put("count", 3);
+        return problem;
+    }
+
+    private static Problem lazy() {
+        Problem problem = new Problem();
+        problem.setStatus(400);
+        problem.setLazyDetail(CHUNKED);
+        problem.getExtensions().putLazy("report", CHUNKED).put("count", 3);
+        return problem;
+    }
+
+    private static byte[] json(Problem problem, Charset charset) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, charset);
+        assertEquals(outputStream.size(), problem.jsonLength(charset));
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] xml(Problem problem, Charset charset) throws XMLStreamException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toXml(outputStream, charset, true);
+        assertEquals(outputStream.size(), problem.xmlLength(charset, true));
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void json() throws IOException {
+        for(Charset charset : CHARSETS) {
+            assertArrayEquals(json(eager(), charset), json(lazy(), charset), charset.name());
+        }
+    }
+
+    @Test
+    void xml() throws XMLStreamException {
+        for(Charset charset : CHARSETS) {
+            assertArrayEquals(xml(eager(), charset), xml(lazy(), charset), charset.name());
+        }
+    }
+
+    @Test
+    void cbor() throws IOException {
+        Problem lazy = lazy();
+        byte[] cbor = lazy.toCbor();
+        assertEquals(cbor.length, lazy.cborLength());
+
+        Problem read = Problem.fromCbor(new ByteArrayInputStream(cbor));
+        Problem expected = Problem.fromCbor(new ByteArrayInputStream(eager().toCbor()));
+        assertEquals(expected, read);
+        assertEquals(expected.getDetail(), read.getDetail());
+    }
+
+    @Test
+    void stax() throws XMLStreamException {
+        Problem problem = new Problem() {
+            @Override
+            protected void extendXml(XMLStreamWriter xmlStreamWriter, Charset charset) {
+                // Forces the StAX path
+            }
+        };
+        problem.setLazyDetail(LazyText.of(() -> "a < b"));
+        problem.getExtensions().putLazy("report", LazyText.of(() -> "c & d"));
+        String written = problem.toXml();
+        assertTrue(written.contains("<detail>a &lt; b</detail>"), written);
+        assertTrue(written.contains("<report>c &amp; d</report>"), written);
+    }
+
+    @Test
+    void only_produced_when_written() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        Problem problem = new Problem();
+        problem.setLazyDetail(LazyText.of(() -> "call " + calls.incrementAndGet()));
+        assertEquals(0, calls.get());
+        assertTrue(problem.hasLazyDetail());
+
+        assertEquals("{\"type\":\"about:blank\",\"detail\":\"call 1\"}", problem.toJson());
+        assertEquals("call 2", problem.getDetail());
+
+        problem.setDetail("eager");
+        assertFalse(problem.hasLazyDetail());
+        problem.setLazyDetail(null);
+        assertNull(problem.getDetail());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void appendable_not_usable_afterwards() throws IOException {
+        Appendable[] leaked = new Appendable[1];
+        Problem problem = new Problem();
+        problem.setLazyDetail(appendable -> {
+            leaked[0] = appendable;
+            appendable.append("x");
+        });
+        problem.toJson();
+        assertThrows(IllegalStateException.class, () -> leaked[0].append("y"));
+    }
+
+}
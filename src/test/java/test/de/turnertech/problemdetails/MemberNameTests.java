@@ -0,0 +1,102 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.MemberName;
+import de.turnertech.problemdetails.MemberWriter;
+import de.turnertech.problemdetails.Problem;
+
+class MemberNameTests {
+
+    private static final Charset[] CHARSETS = { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII, StandardCharsets.UTF_16 };
+
+    private static final MemberName TEXT = MemberName.of("text");
+
+    private static final MemberName COUNT = MemberName.of("count");
+
+    private static final MemberName RATIO = MemberName.of("ratio");
+
+    private static final MemberName FLAG = MemberName.of("flag");
+
+    private static final MemberName NOTHING = MemberName.of("nothing");
+
+    private static final MemberName LONG_NAME = MemberName.of("a".repeat(300));
+
+    private static class Encoded extends Problem {
+
+        @Override
+        protected void writeExtensions(MemberWriter memberWriter) throws IOException {
+            memberWriter.writeMember(TEXT, "Größe <\"😀\">");
+            memberWriter.writeMember(COUNT, -42);
+            memberWriter.writeMember(RATIO, 0.5);
+            memberWriter.writeMember(FLAG, true);
+            memberWriter.writeNullMember(NOTHING);
+            memberWriter.writeMember(LONG_NAME, 1);
+        }
+
+    }
+
+    private static class Named extends Problem {
+
+        @Override
+        protected void writeExtensions(MemberWriter memberWriter) throws IOException {
+            memberWriter.writeMember("text", "Größe <\"😀\">");
+            memberWriter.writeMember("count", -42);
+            memberWriter.writeMember("ratio", 0.5);
+            memberWriter.writeMember("flag", true);
+            memberWriter.writeNullMember("nothing");
+            memberWriter.writeMember("a".repeat(300), 1);
+        }
+
+    }
+
+    private static byte[] json(Problem problem, Charset charset) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, charset);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] xml(Problem problem, Charset charset) throws XMLStreamException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toXml(outputStream, charset, true);
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void same_output_as_names() throws IOException, XMLStreamException {
+        for(Charset charset : CHARSETS) {
+            assertArrayEquals(json(new Named(), charset), json(new Encoded(), charset), charset.name());
+            assertArrayEquals(xml(new Named(), charset), xml(new Encoded(), charset), charset.name());
+        }
+        assertArrayEquals(new Named().toCbor(), new Encoded().toCbor());
+    }
+
+    @Test
+    void validated() {
+        assertThrows(InvalidParameterException.class, () -> MemberName.of("status"));
+        assertThrows(InvalidParameterException.class, () -> MemberName.of("a b"));
+        assertThrows(InvalidParameterException.class, () -> MemberName.of(null));
+    }
+
+    @Test
+    void equality() {
+        assertEquals(MemberName.of("text"), TEXT);
+        assertEquals(TEXT.hashCode(), MemberName.of("text").hashCode());
+        assertNotEquals(COUNT, TEXT);
+        assertEquals("text", TEXT.toString());
+    }
+
+}
@@ -0,0 +1,116 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+
+class NioTests {
+
+    private static final Charset[] CHARSETS = { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16 };
+
+    private static Problem problem() {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Größe € 😀 \n\t <&>");
+        problem.getExtensions().put("balance", 30);
+        return problem;
+    }
+
+    private static byte[] json(Problem problem, Charset charset) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(outputStream, charset);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] xml(Problem problem, Charset charset) throws XMLStreamException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toXml(outputStream, charset, true);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] remaining(ByteBuffer byteBuffer) {
+        byteBuffer.flip();
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    void json_to_direct_buffer() throws IOException {
+        for(Problem problem : new Problem[] { problem(), new BiggerProblem() }) {
+            for(Charset charset : CHARSETS) {
+                byte[] expected = json(problem, charset);
+                assertEquals(expected.length, problem.jsonLength(charset));
+
+                ByteBuffer byteBuffer = ByteBuffer.allocateDirect(expected.length);
+                problem.toJson(byteBuffer, charset);
+                assertEquals(0, byteBuffer.remaining());
+                assertArrayEquals(expected, remaining(byteBuffer));
+            }
+        }
+    }
+
+    @Test
+    void xml_to_direct_buffer() throws XMLStreamException {
+        // Not BiggerProblem, as the StAX writer generates a random prefix for its second namespace
+        Problem stax = new Problem() {
+            @Override
+            protected void extendXml(XMLStreamWriter xmlStreamWriter, Charset charset) throws XMLStreamException {
+                xmlStreamWriter.writeStartElement(Problem.NAMESPACE, "hugs");
+                xmlStreamWriter.writeCharacters("Moar");
+                xmlStreamWriter.writeEndElement();
+            }
+        };
+        for(Problem problem : new Problem[] { problem(), stax }) {
+            for(Charset charset : CHARSETS) {
+                byte[] expected = xml(problem, charset);
+                assertEquals(expected.length, problem.xmlLength(charset, true));
+
+                ByteBuffer byteBuffer = ByteBuffer.allocateDirect(expected.length);
+                problem.toXml(byteBuffer, charset, true);
+                assertArrayEquals(expected, remaining(byteBuffer));
+            }
+        }
+    }
+
+    @Test
+    void to_channel() throws IOException, XMLStreamException {
+        Problem problem = problem();
+        char[] detail = new char[20000];
+        Arrays.fill(detail, 'ä');
+        problem.setDetail(new String(detail));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toJson(Channels.newChannel(outputStream));
+        assertArrayEquals(json(problem, StandardCharsets.UTF_8), outputStream.toByteArray());
+
+        outputStream.reset();
+        problem.toXml(Channels.newChannel(outputStream), StandardCharsets.UTF_16, true);
+        assertArrayEquals(xml(problem, StandardCharsets.UTF_16), outputStream.toByteArray());
+    }
+
+    @Test
+    void buffer_too_small() {
+        Problem problem = problem();
+        assertThrows(BufferOverflowException.class, () -> problem.toJson(ByteBuffer.allocate(10)));
+    }
+
+}
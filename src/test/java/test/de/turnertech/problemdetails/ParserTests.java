@@ -0,0 +1,231 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemValidator;
+
+class ParserTests {
+
+    private static Problem fullProblem() {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have \"enough\" credit.");
+        problem.setDetail("Größe € 😀 \n\t <&>");
+        return problem;
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static XMLStreamReader xml(String xml) throws XMLStreamException {
+        return XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(xml));
+    }
+
+    /** Streams its detail into a builder, and counts the chunks. */
+    private static final class StreamedDetail extends Problem {
+
+        private final StringBuilder detail = new StringBuilder();
+
+        private int chunks;
+
+        @Override
+        protected Appendable detailSink() {
+            return new Appendable() {
+                @Override
+                public Appendable append(CharSequence csq) {
+                    return append(csq, 0, csq.length());
+                }
+
+                @Override
+                public Appendable append(CharSequence csq, int start, int end) {
+                    assertFalse(Character.isHighSurrogate(csq.charAt(end - 1)) && end - start < csq.length());
+                    chunks++;
+                    detail.append(csq, start, end);
+                    return this;
+                }
+
+                @Override
+                public Appendable append(char c) {
+                    chunks++;
+                    detail.append(c);
+                    return this;
+                }
+            };
+        }
+
+    }
+
+    @Test
+    void detail_is_streamed_to_sink() throws IOException, XMLStreamException {
+        Problem problem = fullProblem();
+        problem.setDetail("Größe € 😀 \n\t <&> ".repeat(5000));
+        String json = problem.toJson().replace("😀", "\\ud83d\\ude00");
+        String xml = problem.toXml();
+
+        StreamedDetail streamed = Problem.fromJson(json(json), StreamedDetail::new);
+        assertNull(streamed.getDetail());
+        assertEquals(problem.getDetail(), streamed.detail.toString());
+        assertTrue(streamed.chunks > 1);
+        assertEquals(problem.getTitle(), streamed.getTitle());
+
+        streamed = ProblemValidator.STRICT.fromJson(json(json), StreamedDetail::new);
+        assertNull(streamed.getDetail());
+        assertEquals(problem.getDetail(), streamed.detail.toString());
+
+        streamed = Problem.fromXml(xml(xml), StreamedDetail::new);
+        assertNull(streamed.getDetail());
+        assertEquals(problem.getDetail(), streamed.detail.toString());
+        assertEquals(problem.getInstance(), streamed.getInstance());
+
+        streamed = ProblemValidator.STRICT.fromXml(xml(xml), StreamedDetail::new);
+        assertEquals(problem.getDetail(), streamed.detail.toString());
+
+        assertThrows(XMLStreamException.class, () -> Problem.fromXml(xml("<problem xmlns=\"urn:ietf:rfc:7807\"><detail>a<b/></detail></problem>"), StreamedDetail::new));
+    }
+
+    @Test
+    void json_round_trip() throws IOException {
+        Problem expected = fullProblem();
+        assertEquals(expected, Problem.fromJson(json(expected.toJson())));
+        assertEquals(new Problem(), Problem.fromJson(json(new Problem().toJson())));
+    }
+
+    @Test
+    void json_from_byte_buffers() throws IOException {
+        Problem expected = fullProblem();
+        byte[] bytes = (expected.toJson() + "  trailing").getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        assertEquals(expected, Problem.fromJson(heap));
+        assertEquals("  trailing", StandardCharsets.UTF_8.decode(heap).toString());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(expected, Problem.fromJson(direct));
+        assertEquals("  trailing", StandardCharsets.UTF_8.decode(direct).toString());
+    }
+
+    @Test
+    void json_type_defaults_to_about_blank() throws IOException {
+        Problem problem = Problem.fromJson(json("{\"title\":\"No type\"}"));
+        assertEquals(URI.create("about:blank"), problem.getType());
+        assertEquals("No type", problem.getTitle());
+    }
+
+    @Test
+    void json_members_of_wrong_type_are_ignored() throws IOException {
+        Problem problem = Problem.fromJson(json("{\"type\":42,\"title\":[\"a\"],\"status\":\"nope\",\"detail\":{},\"instance\":null}"));
+        assertEquals(new Problem(), problem);
+
+        problem = Problem.fromJson(json("{\"status\":4.04}"));
+        assertNull(problem.getStatus());
+        problem = Problem.fromJson(json("{\"status\":999}"));
+        assertNull(problem.getStatus());
+    }
+
+    @Test
+    void json_legacy_string_status() throws IOException {
+        assertEquals(Integer.valueOf(404), Problem.fromJson(json("{\"type\":\"about:blank\",\"status\":\"404\"}")).getStatus());
+    }
+
+    @Test
+    void json_unknown_members_are_handed_to_subclass() throws IOException {
+        BiggerProblem problem = Problem.fromJson(json("{\"solution\":\"Less Hugs\",\"type\":\"my:problem\",\"other\":[1,2.5,true,null,{\"a\":\"b\"}]}"), BiggerProblem::new);
+        assertEquals("Less Hugs", problem.getSolution());
+        assertEquals(URI.create("my:problem"), problem.getType());
+    }
+
+    @Test
+    void json_extension_values() throws IOException {
+        Map<String, Object> extensions = new LinkedHashMap<>();
+        Problem.fromJson(json("{\"s\":\"\\u00e4\\\\\",\"l\":-12,\"d\":1.5e3,\"b\":false,\"n\":null,\"a\":[],\"o\":{\"x\":{}}}"), () -> new Problem() {
+            @Override
+            protected void readJsonExtension(String name, Object value) {
+                extensions.put(name, value);
+            }
+        });
+        assertEquals("ä\\", extensions.get("s"));
+        assertEquals(-12L, extensions.get("l"));
+        assertEquals(1500.0, extensions.get("d"));
+        assertEquals(Boolean.FALSE, extensions.get("b"));
+        assertNull(extensions.get("n"));
+        assertEquals(List.of(), extensions.get("a"));
+        assertEquals(Map.of("x", Map.of()), extensions.get("o"));
+    }
+
+    @Test
+    void json_large_detail_is_streamed() throws IOException {
+        StringBuilder detail = new StringBuilder();
+        for(int i = 0; i < 100000; i++) {
+            detail.append("Zeile ").append(i).append(": äöü\n");
+        }
+        Problem expected = new Problem();
+        expected.setDetail(detail.toString());
+        assertEquals(expected, Problem.fromJson(json(expected.toJson())));
+    }
+
+    @Test
+    void json_syntax_errors() {
+        assertThrows(IOException.class, () -> Problem.fromJson(json("")));
+        assertThrows(IOException.class, () -> Problem.fromJson(json("[]")));
+        assertThrows(IOException.class, () -> Problem.fromJson(json("{\"type\":\"about:blank\"")));
+        assertThrows(IOException.class, () -> Problem.fromJson(json("{\"type\" \"about:blank\"}")));
+        assertThrows(IOException.class, () -> Problem.fromJson(json("{\"status\":01}")));
+        assertThrows(IOException.class, () -> Problem.fromJson(json("{\"x\":tru}")));
+    }
+
+    @Test
+    void xml_round_trip() throws XMLStreamException {
+        Problem expected = fullProblem();
+        assertEquals(expected, Problem.fromXml(xml(expected.toXml())));
+    }
+
+    @Test
+    void xml_unknown_elements_are_handed_to_subclass() throws XMLStreamException {
+        BiggerProblem expected = new BiggerProblem();
+        expected.setStatus(404);
+        String xml = expected.toXml().replace("Moar Hugs", "Less Hugs");
+
+        XMLStreamReader reader = xml(xml);
+        BiggerProblem problem = Problem.fromXml(reader, BiggerProblem::new);
+        assertEquals("Less Hugs", problem.getSolution());
+        assertEquals(Integer.valueOf(404), problem.getStatus());
+        assertEquals("problem", reader.getLocalName());
+    }
+
+    @Test
+    void xml_legacy_type_element() throws XMLStreamException {
+        Problem problem = Problem.fromXml(xml("<problem xmlns=\"urn:ietf:rfc:7807\"><problem>my:problem</problem><status> 500 </status></problem>"));
+        assertEquals(URI.create("my:problem"), problem.getType());
+        assertEquals(Integer.valueOf(500), problem.getStatus());
+    }
+
+    @Test
+    void xml_requires_problem_element() {
+        assertThrows(XMLStreamException.class, () -> Problem.fromXml(xml("<problem><type>my:problem</type></problem>")));
+    }
+
+}
@@ -0,0 +1,182 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemAggregator;
+import de.turnertech.problemdetails.ProblemSummary;
+import de.turnertech.problemdetails.ProblemTemplate;
+
+class ProblemAggregatorTests {
+
+    private static final ProblemTemplate UNAVAILABLE = ProblemTemplate.of(URI.create("https://example.com/probs/unavailable"), "Downstream unavailable.", 503);
+
+    private static Problem occurrence(ProblemTemplate template, int i) {
+        return template.toProblem("Attempt " + i, URI.create("/requests/" + (i % 5)));
+    }
+
+    private static ProblemSummary find(List<ProblemSummary> summaries, String type, int status) {
+        for(ProblemSummary summary : summaries) {
+            if(summary.getTemplate().getType().toString().equals(type) && summary.getTemplate().getStatusAsInt() == status) {
+                return summary;
+            }
+        }
+        throw new AssertionError(type + " " + status);
+    }
+
+    @Test
+    void summarises_window() {
+        List<ProblemSummary> summaries = new ArrayList<>();
+        ProblemAggregator aggregator = new ProblemAggregator(Duration.ZERO, 3, summaries::add);
+        for(int i = 0; i < 1000; i++) {
+            aggregator.record(occurrence(UNAVAILABLE, i));
+        }
+        Problem other = occurrence(UNAVAILABLE, 0);
+        other.setStatus(502);
+        aggregator.record(other);
+        aggregator.record(ProblemTemplate.of(URI.create("https://example.com/probs/other"), null, null), null, null);
+        assertTrue(summaries.isEmpty());
+
+        aggregator.flush();
+        assertEquals(3, summaries.size());
+        ProblemSummary summary = find(summaries, UNAVAILABLE.getType().toString(), 503);
+        assertEquals(UNAVAILABLE, summary.getTemplate());
+        assertEquals(1000, summary.getCount());
+        assertEquals("Attempt 0", summary.getDetail());
+        assertEquals(Arrays.asList(URI.create("/requests/0"), URI.create("/requests/1"), URI.create("/requests/2")), summary.getInstances());
+        assertEquals(1, find(summaries, UNAVAILABLE.getType().toString(), 502).getCount());
+        ProblemSummary untitled = find(summaries, "https://example.com/probs/other", Problem.NO_STATUS);
+        assertNull(untitled.getDetail());
+        assertTrue(untitled.getInstances().isEmpty());
+
+        Problem problem = summary.toProblem();
+        assertEquals(1000L, problem.getExtensions().get("occurrences"));
+        assertEquals(URI.create("/requests/0"), problem.getInstance());
+
+        summaries.clear();
+        aggregator.flush();
+        assertTrue(summaries.isEmpty());
+        aggregator.record(UNAVAILABLE, "again", null);
+        aggregator.flush();
+        assertEquals(1, summaries.get(0).getCount());
+        assertEquals("again", summaries.get(0).getDetail());
+    }
+
+    @Test
+    void flushes_when_window_ends() throws InterruptedException {
+        List<ProblemSummary> summaries = new ArrayList<>();
+        // Long enough that class loading during the first record does not end the window
+        ProblemAggregator aggregator = new ProblemAggregator(Duration.ofMillis(500), 1, summaries::add);
+        aggregator.record(UNAVAILABLE, null, null);
+        assertTrue(summaries.isEmpty());
+        Thread.sleep(600);
+        aggregator.record(UNAVAILABLE, null, null);
+        assertEquals(1, summaries.size());
+        assertEquals(2, summaries.get(0).getCount());
+    }
+
+    @Test
+    void idle_types_are_dropped_and_counted_again() {
+        List<ProblemSummary> summaries = new ArrayList<>();
+        ProblemAggregator aggregator = new ProblemAggregator(Duration.ZERO, 1, summaries::add);
+        aggregator.record(UNAVAILABLE, "first", URI.create("/requests/1"));
+        aggregator.flush();
+        aggregator.flush();
+        aggregator.flush();
+        assertEquals(1, summaries.size());
+        aggregator.record(UNAVAILABLE, "second", URI.create("/requests/2"));
+        aggregator.record(UNAVAILABLE, "third", null);
+        aggregator.flush();
+        assertEquals(2, summaries.size());
+        assertEquals(2, summaries.get(1).getCount());
+        assertEquals("second", summaries.get(1).getDetail());
+        assertEquals(Arrays.asList(URI.create("/requests/2")), summaries.get(1).getInstances());
+    }
+
+    @Test
+    void concurrent_counts_are_not_lost_while_types_are_dropped() throws Exception {
+        List<ProblemSummary> summaries = Collections.synchronizedList(new ArrayList<>());
+        ProblemAggregator aggregator = new ProblemAggregator(Duration.ZERO, 1, summaries::add);
+        List<ProblemTemplate> templates = new ArrayList<>();
+        for(int i = 0; i < 64; i++) {
+            templates.add(ProblemTemplate.of(URI.create("https://example.com/probs/" + i), null, 500 + i % 2));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while(!done.get()) {
+                    aggregator.flush();
+                }
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < 4; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for(int i = 0; i < 20000; i++) {
+                        aggregator.record(templates.get((i * 7 + offset) % templates.size()), null, null);
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+            done.set(true);
+            flusher.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdown();
+        }
+        aggregator.flush();
+        long total = 0;
+        for(ProblemSummary summary : summaries) {
+            total += summary.getCount();
+        }
+        assertEquals(4 * 20000, total);
+    }
+
+    @Test
+    void concurrent_counts_are_not_lost() throws Exception {
+        List<ProblemSummary> summaries = Collections.synchronizedList(new ArrayList<>());
+        ProblemAggregator aggregator = new ProblemAggregator(Duration.ofMillis(1), 4, summaries::add);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for(int i = 0; i < 20000; i++) {
+                        aggregator.record(occurrence(UNAVAILABLE, i));
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        aggregator.flush();
+        long total = 0;
+        for(ProblemSummary summary : summaries) {
+            total += summary.getCount();
+            assertTrue(summary.getInstances().size() <= 4);
+        }
+        assertEquals(8 * 20000, total);
+    }
+
+}
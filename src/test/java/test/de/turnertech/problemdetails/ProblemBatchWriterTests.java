@@ -0,0 +1,135 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemBatchWriter;
+import de.turnertech.problemdetails.ProblemBatchWriter.Format;
+import de.turnertech.problemdetails.ProblemValidator;
+
+class ProblemBatchWriterTests {
+
+    private static List<Problem> problems(int count) {
+        List<Problem> problems = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            Problem problem = new Problem(URI.create("https://example.com/probs/invalid-field"));
+            problem.setStatus(400);
+            problem.setDetail("Field " + i + " is \"invalid\".\n");
+            problems.add(problem);
+        }
+        return problems;
+    }
+
+    private static String write(Format format, List<? extends Problem> problems) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try(ProblemBatchWriter writer = ProblemBatchWriter.open(outputStream, StandardCharsets.UTF_8, format)) {
+            writer.writeAll(problems);
+            assertEquals(problems.size(), writer.getCount());
+        }
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void json_array() throws IOException {
+        List<Problem> problems = problems(2);
+        assertEquals("[" + problems.get(0).toJson() + "," + problems.get(1).toJson() + "]", write(Format.JSON_ARRAY, problems));
+        assertEquals("[]", write(Format.JSON_ARRAY, List.of()));
+    }
+
+    @Test
+    void ndjson() throws IOException {
+        List<Problem> problems = problems(500);
+        String[] lines = write(Format.NDJSON, problems).split("\n");
+        assertEquals(problems.size(), lines.length);
+        for(int i = 0; i < lines.length; i++) {
+            assertEquals(problems.get(i), Problem.fromJson(new ByteArrayInputStream(lines[i].getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    @Test
+    void xml_sequence() throws IOException, XMLStreamException {
+        List<Problem> problems = new ArrayList<>(problems(300));
+        BiggerProblem bigger = new BiggerProblem();
+        problems.add(bigger);
+        String xml = write(Format.XML, problems);
+        assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problems xmlns=\"" + ProblemBatchWriter.NAMESPACE + "\"><problem xmlns=\"urn:ietf:rfc:7807\">"));
+
+        XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        reader.nextTag();
+        assertEquals(ProblemBatchWriter.NAMESPACE, reader.getNamespaceURI());
+        for(int i = 0; i < problems.size() - 1; i++) {
+            reader.nextTag();
+            assertEquals(problems.get(i), Problem.fromXml(reader));
+        }
+        reader.nextTag();
+        assertEquals("Moar Hugs", Problem.fromXml(reader, BiggerProblem::new).getSolution());
+    }
+
+    @Test
+    void xml_problems_match_the_schema() throws IOException, XMLStreamException {
+        List<Problem> problems = new ArrayList<>(problems(10));
+        problems.add(new BiggerProblem());
+        String xml = write(Format.XML, problems);
+
+        XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        reader.nextTag();
+        int count = 0;
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT && count < problems.size() - 1) {
+            assertEquals(Problem.NAMESPACE, reader.getNamespaceURI());
+            assertEquals(problems.get(count), ProblemValidator.STRICT.fromXml(reader));
+            count++;
+        }
+        // Strict validation allows a single extension element, BiggerProblem has two
+        assertEquals("Moar Hugs", ProblemValidator.LENIENT.fromXml(reader, BiggerProblem::new).getSolution());
+        assertEquals(XMLStreamConstants.END_ELEMENT, reader.nextTag());
+        assertEquals(problems.size() - 1, count);
+    }
+
+    @Test
+    void output_is_written_incrementally() throws IOException {
+        int[] largest = new int[1];
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                largest[0] = Math.max(largest[0], 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                largest[0] = Math.max(largest[0], len);
+            }
+        };
+        try(ProblemBatchWriter writer = ProblemBatchWriter.open(outputStream, StandardCharsets.UTF_8, Format.JSON_ARRAY)) {
+            writer.writeAll(IntStream.range(0, 10000).mapToObj(i -> problems(1).get(0)));
+        }
+        assertTrue(largest[0] <= 8192);
+    }
+
+    @Test
+    void closed_writer() throws IOException {
+        ProblemBatchWriter writer = ProblemBatchWriter.open(new ByteArrayOutputStream(), StandardCharsets.UTF_8, Format.NDJSON);
+        writer.close();
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.write(new Problem()));
+    }
+
+}
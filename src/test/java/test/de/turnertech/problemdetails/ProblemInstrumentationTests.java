@@ -0,0 +1,170 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemBatchWriter;
+import de.turnertech.problemdetails.ProblemInstrumentation;
+import de.turnertech.problemdetails.ProblemMapper;
+import de.turnertech.problemdetails.ProblemRecord;
+import de.turnertech.problemdetails.ProblemStatistics;
+import de.turnertech.problemdetails.ProblemTemplate;
+
+class ProblemInstrumentationTests {
+
+    private static final URI TYPE = URI.create("https://example.com/probs/instrumented");
+
+    @AfterEach
+    void uninstall() {
+        ProblemInstrumentation.install(ProblemInstrumentation.NOOP);
+    }
+
+    private static Problem problem() {
+        Problem problem = new Problem(TYPE);
+        problem.setTitle("Instrumented");
+        problem.setStatus(409);
+        problem.setDetail("Größe");
+        return problem;
+    }
+
+    @Test
+    void noop_by_default() {
+        assertSame(ProblemInstrumentation.NOOP, ProblemInstrumentation.installed());
+        assertThrows(NullPointerException.class, () -> ProblemInstrumentation.install(null));
+    }
+
+    @Test
+    void counts_writes() throws IOException, XMLStreamException {
+        ProblemStatistics statistics = new ProblemStatistics();
+        ProblemInstrumentation.install(statistics);
+        assertSame(statistics, ProblemInstrumentation.installed());
+
+        Problem problem = problem();
+        String json = problem.toJson();
+        byte[] cbor = problem.toCbor();
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        problem.toXml(xml, StandardCharsets.UTF_8, true);
+
+        assertEquals(3, statistics.getWritten(TYPE));
+        assertEquals(3, statistics.getWritten(409));
+        assertEquals(1, statistics.getWritten(Problem.MEDIA_TYPE_JSON));
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length, statistics.getBytes(Problem.MEDIA_TYPE_JSON));
+        assertEquals(cbor.length, statistics.getBytes(Problem.MEDIA_TYPE_CBOR));
+        assertEquals(xml.size(), statistics.getBytes(Problem.MEDIA_TYPE_XML));
+        assertEquals(1, Arrays.stream(statistics.getLatencies(Problem.MEDIA_TYPE_XML)).sum());
+        assertEquals(ProblemStatistics.BUCKETS, statistics.getLatencies("text/plain").length);
+    }
+
+    @Test
+    void lengths_not_counted() throws IOException, XMLStreamException {
+        ProblemStatistics statistics = new ProblemStatistics();
+        ProblemInstrumentation.install(statistics);
+
+        Problem problem = problem();
+        problem.jsonLength(StandardCharsets.UTF_8);
+        problem.xmlLength(StandardCharsets.UTF_8, true);
+        problem.cborLength();
+        assertEquals(0, statistics.getWritten(TYPE));
+    }
+
+    @Test
+    void counts_templates_batches_and_stax() throws IOException, XMLStreamException {
+        ProblemStatistics statistics = new ProblemStatistics();
+        ProblemInstrumentation.install(statistics);
+
+        ProblemTemplate template = ProblemTemplate.of(TYPE, "Instrumented", 409);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        template.toJson(outputStream, "detail", null);
+        assertEquals(outputStream.size(), statistics.getBytes(Problem.MEDIA_TYPE_JSON));
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        try(ProblemBatchWriter writer = ProblemBatchWriter.open(batch, StandardCharsets.UTF_8, ProblemBatchWriter.Format.NDJSON)) {
+            writer.write(problem());
+            writer.write(problem());
+        }
+        assertEquals(outputStream.size() + batch.size(), statistics.getBytes(Problem.MEDIA_TYPE_JSON));
+
+        XMLStreamWriter xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(new StringWriter());
+        problem().toXml(xmlStreamWriter, StandardCharsets.UTF_8, false);
+        assertEquals(0, statistics.getBytes(Problem.MEDIA_TYPE_XML));
+
+        assertEquals(4, statistics.getWritten(TYPE));
+        assertEquals(3, statistics.getWritten(Problem.MEDIA_TYPE_JSON));
+        assertEquals(1, statistics.getWritten(Problem.MEDIA_TYPE_XML));
+    }
+
+    @Test
+    void counts_records_when_memoised_bytes_are_reused() throws IOException {
+        ProblemStatistics statistics = new ProblemStatistics();
+        ProblemInstrumentation.install(statistics);
+
+        ProblemRecord record = ProblemRecord.of(problem());
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        record.toJson(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        record.toJson(second);
+        String json = record.toJson();
+        assertEquals(3, statistics.getWritten(Problem.MEDIA_TYPE_JSON));
+        assertEquals(first.size() + second.size() + json.getBytes(StandardCharsets.UTF_8).length, statistics.getBytes(Problem.MEDIA_TYPE_JSON));
+
+        ByteArrayOutputStream latin = new ByteArrayOutputStream();
+        record.toJson(latin, StandardCharsets.ISO_8859_1);
+        assertEquals(4, statistics.getWritten(Problem.MEDIA_TYPE_JSON));
+
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        record.toXml(xml, StandardCharsets.UTF_8, true);
+        record.toXml(xml, StandardCharsets.UTF_8, false);
+        record.toXml(xml, StandardCharsets.UTF_16, true);
+        assertEquals(3, statistics.getWritten(Problem.MEDIA_TYPE_XML));
+        assertEquals(xml.size(), statistics.getBytes(Problem.MEDIA_TYPE_XML));
+        assertEquals(7, statistics.getWritten(TYPE));
+        assertEquals(7, statistics.getWritten(409));
+    }
+
+    @Test
+    void counts_mapped() {
+        ProblemStatistics statistics = new ProblemStatistics();
+        ProblemInstrumentation.install(statistics);
+
+        ProblemMapper mapper = new ProblemMapper().register(IllegalStateException.class, ProblemTemplate.of(TYPE, "Instrumented", 409));
+        mapper.toProblem(new IllegalStateException());
+        mapper.toException(new IllegalStateException());
+        mapper.toProblem(new RuntimeException());
+        assertEquals(2, statistics.getMapped(TYPE));
+        assertEquals(1, statistics.getMapped(URI.create("about:blank")));
+        assertEquals(0, statistics.getWritten(TYPE));
+    }
+
+    @Test
+    void custom_instrumentation() throws IOException {
+        long[] received = new long[2];
+        ProblemInstrumentation.install(new ProblemInstrumentation() {
+            @Override
+            public void written(URI type, int status, String mediaType, long bytes, long nanos) {
+                received[0] = bytes;
+                received[1] = nanos;
+            }
+        });
+        String json = problem().toJson();
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length, received[0]);
+        assertTrue(received[1] >= 0);
+    }
+
+}
@@ -0,0 +1,88 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemException;
+import de.turnertech.problemdetails.ProblemMapper;
+import de.turnertech.problemdetails.ProblemTemplate;
+
+class ProblemMapperTests {
+
+    private static final ProblemTemplate INVALID = ProblemTemplate.of(URI.create("https://example.com/probs/invalid"), "Invalid request.", 400);
+
+    private static final ProblemTemplate NOT_FOUND = ProblemTemplate.of(URI.create("https://example.com/probs/not-found"), "Not found.", 404);
+
+    private static final ProblemTemplate IO = ProblemTemplate.of(URI.create("https://example.com/probs/io"), "Input or output failed.", 502);
+
+    private static ProblemMapper mapper() {
+        return new ProblemMapper()
+            .register(IllegalArgumentException.class, INVALID, Throwable::getMessage)
+            .register(IOException.class, IO)
+            .register(FileNotFoundException.class, NOT_FOUND, e -> "Missing: " + e.getMessage());
+    }
+
+    @Test
+    void hierarchy() {
+        ProblemMapper mapper = mapper();
+        assertSame(INVALID, mapper.resolve(IllegalArgumentException.class));
+        assertSame(INVALID, mapper.resolve(NumberFormatException.class));
+        assertSame(IO, mapper.resolve(IOException.class));
+        assertSame(NOT_FOUND, mapper.resolve(FileNotFoundException.class));
+        assertEquals(500, mapper.resolve(IllegalStateException.class).getStatusAsInt());
+        assertEquals("Internal Server Error", mapper.resolve(Throwable.class).getTitle());
+    }
+
+    @Test
+    void details() {
+        ProblemMapper mapper = mapper();
+        Problem problem = mapper.toProblem(new NumberFormatException("not a number"));
+        assertEquals(INVALID.getType(), problem.getType());
+        assertEquals(400, problem.getStatusAsInt());
+        assertEquals("not a number", problem.getDetail());
+
+        assertEquals("Missing: a.txt", mapper.toProblem(new FileNotFoundException("a.txt")).getDetail());
+        assertNull(mapper.toProblem(new IOException("secret")).getDetail());
+        assertNull(mapper.toProblem(new IllegalStateException("secret")).getDetail());
+    }
+
+    @Test
+    void registration_after_resolution() {
+        ProblemMapper mapper = mapper();
+        assertEquals(500, mapper.resolve(UncheckedIOException.class).getStatusAsInt());
+        mapper.register(RuntimeException.class, INVALID);
+        assertSame(INVALID, mapper.resolve(UncheckedIOException.class));
+    }
+
+    @Test
+    void problem_exceptions() {
+        ProblemMapper mapper = mapper();
+        Problem problem = NOT_FOUND.toProblem("No account 12345", null);
+        ProblemException thrown = new ProblemException(problem);
+        assertSame(problem, mapper.toProblem(thrown));
+        assertSame(thrown, mapper.toException(thrown));
+        assertEquals("No account 12345", thrown.getMessage());
+        assertTrue(thrown.getStackTrace().length > 0);
+
+        IOException cause = new IOException("disk");
+        ProblemException wrapped = mapper.toException(cause);
+        assertSame(cause, wrapped.getCause());
+        assertEquals(IO.getType(), wrapped.getProblem().getType());
+        assertEquals(0, wrapped.getStackTrace().length);
+        assertEquals(IO.getTitle(), wrapped.getMessage());
+
+        ProblemException traced = new ProblemMapper(IO, true).toException(cause);
+        assertTrue(traced.getStackTrace().length > 0);
+    }
+
+}
@@ -0,0 +1,203 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.ExtensionMembers;
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemPool;
+import de.turnertech.problemdetails.ProblemWriter;
+
+class ProblemPoolTests {
+
+    private static final String TYPE = "https://example.com/probs/out-of-credit";
+
+    /** Alternated with TYPE, as text other than a String and as another String. */
+    private static final CharSequence[] TYPES = {
+        new StringBuilder("https://example.com/probs/frozen"),
+        "https://example.com/probs/closed",
+        TYPE
+    };
+
+    private static final StringBuilder INSTANCE = new StringBuilder("/account/12345/msgs/abc");
+
+    private static final String TITLE = "You do not have enough credit.";
+
+    private static final String DETAIL = "Your current balance is 30, but that costs 50.";
+
+    private static Problem full() {
+        Problem problem = new Problem(URI.create(TYPE), URI.create(INSTANCE.toString()));
+        problem.setStatus(403);
+        problem.setTitle(TITLE);
+        problem.setDetail(DETAIL);
+        problem.getExtensions().put("balance", 30).putObject("account").put("currency", "EUR");
+        return problem;
+    }
+
+    @Test
+    void reset_restores_new_state() {
+        Problem problem = full();
+        ExtensionMembers extensions = problem.getExtensions();
+        problem.reset();
+        assertEquals(new Problem(), problem);
+        assertFalse(problem.hasExtensions());
+        assertSame(extensions, problem.getExtensions());
+    }
+
+    @Test
+    void copy_from() {
+        Problem original = full();
+        Problem copy = new Problem();
+        copy.getExtensions().put("stale", true);
+        copy.copyFrom(original);
+        assertEquals(original, copy);
+        ((ExtensionMembers) copy.getExtensions().get("account")).put("currency", "USD");
+        assertEquals("EUR", ((ExtensionMembers) original.getExtensions().get("account")).get("currency"));
+
+        copy.copyFrom(new Problem());
+        assertEquals(new Problem(), copy);
+        copy.copyFrom(copy);
+        assertEquals(new Problem(), copy);
+    }
+
+    @Test
+    void text_type_and_instance() throws IOException, XMLStreamException {
+        Problem text = full();
+        text.setTypeText(TYPE);
+        text.setInstanceText(INSTANCE);
+        Problem uri = full();
+        assertEquals(uri.toJson(), text.toJson());
+        assertEquals(uri.toXml(), text.toXml());
+        assertArrayEquals(uri.toCbor(), text.toCbor());
+        assertEquals(URI.create(TYPE), text.getType());
+        assertEquals(URI.create(INSTANCE.toString()), text.getInstance());
+        assertEquals(uri, text);
+        assertEquals(uri.hashCode(), text.hashCode());
+        assertEquals(uri, new Problem(text));
+
+        text.setInstanceText(null);
+        assertEquals(null, text.getInstance());
+        assertThrows(NullPointerException.class, () -> text.setTypeText(null));
+        assertThrows(IllegalArgumentException.class, () -> text.setTypeText("not a uri"));
+        assertEquals(URI.create(TYPE), text.getType());
+
+        // Instance text is not parsed to compare or hash it
+        text.setInstanceText("not a uri");
+        Problem other = new Problem(text);
+        assertEquals(other, text);
+        assertEquals(other.hashCode(), text.hashCode());
+        assertThrows(IllegalArgumentException.class, text::getInstance);
+
+        Problem blank = new Problem();
+        blank.setTypeText("about:blank");
+        blank.setStatus(404);
+        assertEquals("Nicht gefunden", ProblemWriter.negotiate(null, "de").getTitle(blank));
+    }
+
+    @Test
+    void changed_text_is_parsed_again() {
+        Problem problem = new Problem();
+        StringBuilder type = new StringBuilder(TYPE);
+        problem.setTypeText(type);
+        assertEquals(URI.create(TYPE), problem.getType());
+        problem.reset();
+        type.setLength(0);
+        type.append("https://example.com/probs/frozen");
+        problem.setTypeText(type);
+        assertEquals(URI.create("https://example.com/probs/frozen"), problem.getType());
+        type.setLength(0);
+        type.append("not a uri");
+        assertThrows(IllegalArgumentException.class, () -> problem.setTypeText(type));
+
+        StringBuilder instance = new StringBuilder("/a");
+        problem.setInstanceText(instance);
+        assertSame(problem.getInstance(), problem.getInstance());
+        instance.append("/b");
+        assertEquals(URI.create("/a/b"), problem.getInstance());
+    }
+
+    @Test
+    void pool_resets_released_problems() {
+        ProblemPool<Problem> pool = new ProblemPool<>(Problem::new);
+        Problem problem = pool.acquire();
+        problem.setTypeText(TYPE);
+        problem.setStatus(500);
+        pool.release(problem);
+        Problem again = pool.acquire();
+        assertEquals(new Problem(), again);
+        assertNotSame(again, pool.acquire());
+    }
+
+    @Test
+    void steady_state_allocates_nothing() throws Exception {
+        // Reflection, as the tests are compiled into the library module, which does not read java.management
+        Object threadMXBean;
+        Method getThreadAllocatedBytes;
+        try {
+            threadMXBean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+            getThreadAllocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ClassNotFoundException e) {
+            threadMXBean = null;
+            getThreadAllocatedBytes = null;
+        }
+        assumeTrue(getThreadAllocatedBytes != null && getThreadAllocatedBytes.getDeclaringClass().isInstance(threadMXBean));
+
+        ProblemPool<Problem> pool = new ProblemPool<>(Problem::new);
+        ByteBuffer json = ByteBuffer.allocate(1024);
+        ByteBuffer cbor = ByteBuffer.allocate(1024);
+        long threadId = Thread.currentThread().getId();
+        // Warm up until the JIT has compiled the path, then measure
+        int hash = 0;
+        for(int i = 0; i < 21000; i++) {
+            hash += respond(pool, json, cbor, TYPES[i % TYPES.length]);
+        }
+        long before = (Long) getThreadAllocatedBytes.invoke(threadMXBean, threadId);
+        for(int i = 0; i < 9000; i++) {
+            hash += respond(pool, json, cbor, TYPES[i % TYPES.length]);
+        }
+        long allocated = (Long) getThreadAllocatedBytes.invoke(threadMXBean, threadId) - before;
+        int round = 0;
+        for(CharSequence type : TYPES) {
+            round += respond(pool, json, cbor, type);
+        }
+        assertEquals(10000 * round, hash);
+        // Less than one byte per response, which leaves slack for the measurement itself
+        assertTrue(allocated < 10000, allocated + " bytes allocated");
+        assertEquals(full().toJson().replace(",\"balance\":30,\"account\":{\"currency\":\"EUR\"}", ""), StandardCharsets.UTF_8.decode(json.flip()).toString());
+    }
+
+    private static int respond(ProblemPool<Problem> pool, ByteBuffer json, ByteBuffer cbor, CharSequence type) throws IOException {
+        Problem problem = pool.acquire();
+        try {
+            problem.setTypeText(type);
+            problem.setStatus(403);
+            problem.setTitle(TITLE);
+            problem.setDetail(DETAIL);
+            problem.setInstanceText(INSTANCE);
+            json.clear();
+            problem.toJson(json);
+            cbor.clear();
+            problem.toCbor(cbor);
+            return problem.hashCode() + problem.getInstance().hashCode() + problem.getInstance().getPath().length();
+        } finally {
+            pool.release(problem);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemRecord;
+
+class ProblemRecordTests {
+
+    private static Problem fullProblem() {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50 €.");
+        return problem;
+    }
+
+    @Test
+    void converts_to_and_from_problem() {
+        Problem problem = fullProblem();
+        ProblemRecord record = ProblemRecord.of(problem);
+        assertEquals(problem, record.toProblem());
+        assertEquals(record, record.toBuilder().build());
+        assertEquals(URI.create("about:blank"), ProblemRecord.builder().build().getType());
+    }
+
+    @Test
+    void builder_validates() {
+        assertThrows(NullPointerException.class, () -> ProblemRecord.builder().type(null));
+        assertThrows(InvalidParameterException.class, () -> ProblemRecord.builder().status(99));
+    }
+
+    @Test
+    void usable_as_key() {
+        Set<ProblemRecord> set = new HashSet<>();
+        set.add(ProblemRecord.of(fullProblem()));
+        set.add(ProblemRecord.of(fullProblem()));
+        assertEquals(1, set.size());
+        assertNotEquals(ProblemRecord.of(fullProblem()), ProblemRecord.of(fullProblem()).toBuilder().detail(null).build());
+    }
+
+    @Test
+    void encodings_match_problem() throws IOException, XMLStreamException {
+        Problem problem = fullProblem();
+        ProblemRecord record = ProblemRecord.of(problem);
+        for(int i = 0; i < 2; i++) {
+            assertEquals(problem.toJson(), record.toJson());
+            assertEquals(problem.toXml(), record.toXml());
+        }
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        problem.toJson(expected, StandardCharsets.ISO_8859_1);
+        record.toJson(actual, StandardCharsets.ISO_8859_1);
+        assertEquals(expected.toString(StandardCharsets.ISO_8859_1), actual.toString(StandardCharsets.ISO_8859_1));
+
+        expected.reset();
+        actual.reset();
+        problem.toXml(expected, StandardCharsets.UTF_8, false);
+        record.toXml(actual, StandardCharsets.UTF_8, false);
+        assertEquals(expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,92 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.security.InvalidParameterException;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemRegistry;
+import de.turnertech.problemdetails.ProblemTemplate;
+
+class ProblemRegistryTests {
+
+    @Test
+    void lookup_by_uri_string_and_key() {
+        ProblemRegistry registry = new ProblemRegistry();
+        ProblemTemplate template = registry.register("https://example.com/probs/out-of-credit", "You do not have enough credit.", 403);
+        registry.register("OUT_OF_CREDIT", template);
+
+        assertSame(template, registry.get(URI.create("https://example.com/probs/out-of-credit")));
+        assertSame(template, registry.get("https://example.com/probs/out-of-credit"));
+        assertSame(template, registry.get("OUT_OF_CREDIT"));
+        assertNull(registry.get("UNKNOWN"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void equal_templates_are_interned() {
+        ProblemRegistry registry = new ProblemRegistry();
+        ProblemTemplate first = registry.register("my:problem", "Title", 400);
+        ProblemTemplate second = registry.register(ProblemTemplate.of(URI.create("my:problem"), "Title", 400));
+        assertSame(first, second);
+    }
+
+    @Test
+    void conflicting_templates_are_rejected() {
+        ProblemRegistry registry = new ProblemRegistry();
+        registry.register("my:problem", "Title", 400);
+        assertThrows(IllegalArgumentException.class, () -> registry.register("my:problem", "Other", 400));
+        ProblemTemplate other = registry.register("my:other", null, null);
+        registry.register("KEY", other);
+        assertThrows(IllegalArgumentException.class, () -> registry.register("KEY", ProblemTemplate.of(URI.create("my:third"), null, null)));
+    }
+
+    @Test
+    void rejected_registrations_change_nothing() {
+        ProblemRegistry registry = new ProblemRegistry();
+        ProblemTemplate first = registry.register("my:a", null, null);
+        registry.register("k", first);
+        ProblemTemplate rejected = ProblemTemplate.of(URI.create("my:b"), null, null);
+        assertThrows(IllegalArgumentException.class, () -> registry.register("k", rejected));
+        assertEquals(1, registry.size());
+        assertNull(registry.get(URI.create("my:b")));
+        assertNull(registry.get("my:b"));
+        assertSame(first, registry.get("k"));
+
+        // The string form of a type may already be taken by a key
+        registry.register("my:c", first);
+        assertThrows(IllegalArgumentException.class, () -> registry.register("my:c", "Title", 400));
+        assertEquals(1, registry.size());
+        assertNull(registry.get(URI.create("my:c")));
+        assertSame(first, registry.get("my:c"));
+
+        assertSame(rejected, registry.register("k2", rejected));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void templates_are_validated() {
+        ProblemRegistry registry = new ProblemRegistry();
+        assertThrows(InvalidParameterException.class, () -> registry.register("my:problem", "Title", 700));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("not a uri", "Title", 400));
+    }
+
+    @Test
+    void derived_problems_share_constant_state() {
+        ProblemRegistry registry = new ProblemRegistry();
+        ProblemTemplate template = registry.register("my:problem", "Title", 400);
+        Problem problem = template.toProblem("Detail", URI.create("my:instance"));
+        assertSame(template.getType(), problem.getType());
+        assertSame(template.getTitle(), problem.getTitle());
+        assertEquals("Detail", problem.getDetail());
+        assertEquals(template, ProblemTemplate.of(problem));
+        assertEquals(template.hashCode(), ProblemTemplate.of(problem).hashCode());
+    }
+
+}
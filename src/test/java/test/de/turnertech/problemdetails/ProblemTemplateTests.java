@@ -0,0 +1,76 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemTemplate;
+
+class ProblemTemplateTests {
+
+    private static final ProblemTemplate NOT_FOUND = ProblemTemplate.of(URI.create("https://example.com/probs/not-found"), "Nicht gefunden – “ß”", 404);
+
+    @Test
+    void json_matches_problem() throws IOException {
+        Problem problem = NOT_FOUND.toProblem("The <thing> \"42\" is gone", URI.create("/things/42"));
+        for(Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII, StandardCharsets.UTF_16 }) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            problem.toJson(expected, charset);
+
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            NOT_FOUND.toJson(actual, charset, problem.getDetail(), problem.getInstance());
+            assertEquals(expected.toString(charset), actual.toString(charset));
+        }
+    }
+
+    @Test
+    void json_without_occurrence_members() throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ProblemTemplate.of(new Problem()).toJson(actual, null, null);
+        assertEquals("{\"type\":\"about:blank\"}", actual.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void xml_splices_occurrence_members() throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        NOT_FOUND.toXml(actual, StandardCharsets.UTF_8, true, "The <thing> & co", URI.create("/things/42"));
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>https://example.com/probs/not-found</type><title>Nicht gefunden – “ß”</title>"
+            + "<detail>The &lt;thing&gt; &amp; co</detail><status>404</status><instance>/things/42</instance></problem>",
+            actual.toString(StandardCharsets.UTF_8));
+
+        actual.reset();
+        NOT_FOUND.toXml(actual, StandardCharsets.US_ASCII, false, null, null);
+        assertEquals("<problem xmlns=\"urn:ietf:rfc:7807\"><type>https://example.com/probs/not-found</type>"
+            + "<title>Nicht gefunden &#8211; &#8220;&#223;&#8221;</title><status>404</status></problem>",
+            actual.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void xml_in_stateful_charset() throws IOException {
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        NOT_FOUND.toXml(actual, StandardCharsets.UTF_16, true, "Detail", null);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-16\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>https://example.com/probs/not-found</type><title>Nicht gefunden – “ß”</title>"
+            + "<detail>Detail</detail><status>404</status></problem>",
+            actual.toString(StandardCharsets.UTF_16));
+    }
+
+    @Test
+    void to_problem_copies_members() {
+        Problem problem = NOT_FOUND.toProblem("detail", URI.create("/things/42"));
+        assertEquals(NOT_FOUND.getType(), problem.getType());
+        assertEquals(NOT_FOUND.getTitle(), problem.getTitle());
+        assertEquals(NOT_FOUND.getStatus(), problem.getStatus());
+        assertEquals("detail", problem.getDetail());
+        assertEquals(URI.create("/things/42"), problem.getInstance());
+    }
+
+}
@@ -2,11 +2,15 @@ package test.de.turnertech.problemdetails;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URI;
+import java.security.InvalidParameterException;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -52,4 +56,36 @@ class ProblemTests {
         assertEquals(URI.create("about:blank"), a.getType());
     }
 
+    @Test
+    void status_is_primitive_with_boxed_api() {
+        Problem a = new Problem();
+        assertFalse(a.hasStatus());
+        assertNull(a.getStatus());
+        assertEquals(Problem.NO_STATUS, a.getStatusAsInt());
+
+        a.setStatus(429);
+        assertTrue(a.hasStatus());
+        assertEquals(Integer.valueOf(429), a.getStatus());
+        assertEquals(429, a.getStatusAsInt());
+
+        Problem b = new Problem();
+        b.setStatus(Integer.valueOf(429));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        a.setStatus((Integer)null);
+        assertFalse(a.hasStatus());
+        b.setStatus(Problem.NO_STATUS);
+        assertFalse(b.hasStatus());
+        assertEquals(a, b);
+    }
+
+    @Test
+    void status_must_be_in_range() {
+        Problem a = new Problem();
+        assertThrows(InvalidParameterException.class, () -> a.setStatus(99));
+        assertThrows(InvalidParameterException.class, () -> a.setStatus(Integer.valueOf(600)));
+        assertThrows(InvalidParameterException.class, () -> a.setStatus(-1));
+    }
+
 }
@@ -0,0 +1,132 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemValidator;
+
+class ProblemValidatorTests {
+
+    private static final String XML_START = "<problem xmlns=\"urn:ietf:rfc:7807\">";
+
+    private static Problem json(String json) throws IOException {
+        return ProblemValidator.STRICT.fromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Problem xml(ProblemValidator validator, String xml) throws XMLStreamException {
+        XMLStreamReader xmlStreamReader = XMLInputFactory.newFactory().createXMLStreamReader(new StringReader(xml));
+        return validator.fromXml(xmlStreamReader);
+    }
+
+    private static Problem written() {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        problem.setStatus(403);
+        problem.getExtensions().put("balance", 30);
+        return problem;
+    }
+
+    @Test
+    void json_valid() throws IOException {
+        Problem problem = written();
+        assertEquals(problem, json(problem.toJson()));
+        assertEquals(problem, ProblemValidator.STRICT.fromJson(ByteBuffer.wrap(problem.toJson().getBytes(StandardCharsets.UTF_8))));
+        assertEquals(404, json("{\"status\":404.0}").getStatusAsInt());
+        assertEquals(new Problem(), json("{}"));
+    }
+
+    @Test
+    void json_invalid() {
+        String[] invalid = {
+            "{\"type\":42}",
+            "{\"type\":\"not a uri\"}",
+            "{\"title\":null}",
+            "{\"status\":\"404\"}",
+            "{\"status\":600}",
+            "{\"status\":99}",
+            "{\"status\":404.5}",
+            "{\"status\":1e300}",
+            "{\"detail\":[]}",
+            "{\"instance\":{}}"
+        };
+        for(String json : invalid) {
+            assertThrows(IOException.class, () -> json(json), json);
+            // The lenient reader ignores the same member
+            assertNull(lenient(json).getTitle(), json);
+        }
+    }
+
+    private static Problem lenient(String json) {
+        try {
+            return Problem.fromJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new AssertionError(json, e);
+        }
+    }
+
+    @Test
+    void json_error_names_member() {
+        IOException exception = assertThrows(IOException.class, () -> json("{\"title\":\"a\", \"status\":true}"));
+        assertTrue(exception.getMessage().contains("status"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("23"), exception.getMessage());
+    }
+
+    @Test
+    void xml_valid() throws XMLStreamException {
+        Problem problem = written();
+        Problem read = xml(ProblemValidator.STRICT, problem.toXml());
+        assertEquals(problem.getType(), read.getType());
+        assertEquals(problem.getDetail(), read.getDetail());
+        assertEquals(problem.getStatus(), read.getStatus());
+        assertEquals(problem.getInstance(), read.getInstance());
+        assertEquals("30", read.getExtensions().get("balance"));
+        Problem positive = xml(ProblemValidator.STRICT, XML_START + "<type> about:blank </type><status>42</status></problem>");
+        // A positive integer, but not a status code
+        assertNull(positive.getStatus());
+    }
+
+    @Test
+    void xml_invalid() {
+        String[] invalid = {
+            XML_START + "</problem>",
+            XML_START + "<title>a</title></problem>",
+            XML_START + "<type>about:blank</type><type>about:blank</type></problem>",
+            XML_START + "<type>about:blank</type><status>404</status><detail>a</detail></problem>",
+            XML_START + "<type>about:blank</type><status>0</status></problem>",
+            XML_START + "<type>about:blank</type><status>four</status></problem>",
+            XML_START + "<type>not a uri</type></problem>",
+            XML_START + "<type id=\"1\">about:blank</type></problem>",
+            XML_START + "<type>about:blank</type><balance>30</balance><title>a</title></problem>"
+        };
+        for(String xml : invalid) {
+            assertThrows(XMLStreamException.class, () -> xml(ProblemValidator.LENIENT, xml), xml);
+        }
+    }
+
+    @Test
+    void xml_extensions() throws XMLStreamException {
+        String one = XML_START + "<type>about:blank</type><balance>30</balance></problem>";
+        String two = XML_START + "<type>about:blank</type><balance>30</balance><x:other xmlns:x=\"urn:other\"/></problem>";
+        assertEquals("30", xml(ProblemValidator.STRICT, one).getExtensions().get("balance"));
+        assertEquals("30", xml(ProblemValidator.LENIENT, two).getExtensions().get("balance"));
+        assertThrows(XMLStreamException.class, () -> xml(ProblemValidator.STRICT, two));
+    }
+
+}
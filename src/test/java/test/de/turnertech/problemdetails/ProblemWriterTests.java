@@ -0,0 +1,132 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+import de.turnertech.problemdetails.ProblemWriter;
+import de.turnertech.problemdetails.ProblemWriter.Format;
+
+class ProblemWriterTests {
+
+    private static Format format(String accept) {
+        return ProblemWriter.negotiate(accept, null).getFormat();
+    }
+
+    private static Locale locale(String acceptLanguage) {
+        return ProblemWriter.negotiate(null, acceptLanguage).getLocale();
+    }
+
+    private static Problem notFound() {
+        Problem problem = new Problem();
+        problem.setStatus(404);
+        problem.setTitle(Problem.findStatusPhrase(404));
+        problem.setDetail("No such account");
+        return problem;
+    }
+
+    private static byte[] write(ProblemWriter writer, Problem problem) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writer.write(problem, outputStream);
+        assertEquals(outputStream.size(), writer.length(problem));
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    void formats() {
+        assertEquals(Format.JSON, format(null));
+        assertEquals(Format.JSON, format(""));
+        assertEquals(Format.JSON, format("*/*"));
+        assertEquals(Format.JSON, format("text/html"));
+        assertEquals(Format.JSON, format("application/json, application/xml"));
+        assertEquals(Format.XML, format("application/problem+xml"));
+        assertEquals(Format.XML, format("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"));
+        assertEquals(Format.XML, format("application/xml, application/problem+json;q=0.5"));
+        assertEquals(Format.XML, format("*/*, application/problem+json;q=0"));
+        assertEquals(Format.XML, format("APPLICATION/PROBLEM+XML; Q=1"));
+        assertEquals(Format.CBOR, format("application/problem+json, application/cbor"));
+        assertEquals(Format.JSON, format("application/problem+json, application/cbor;q=0.5"));
+        assertEquals(Format.JSON, format("application/*"));
+        assertEquals(Format.JSON, format("application/problem+xml;q=2"));
+    }
+
+    @Test
+    void locales() {
+        assertEquals(Locale.ENGLISH, locale(null));
+        assertEquals(Locale.ENGLISH, locale("*"));
+        assertEquals(Locale.ENGLISH, locale("es"));
+        assertEquals(Locale.GERMAN, locale("de-CH"));
+        assertEquals(Locale.FRENCH, locale("es, fr;q=0.8, de;q=0.5"));
+        assertEquals(Locale.GERMAN, locale("en;q=0.5, de"));
+        assertEquals(Locale.ENGLISH, locale("de;q=0, en-GB"));
+    }
+
+    @Test
+    void cached() {
+        String accept = "application/problem+xml, application/problem+json;q=0.9";
+        assertSame(ProblemWriter.negotiate(accept, "fr"), ProblemWriter.negotiate(accept, "fr"));
+        assertSame(ProblemWriter.negotiate("application/xml", "fr-FR"), ProblemWriter.negotiate(accept, "fr"));
+    }
+
+    @Test
+    void titles() {
+        ProblemWriter german = ProblemWriter.negotiate(null, "de");
+        assertEquals("Nicht gefunden", german.getTitle(notFound()));
+
+        Problem blank = new Problem();
+        blank.setStatus(404);
+        assertEquals("Nicht gefunden", german.getTitle(blank));
+
+        Problem custom = notFound();
+        custom.setTitle("Account missing");
+        assertEquals("Account missing", german.getTitle(custom));
+
+        Problem typed = new Problem(URI.create("https://example.com/probs/missing"));
+        typed.setStatus(404);
+        assertNull(german.getTitle(typed));
+    }
+
+    @Test
+    void write() throws IOException {
+        Problem problem = notFound();
+
+        ProblemWriter json = ProblemWriter.negotiate("application/problem+json", "de");
+        assertEquals(Problem.MEDIA_TYPE_JSON, json.getMediaType());
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Nicht gefunden\",\"status\":404,\"detail\":\"No such account\"}",
+            new String(write(json, problem), StandardCharsets.UTF_8));
+
+        ProblemWriter xml = ProblemWriter.negotiate("application/problem+xml", "fr");
+        assertEquals(Problem.MEDIA_TYPE_XML, xml.getMediaType());
+        String written = new String(write(xml, problem), StandardCharsets.UTF_8);
+        assertTrue(written.contains("<title>Non trouvé</title>"), written);
+
+        ProblemWriter cbor = ProblemWriter.negotiate("application/problem+cbor", "en");
+        assertEquals(Problem.MEDIA_TYPE_CBOR, cbor.getMediaType());
+        assertArrayEquals(problem.toCbor(), write(cbor, problem));
+
+        assertEquals(Problem.findStatusPhrase(404), problem.getTitle());
+    }
+
+    @Test
+    void write_extended() throws IOException {
+        BiggerProblem problem = new BiggerProblem();
+        problem.setStatus(404);
+        ProblemWriter xml = ProblemWriter.negotiate("application/xml", "de");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        xml.write(problem, outputStream);
+        String written = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(written.contains("<title>Nicht gefunden</title>"), written);
+    }
+
+}
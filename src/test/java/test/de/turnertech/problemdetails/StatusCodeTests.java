@@ -1,8 +1,15 @@
 package test.de.turnertech.problemdetails;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Locale;
+import java.util.Properties;
 
 import org.junit.jupiter.api.Test;
 
@@ -20,9 +27,47 @@ class StatusCodeTests {
         assertEquals("Nicht gefunden", Problem.findStatusPhrase(404, Locale.GERMAN));
     }
 
+    @Test
+    void get_status_phrase_404_french() {    
+        assertEquals("Non trouvé", Problem.findStatusPhrase(404, Locale.FRENCH));
+    }
+
+    @Test
+    void get_status_phrase_ignores_country() {    
+        assertEquals("Nicht gefunden", Problem.findStatusPhrase(404, Locale.GERMANY));
+        assertEquals("Not Found", Problem.findStatusPhrase(404, Locale.UK));
+    }
+
+    @Test
+    void get_status_phrase_unknown_code_returns_null() {    
+        assertNull(Problem.findStatusPhrase(299));
+        assertNull(Problem.findStatusPhrase(99));
+        assertNull(Problem.findStatusPhrase(600, Locale.GERMAN));
+        assertNull(Problem.findStatusPhrase(-1));
+    }
+
     @Test
     void get_status_phrase_404_unknown_returns_english() {    
-        // ToDo: assertEquals("Not Found", Problem.getStatusPhrase(404, Locale.TRADITIONAL_CHINESE));
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMAN);
+            assertEquals("Not Found", Problem.findStatusPhrase(404, Locale.TRADITIONAL_CHINESE));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void get_status_phrase_matches_bundles() throws IOException {
+        for(String language : new String[] { "en", "de", "fr" }) {
+            Properties bundle = new Properties();
+            try(Reader reader = Files.newBufferedReader(Paths.get("src/main/resources/de/turnertech/problemdetails/i18n_" + language + ".properties"), StandardCharsets.UTF_8)) {
+                bundle.load(reader);
+            }
+            for(int status = 100; status < 600; status++) {
+                assertEquals(bundle.getProperty(Integer.toString(status)), Problem.findStatusPhrase(status, new Locale(language)), language + " " + status);
+            }
+        }
     }
 
 }
@@ -0,0 +1,87 @@
+package test.de.turnertech.problemdetails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.jupiter.api.Test;
+
+import de.turnertech.problemdetails.Problem;
+
+class XmlTests {
+
+    @Test
+    void elements_follow_schema_order() throws XMLStreamException {
+        Problem problem = new Problem(URI.create("https://example.com/probs/out-of-credit"), URI.create("/account/12345/msgs/abc"));
+        problem.setStatus(403);
+        problem.setTitle("You do not have enough credit.");
+        problem.setDetail("Your current balance is 30, but that costs 50.");
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>https://example.com/probs/out-of-credit</type><title>You do not have enough credit.</title>"
+            + "<detail>Your current balance is 30, but that costs 50.</detail><status>403</status>"
+            + "<instance>/account/12345/msgs/abc</instance></problem>", problem.toXml());
+    }
+
+    @Test
+    void text_is_escaped() throws XMLStreamException {
+        Problem problem = new Problem();
+        problem.setDetail("a < b && c > d");
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\">"
+            + "<type>about:blank</type><detail>a &lt; b &amp;&amp; c &gt; d</detail></problem>", problem.toXml());
+    }
+
+    @Test
+    void unmappable_characters_are_referenced() throws XMLStreamException {
+        Problem problem = new Problem();
+        problem.setTitle("Größe 😀");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        problem.toXml(outputStream, StandardCharsets.US_ASCII, false);
+        assertEquals("<problem xmlns=\"urn:ietf:rfc:7807\"><type>about:blank</type><title>Gr&#246;&#223;e &#128512;</title></problem>",
+            outputStream.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void direct_output_matches_stax_output() throws XMLStreamException {
+        Problem problem = new Problem(URI.create("my:problem"), URI.create("my:instance"));
+        problem.setStatus(500);
+        problem.setTitle(Problem.findStatusPhrase(500));
+        problem.setDetail("Something <broke>");
+
+        StringWriter stringWriter = new StringWriter();
+        XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+        outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+        XMLStreamWriter xmlStreamWriter = outputFactory.createXMLStreamWriter(stringWriter);
+        problem.toXml(xmlStreamWriter, StandardCharsets.UTF_8, true);
+        xmlStreamWriter.flush();
+
+        assertEquals(stringWriter.toString(), problem.toXml());
+    }
+
+    @Test
+    void extended_problems_use_stax() throws XMLStreamException {
+        Problem problem = new BiggerProblem();
+        String xml = problem.toXml();
+        assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?><problem xmlns=\"urn:ietf:rfc:7807\"><type>about:blank</type>"));
+        assertTrue(xml.contains(">Moar Hugs</bp:solution>"));
+        assertTrue(xml.endsWith("</problem>"));
+    }
+
+    @Test
+    void stream_is_not_closed() throws XMLStreamException, IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new Problem().toXml(outputStream, StandardCharsets.UTF_8, false);
+        new BiggerProblem().toXml(outputStream, StandardCharsets.UTF_8, false);
+        outputStream.write('!');
+        assertTrue(outputStream.toString(StandardCharsets.UTF_8).endsWith("</problem>!"));
+    }
+
+}